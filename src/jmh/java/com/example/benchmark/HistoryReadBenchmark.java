@@ -0,0 +1,121 @@
+package com.example.benchmark;
+
+import com.example.dto.GoldCsvDTO;
+import com.example.pricing.PriceConversion;
+import com.example.service.CsvReaderService;
+import com.example.service.GoldPriceDataService;
+import com.example.service.GoldPriceService;
+import com.example.store.HistoryCsvParser;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStoreRegistry;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Read paths behind {@code /last-entries}, {@code /historical} and the chart data, against a
+ * synthetic history of {@code rows} rows written to a CSV file and loaded through the same
+ * parser as the application's data files.
+ * <p>
+ * Add {@code -p rows=10000000} to the JMH arguments for the largest size; it needs a heap of
+ * a few GB ({@code -jvmArgs -Xmx4g}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryReadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private PriceStoreRegistry priceStoreRegistry;
+    private CsvReaderService csvReaderService;
+    private GoldPriceService goldPriceService;
+    private GoldPriceDataService goldPriceDataService;
+    private LocalDateTime rangeStart;
+    private LocalDateTime rangeEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("history-benchmark");
+        Path csv = directory.resolve("historical_gold_spot_prices.csv");
+        SyntheticHistory.write(csv, rows);
+
+        priceStoreRegistry = new PriceStoreRegistry(List.of(Metal.XAU.getCode()),
+                directory.resolve("historical_{metal}_spot_prices.csv").toString(),
+                directory.resolve("historical_{metal}_spot_prices.bin").toString(), "none");
+        byte[] data = Files.readAllBytes(csv);
+        PriceSeries.Builder builder = new PriceSeries.Builder(rows);
+        HistoryCsvParser.parseFile(data, data.length, builder);
+        PriceSeries series = priceStoreRegistry.store(Metal.XAU).replace(builder);
+
+        csvReaderService = new CsvReaderService(priceStoreRegistry);
+        goldPriceService = new GoldPriceService(priceStoreRegistry);
+        goldPriceDataService = new GoldPriceDataService(priceStoreRegistry);
+
+        // A year in the middle of the history, or all of it if it is shorter
+        LocalDateTime middle = series.dateTimeAt(series.size() / 2);
+        rangeStart = middle.minusMonths(6);
+        rangeEnd = middle.plusMonths(6);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        priceStoreRegistry.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ObjectNode> lastEntries() {
+        return csvReaderService.getLastNEntries(Metal.XAU, 7, PriceConversion.NONE);
+    }
+
+    @Benchmark
+    public List<ObjectNode> lastEntriesYear() {
+        return csvReaderService.getLastNEntries(Metal.XAU, 365, PriceConversion.NONE);
+    }
+
+    @Benchmark
+    public List<GoldCsvDTO> entriesByDays() {
+        return goldPriceService.getEntriesByDays(Metal.XAU, 30, PriceConversion.NONE);
+    }
+
+    @Benchmark
+    public List<GoldCsvDTO> pricesByDateRange() {
+        return goldPriceService.getPricesByDateRange(Metal.XAU, rangeStart, rangeEnd, PriceConversion.NONE);
+    }
+
+    @Benchmark
+    public List<GoldPriceDataService.GoldPriceData> goldPriceData() {
+        return goldPriceDataService.getGoldPriceData(30);
+    }
+}
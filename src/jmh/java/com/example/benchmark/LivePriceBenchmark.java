@@ -0,0 +1,121 @@
+package com.example.benchmark;
+
+import com.example.config.AppConfig;
+import com.example.config.UpstreamProperties;
+import com.example.dto.LiveGoldPriceDTO;
+import com.example.service.GoldPriceSchedulerService;
+import com.example.service.LivePriceHub;
+import com.example.service.LivePriceSnapshot;
+import com.example.store.Metal;
+import com.example.store.PriceStoreRegistry;
+import com.example.upstream.MultiProviderPriceSource;
+import com.example.upstream.PriceProvider;
+import com.example.upstream.UpstreamClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link GoldPriceSchedulerService#getLivePriceDetails} from many threads, alone and while
+ * another thread keeps publishing new prices fetched from a local stub of the gold-api.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LivePriceBenchmark {
+
+    private HttpServer server;
+    private Path directory;
+    private PriceStoreRegistry priceStoreRegistry;
+    private LivePriceHub livePriceHub;
+    private GoldPriceSchedulerService schedulerService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Every call quotes a new price, so every refresh publishes a new snapshot
+        AtomicLong calls = new AtomicLong();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/price", exchange -> {
+            String json = "{\"price\":" + (2900 + calls.incrementAndGet() % 100) / 1.0
+                    + ",\"updatedAt\":\"2025-02-28T12:30:00Z\"}";
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/price/" + PriceProvider.SYMBOL_PLACEHOLDER;
+
+        directory = Files.createTempDirectory("live-benchmark");
+        priceStoreRegistry = new PriceStoreRegistry(List.of(Metal.XAU.getCode()),
+                directory.resolve("historical_{metal}_spot_prices.csv").toString(),
+                directory.resolve("historical_{metal}_spot_prices.bin").toString(), "none");
+        UpstreamClient client = new UpstreamClient(new AppConfig().restTemplate(500, 3000), 1, 10, 50, 0, 32, 5, 60000);
+        MultiProviderPriceSource priceSource = new MultiProviderPriceSource(client, new ObjectMapper(),
+                new UpstreamProperties(), new StaticListableBeanFactory().getBeanProvider(PriceProvider.class),
+                url, "first", 4000, 1, "USD");
+        livePriceHub = new LivePriceHub(priceSource, priceStoreRegistry);
+        schedulerService = new GoldPriceSchedulerService(livePriceHub);
+        if (livePriceHub.refresh(Metal.XAU) == null) {
+            throw new IllegalStateException("The stub upstream did not return a price");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        livePriceHub.shutdown();
+        priceStoreRegistry.stop();
+        server.stop(0);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public LiveGoldPriceDTO readOnly() {
+        return schedulerService.getLivePriceDetails(Metal.XAU);
+    }
+
+    @Benchmark
+    @Group("refreshing")
+    @GroupThreads(3)
+    public LiveGoldPriceDTO read() {
+        return schedulerService.getLivePriceDetails(Metal.XAU);
+    }
+
+    @Benchmark
+    @Group("refreshing")
+    @GroupThreads(1)
+    public LivePriceSnapshot refresh() {
+        return livePriceHub.refresh(Metal.XAU);
+    }
+}
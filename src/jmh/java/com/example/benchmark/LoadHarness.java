@@ -0,0 +1,335 @@
+package com.example.benchmark;
+
+import com.example.GoldPriceManagementApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test: boots the application against a {@link StubUpstream} on the loopback
+ * interface, drives it with a closed loop of concurrent clients over a weighted mix of
+ * requests, then reports throughput, latency percentiles, a latency histogram and errors per
+ * request, on the console and as JSON. Everything runs in one JVM, without network access.
+ * <p>
+ * {@code mvn -Pbenchmarks test-compile exec:exec@load -Dload.args="--concurrency=32 --duration=60"}
+ * <p>
+ * Options, as {@code --name=value}:
+ * <ul>
+ *   <li>{@code duration}, {@code warmup}: measured and discarded seconds (30, 5).</li>
+ *   <li>{@code concurrency}: clients, each sending its next request when the last one is answered (16).</li>
+ *   <li>{@code mix}: weighted requests, {@code path:weight,...}
+ *       ({@code /live:60,/last-entries:30,/historical:10}).</li>
+ *   <li>{@code upstream-latency-ms}, {@code upstream-jitter-ms}, {@code upstream-failure-rate}:
+ *       behaviour of the stub upstream (50, 0, 0).</li>
+ *   <li>{@code refresh-ms}: live price refresh interval, short so the upstream is exercised (1000).</li>
+ *   <li>{@code rows}: a synthetic history of this many days instead of the bundled one, at most 36500.</li>
+ *   <li>{@code target}: base URL of an instance already running; nothing is booted then.</li>
+ *   <li>{@code output}: the JSON report ({@code target/load-result.json}).</li>
+ * </ul>
+ */
+public final class LoadHarness {
+
+    private final Map<String, String> options;
+    private final List<String> paths = new ArrayList<>();
+    private final List<Integer> weights = new ArrayList<>();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    private LoadHarness(Map<String, String> options) {
+        this.options = options;
+        for (String entry : option("mix", "/live:60,/last-entries:30,/historical:10").split(",")) {
+            int separator = entry.lastIndexOf(':');
+            String path = separator < 0 ? entry.trim() : entry.substring(0, separator).trim();
+            int weight = separator < 0 ? 1 : Integer.parseInt(entry.substring(separator + 1).trim());
+            if (weight > 0) {
+                paths.add(path);
+                weights.add(weight);
+                endpoints.put(path, new Endpoint());
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("mix must name at least one path with a positive weight");
+        }
+    }
+
+    /**
+     * Requests and errors of one path of the mix.
+     */
+    private static final class Endpoint {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        long getErrors() {
+            return errors.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Options are --name=value; see the LoadHarness class comment. Got: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadHarness(options).run();
+        // The application's scheduler and Tomcat threads are not daemons
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        String target = options.get("target");
+        if (target != null) {
+            drive(target.replaceAll("/+$", ""), null);
+            return;
+        }
+
+        Path directory = Files.createTempDirectory("load-harness");
+        try (StubUpstream upstream = new StubUpstream(longOption("upstream-latency-ms", 50),
+                longOption("upstream-jitter-ms", 0), Double.parseDouble(option("upstream-failure-rate", "0")))) {
+            int rows = (int) longOption("rows", 0);
+            if (rows > 36500) {
+                throw new IllegalArgumentException("rows must be at most 36500, one per day: " + rows);
+            }
+            if (rows > 0) {
+                SyntheticHistory.write(directory.resolve("historical_gold_spot_prices.csv"), rows);
+            }
+
+            ConfigurableApplicationContext context = SpringApplication.run(GoldPriceManagementApplication.class,
+                    "--server.port=0",
+                    "--gold.api.url=" + upstream.getUrl(),
+                    "--live.price.refresh-ms=" + longOption("refresh-ms", 1000),
+                    "--csv.file.path=" + directory.resolve("historical_{metal}_spot_prices.csv"),
+                    "--binary.file.path=" + directory.resolve("historical_{metal}_spot_prices.bin"),
+                    "--intraday.journal.path=" + directory.resolve("intraday_{metal}.journal"),
+                    "--history.journal.fsync=none");
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                drive("http://127.0.0.1:" + port, upstream);
+            } finally {
+                context.close();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private void drive(String baseUrl, StubUpstream upstream) throws Exception {
+        int concurrency = (int) longOption("concurrency", 16);
+        long warmupMillis = longOption("warmup", 5) * 1000;
+        long durationMillis = longOption("duration", 30) * 1000;
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        awaitLivePrice(client, baseUrl);
+
+        int totalWeight = weights.stream().mapToInt(Integer::intValue).sum();
+        List<HttpRequest> requests = new ArrayList<>();
+        for (String path : paths) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build());
+        }
+
+        System.out.printf("Driving %s with %d clients: %s%n", baseUrl, concurrency, options.getOrDefault("mix", paths.toString()));
+        CountDownLatch done = new CountDownLatch(concurrency);
+        SplittableRandom seed = new SplittableRandom(42);
+        for (int c = 0; c < concurrency; c++) {
+            SplittableRandom random = seed.split();
+            Thread thread = new Thread(() -> {
+                try {
+                    while (running) {
+                        int pick = random.nextInt(totalWeight);
+                        int i = 0;
+                        while (pick >= weights.get(i)) {
+                            pick -= weights.get(i++);
+                        }
+                        send(client, requests.get(i), endpoints.get(paths.get(i)));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread.sleep(warmupMillis);
+        long upstreamRequests = upstream == null ? 0 : upstream.getRequests();
+        long upstreamFailures = upstream == null ? 0 : upstream.getFailures();
+        recording = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationMillis);
+        recording = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (upstream != null) {
+            upstreamRequests = upstream.getRequests() - upstreamRequests;
+            upstreamFailures = upstream.getFailures() - upstreamFailures;
+        }
+        running = false;
+        done.await();
+
+        Map<String, Object> report = report(seconds, concurrency);
+        if (upstream != null) {
+            System.out.printf("%nStub upstream: %d requests, %d failed%n", upstreamRequests, upstreamFailures);
+            Map<String, Object> stub = new LinkedHashMap<>();
+            stub.put("requests", upstreamRequests);
+            stub.put("failures", upstreamFailures);
+            report.put("upstream", stub);
+        }
+        Path output = Paths.get(option("output", "target/load-result.json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        System.out.println("Wrote " + output.toAbsolutePath());
+    }
+
+    private void send(HttpClient client, HttpRequest request, Endpoint endpoint) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                error = "HTTP " + response.statusCode();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return;
+        } catch (IOException e) {
+            error = e.getClass().getSimpleName();
+        }
+        if (!recording) {
+            return;
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        endpoint.latency.record(micros);
+        overall.record(micros);
+        if (error != null) {
+            endpoint.errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Waits for the first live price, so {@code /live} is not measured answering empty.
+     */
+    private static void awaitLivePrice(HttpClient client, String baseUrl) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/live")).timeout(Duration.ofSeconds(5)).build();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200 && !response.body().isEmpty()) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        System.out.println("No live price after 30 s; /live answers empty until the upstream does");
+    }
+
+    private Map<String, Object> report(double seconds, int concurrency) {
+        System.out.printf("%n%-40s %9s %7s %9s %8s %8s %8s %8s %8s %8s%n", "path", "requests", "errors", "req/s",
+                "mean", "p50", "p90", "p99", "p99.9", "max");
+        Map<String, Object> results = new LinkedHashMap<>();
+        endpoints.forEach((path, endpoint) -> {
+            Map<String, Object> summary = summary(path, endpoint.latency, endpoint.getErrors(), seconds);
+            Map<String, Long> kinds = new LinkedHashMap<>();
+            endpoint.errors.forEach((kind, count) -> {
+                kinds.put(kind, count.sum());
+                System.out.printf("    %s: %d%n", kind, count.sum());
+            });
+            summary.put("errorsByKind", kinds);
+            results.put(path, summary);
+        });
+        long errors = endpoints.values().stream().mapToLong(Endpoint::getErrors).sum();
+        Map<String, Object> total = summary("all", overall, errors, seconds);
+
+        System.out.printf("%nLatency histogram (all requests)%n");
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        long cumulative = 0;
+        for (long[] bucket : overall.powerOfTwoBuckets()) {
+            cumulative += bucket[1];
+            if (cumulative == 0) {
+                continue;
+            }
+            System.out.printf("  < %10.3f ms %9d %7.2f%%%n", bucket[0] / 1000.0, bucket[1],
+                    100.0 * cumulative / Math.max(1, overall.getCount()));
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("belowMillis", bucket[0] / 1000.0);
+            row.put("count", bucket[1]);
+            histogram.add(row);
+        }
+        total.put("histogram", histogram);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("concurrency", concurrency);
+        report.put("seconds", seconds);
+        report.put("total", total);
+        report.put("paths", results);
+        return report;
+    }
+
+    private static Map<String, Object> summary(String path, LatencyHistogram latency, long errors, double seconds) {
+        System.out.printf("%-40s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n", path, latency.getCount(), errors,
+                latency.getCount() / seconds, latency.getMeanMicros() / 1000, millis(latency, 50), millis(latency, 90),
+                millis(latency, 99), millis(latency, 99.9), latency.getMaxMicros() / 1000.0);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latency.getCount());
+        summary.put("errors", errors);
+        summary.put("throughput", latency.getCount() / seconds);
+        Map<String, Object> millis = new LinkedHashMap<>();
+        millis.put("mean", latency.getMeanMicros() / 1000);
+        millis.put("p50", millis(latency, 50));
+        millis.put("p90", millis(latency, 90));
+        millis.put("p99", millis(latency, 99));
+        millis.put("p99.9", millis(latency, 99.9));
+        millis.put("max", latency.getMaxMicros() / 1000.0);
+        summary.put("latencyMillis", millis);
+        return summary;
+    }
+
+    private static double millis(LatencyHistogram latency, double percentile) {
+        return latency.percentileMicros(percentile) / 1000.0;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private long longOption(String name, long defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+}
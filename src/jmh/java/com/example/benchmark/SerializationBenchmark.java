@@ -0,0 +1,86 @@
+package com.example.benchmark;
+
+import com.example.dto.GoldCsvDTO;
+import com.example.dto.LiveGoldPriceDTO;
+import com.example.service.LivePriceSnapshot;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the response bodies of {@code /historical} (a list of {@link GoldCsvDTO})
+ * and {@code /live} ({@link LiveGoldPriceDTO}), with a mapper configured like the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private LivePriceSnapshot snapshot;
+
+    /**
+     * A {@code /historical} response of {@code entries} rows, most recent first.
+     */
+    @State(Scope.Benchmark)
+    public static class History {
+
+        @Param({"7", "365", "5000"})
+        public int entries;
+
+        private List<GoldCsvDTO> rows;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PriceSeries series = SyntheticHistory.generate(entries, LocalDateTime.now());
+            rows = new ArrayList<>(entries);
+            for (int i = series.size() - 1; i >= 0; i--) {
+                rows.add(new GoldCsvDTO(series.dateTimeAt(i), series.closeAt(i)));
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The defaults Spring Boot applies to its own mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        snapshot = new LivePriceSnapshot(Metal.XAU, 2900.5, "USD", LocalDateTime.now().withNano(0),
+                System.currentTimeMillis(), 1);
+    }
+
+    @Benchmark
+    public byte[] historical(History history) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(history.rows);
+    }
+
+    @Benchmark
+    public byte[] live() throws JsonProcessingException {
+        // The DTO is built per request, as the controller does
+        return objectMapper.writeValueAsBytes(snapshot.toDTO());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.benchmark;
+
+import com.example.store.HistoryCsv;
+import com.example.store.PriceSeries;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic price histories for the benchmarks: a seeded random walk starting at
+ * a gold-like price, so every run with the same row count sees the same data. Histories of
+ * up to a century have one row per day; longer ones are spread over a century at a finer
+ * step, down to one row a minute, so 10M rows still fit in four-digit years.
+ * <p>
+ * Run as a program to write a history CSV in the layout of the data files:
+ * {@code java -cp <classpath> com.example.benchmark.SyntheticHistory <rows> <path>}
+ */
+public final class SyntheticHistory {
+
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final int DAILY_ROW_LIMIT = 36500;
+    private static final long CENTURY_SECONDS = DAILY_ROW_LIMIT * SECONDS_PER_DAY;
+    private static final long SEED = 20250228L;
+
+    private SyntheticHistory() {
+    }
+
+    /**
+     * @return the number of seconds between two rows of a history of {@code rows} rows.
+     */
+    public static long stepSeconds(int rows) {
+        if (rows <= DAILY_ROW_LIMIT) {
+            return SECONDS_PER_DAY;
+        }
+        return Math.max(60, CENTURY_SECONDS / rows / 60 * 60);
+    }
+
+    /**
+     * Generates a history whose last row is at midnight of {@code end}'s day.
+     *
+     * @return the rows, sorted by timestamp.
+     */
+    public static PriceSeries generate(int rows, LocalDateTime end) {
+        long step = stepSeconds(rows);
+        long first = HistoryCsv.toEpochSecond(end.truncatedTo(ChronoUnit.DAYS)) - (rows - 1L) * step;
+        // Daily volatility of about 1%, scaled to the step
+        double volatility = 0.01 * Math.sqrt((double) step / SECONDS_PER_DAY);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        PriceSeries.Builder builder = new PriceSeries.Builder(rows);
+        double close = 1500;
+        for (int i = 0; i < rows; i++) {
+            double open = close;
+            close = round(Math.max(1, open * (1 + (random.nextDouble() - 0.5) * 2 * volatility)));
+            double high = round(Math.max(open, close) * (1 + random.nextDouble() * volatility / 2));
+            double low = round(Math.min(open, close) * (1 - random.nextDouble() * volatility / 2));
+            builder.add(first + i * step, open, high, low, close);
+        }
+        return builder.build(0);
+    }
+
+    /**
+     * Writes a generated history ending today to {@code path}, header included.
+     */
+    public static void write(Path path, int rows) throws IOException {
+        PriceSeries series = generate(rows, LocalDateTime.now());
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            writer.write(String.join(",", HistoryCsv.HEADER));
+            writer.write('\n');
+            for (int i = 0; i < series.size(); i++) {
+                HistoryCsv.writeRow(writer, series, i);
+            }
+        }
+    }
+
+    private static double round(double price) {
+        return Math.round(price * 1000) / 1000.0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SyntheticHistory <rows> <path>");
+            System.exit(2);
+        }
+        int rows = Integer.parseInt(args[0]);
+        Path path = Paths.get(args[1]);
+        write(path, rows);
+        System.out.println("Wrote " + rows + " rows, one every " + stepSeconds(rows) + " s, to " + path);
+    }
+}
@@ -1,5 +1,12 @@
 package com.example;
 
+import com.example.store.CsvBinaryConverter;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceStoreRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -13,8 +20,10 @@ import java.nio.file.*;
 @EnableScheduling
 public class GoldPriceManagementApplication implements CommandLineRunner {
 
-	private static final String FILE_NAME = "historical_gold_spot_prices.csv";  // CSV File Name
-	private static final String EXTERNAL_PATH = "./data/" + FILE_NAME;  // External Path
+	private static final Logger logger = LoggerFactory.getLogger(GoldPriceManagementApplication.class);
+
+	@Autowired
+	private PriceStoreRegistry priceStoreRegistry;
 
 	public static void main(String[] args) {
 		SpringApplication.run(GoldPriceManagementApplication.class, args);
@@ -22,25 +31,51 @@ public class GoldPriceManagementApplication implements CommandLineRunner {
 
 	@Override
 	public void run(String... args) throws Exception {
-		// Ensure external directory exists
-		Files.createDirectories(Paths.get("./data"));
-
-		// Copy CSV file from resources to external location if it doesn't exist
-		File externalFile = new File(EXTERNAL_PATH);
-		if (!externalFile.exists()) {
-			try (InputStream is = getClass().getClassLoader().getResourceAsStream(FILE_NAME);
-				 OutputStream os = new FileOutputStream(EXTERNAL_PATH)) {
+		for (Metal metal : priceStoreRegistry.getMetals()) {
+			prepareFiles(metal);
+		}
+
+		// Load each metal's history once, then follow appended rows; every reader shares the in-memory stores
+		priceStoreRegistry.start();
+	}
+
+	private void prepareFiles(Metal metal) throws IOException {
+		Path csvPath = priceStoreRegistry.store(metal).getCsvPath();
+		Path binaryPath = priceStoreRegistry.getBinaryPath(metal);
+
+		// Ensure external directories exist
+		createParentDirectories(csvPath);
+		createParentDirectories(binaryPath);
+
+		// Bootstrap the binary history from the bundled CSV on first start; only gold ships with one
+		if (metal == Metal.XAU && Files.notExists(binaryPath) && Files.notExists(csvPath)) {
+			try (InputStream is = getClass().getClassLoader().getResourceAsStream(HistoryCsv.FILE_NAME)) {
 				if (is == null) {
-					System.err.println("CSV file not found in resources!");
-					return;
-				}
-				byte[] buffer = new byte[1024];
-				int length;
-				while ((length = is.read(buffer)) > 0) {
-					os.write(buffer, 0, length);
+					logger.error("CSV file not found in resources!");
+				} else {
+					int records = CsvBinaryConverter.importCsv(is, binaryPath);
+					logger.info("Imported {} bundled records into: {}", records, binaryPath);
 				}
-				System.out.println("CSV file copied to: " + EXTERNAL_PATH);
 			}
 		}
+
+		// The CSV stays the append log, so recreate it from the binary history if it is missing
+		if (Files.notExists(csvPath) && Files.exists(binaryPath)) {
+			int records = CsvBinaryConverter.exportCsv(binaryPath, csvPath);
+			logger.info("Exported {} records to: {}", records, csvPath);
+		}
+
+		// Start an empty history for a metal without one, so the daily append has a file to extend
+		if (Files.notExists(csvPath)) {
+			Files.writeString(csvPath, String.join(",", HistoryCsv.HEADER) + "\n");
+			logger.info("Created an empty {} price history: {}", metal.getDisplayName(), csvPath);
+		}
+	}
+
+	private static void createParentDirectories(Path path) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
 	}
 }
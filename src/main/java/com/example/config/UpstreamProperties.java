@@ -0,0 +1,88 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Price sources configured under {@code upstream.providers[n]}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(List<Provider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * One JSON price API and where its fields live, as JSON pointers.
+     */
+    public static class Provider {
+        private String name;
+        private String url;
+        private String pricePointer = "/price";
+        private String timestampPointer = "/updatedAt";
+        private String currencyPointer = "/currency";
+
+        // Getters and setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getPricePointer() {
+            return pricePointer;
+        }
+
+        public void setPricePointer(String pricePointer) {
+            this.pricePointer = pricePointer;
+        }
+
+        public String getTimestampPointer() {
+            return timestampPointer;
+        }
+
+        public void setTimestampPointer(String timestampPointer) {
+            this.timestampPointer = timestampPointer;
+        }
+
+        public String getCurrencyPointer() {
+            return currencyPointer;
+        }
+
+        public void setCurrencyPointer(String currencyPointer) {
+            this.currencyPointer = currencyPointer;
+        }
+
+        @Override
+        public String toString() {
+            return "Provider{" +
+                    "name='" + name + '\'' +
+                    ", url='" + url + '\'' +
+                    ", pricePointer='" + pricePointer + '\'' +
+                    ", timestampPointer='" + timestampPointer + '\'' +
+                    ", currencyPointer='" + currencyPointer + '\'' +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers for HTTP conditional requests (ETag / Last-Modified / 304) on read endpoints.
+ */
+final class ConditionalRequests {
+
+    // Distinguishes data versions of this process from those of a previous run
+    private static final String INSTANCE_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Builds an ETag from a data version and the request parameters that shape the body.
+     * The tag is weak: the same version may be sent gzip-compressed or not, and Tomcat
+     * refuses to compress responses that carry a strong ETag.
+     */
+    static String etag(String resource, long version, Object... parameters) {
+        StringBuilder tag = new StringBuilder("W/\"").append(resource).append('-').append(INSTANCE_ID).append('-').append(version);
+        for (Object parameter : parameters) {
+            tag.append('-').append(parameter);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Sets the validators and Cache-Control on the response and checks the request's
+     * conditional headers against them. Call this before loading or serializing any data:
+     * when it returns true the handler should return null and Spring sends a bodyless 304.
+     *
+     * @param maxAgeSeconds how long clients may reuse the response without revalidating.
+     */
+    static boolean isNotModified(WebRequest request, String etag, long lastModified, long maxAgeSeconds) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue());
+        }
+        return request.checkNotModified(etag, lastModified);
+    }
+}
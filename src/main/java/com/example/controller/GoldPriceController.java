@@ -1,26 +1,57 @@
 package com.example.controller;
 
+import com.example.dto.CandleDTO;
+import com.example.dto.ColumnarPricesDTO;
 import com.example.dto.GoldPriceDTO;
+import com.example.dto.IndicatorPointDTO;
+import com.example.dto.IngestResultDTO;
+import com.example.dto.RangeStatsDTO;
+import com.example.pricing.FxRates;
+import com.example.pricing.Karat;
+import com.example.pricing.PriceConversion;
+import com.example.pricing.PriceUnit;
 import com.example.service.*;
+import com.example.store.CandleInterval;
+import com.example.store.HistoryCsv;
+import com.example.store.HistoryUploadParser;
+import com.example.store.IndicatorType;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStoreRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.example.dto.GoldCsvDTO;
-import com.example.dto.LiveGoldPriceDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @CrossOrigin(origins = {
@@ -48,22 +79,73 @@ public class GoldPriceController {
     @Autowired
     private CsvReaderService csvReaderService;
 
+    @Autowired
+    private CandleService candleService;
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private RangeStatsService rangeStatsService;
+
+    @Autowired
+    private PriceStoreRegistry priceStoreRegistry;
+
+    @Autowired
+    private ResponseCacheService responseCacheService;
+
+    @Autowired
+    private HistoryExportService historyExportService;
+
+    @Autowired
+    private HistoryIngestService historyIngestService;
+
+    @Autowired
+    private LivePriceStreamService livePriceStreamService;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private PriceMatrixService priceMatrixService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Cache-Control max-age per refresh cadence: live price (5 min), intraday samples (hourly), daily history
+    @Value("${http.cache.live-max-age:60}")
+    private long liveMaxAge;
+
+    @Value("${http.cache.intraday-max-age:300}")
+    private long intradayMaxAge;
+
+    @Value("${http.cache.history-max-age:900}")
+    private long historyMaxAge;
+
     /**
-     * API to append the latest gold price to a CSV file.
+     * API to append the latest price to the history CSV file.
      * Endpoint: /append
+     * @param symbol Optional metal (XAU, XAG, XPT or XPD); every metal when omitted.
      * @return Status message of the operation.
      */
     @GetMapping("/append")
-    public ResponseEntity<String> appendGoldPriceToCsv() {
+    public ResponseEntity<String> appendGoldPriceToCsv(@RequestParam(value = "symbol", required = false) String symbol) {
         // Create a logger instance for this method
         Logger logger = LoggerFactory.getLogger(GoldPriceController.class);
 
+        Metal metal = symbol == null ? null : priceStoreRegistry.resolve(symbol);
+        if (symbol != null && metal == null) {
+            return ResponseEntity.badRequest().body(invalidSymbolMessage());
+        }
+
         try {
-            // Call the service method to append the gold price to the CSV file
-            String result = goldPriceCsvService.appendGoldPriceToCsv();
+            // Call the service method to append the price(s) to the CSV file(s)
+            String result = metal == null
+                    ? goldPriceCsvService.appendAllPricesToCsv()
+                    : goldPriceCsvService.appendPriceToCsv(metal);
 
             // Log the success
-            logger.info("Successfully appended gold price to CSV.");
+            logger.info("Successfully appended {} price to CSV.", metal == null ? "every" : metal.getDisplayName());
 
             // Return 200 OK with the result
             return ResponseEntity.ok(result);
@@ -78,41 +160,200 @@ public class GoldPriceController {
     }
 
     /**
-     * API to fetch the live gold price.
+     * API to fetch the live price.
      * Endpoint: /live
-     * @return Live gold price or an error message if unavailable.
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return Live price or an error message if unavailable.
      */
     @GetMapping("/live")
-    public LiveGoldPriceDTO getLiveGoldPrice() {
-        return goldPriceSchedulerService.getLivePriceDetails();
+    public ResponseEntity<?> getLiveGoldPrice(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+        if (!conversion.isIdentity()) {
+            return convertedLivePrice(webRequest, metal, conversion);
+        }
+
+        LivePriceSnapshot snapshot = goldPriceSchedulerService.getLiveSnapshot(metal);
+        if (snapshot == null) {
+            // No price fetched yet: keep answering an empty 200 as before
+            return ResponseEntity.ok().build();
+        }
+
+        long version = snapshot.getVersion();
+        if (ConditionalRequests.isNotModified(webRequest, ConditionalRequests.etag("live", version, metal.getCode()),
+                snapshot.getLastModified(), liveMaxAge)) {
+            return null;
+        }
+        return cachedJson(webRequest, ResponseCacheService.group(ResponseCacheService.LIVE, metal), "live",
+                version, snapshot::toDTO);
     }
 
     /**
-     * API to fetch historical gold price data.
+     * API to subscribe to live gold price updates as Server-Sent Events.
+     * Endpoint: /live/stream
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param lastEventId Id of the last event received, sent by reconnecting clients.
+     * @return An event stream with a "price" event per update and periodic heartbeat comments.
+     */
+    @GetMapping(value = "/live/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLivePrice(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SseEmitter emitter = livePriceStreamService.subscribe(metal, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no") // Stop reverse proxies from buffering the stream
+                .body(emitter);
+    }
+
+    /**
+     * API to fetch today's hourly price samples.
      * Endpoint: /historical
-     * @return Historical gold price data or an error message if unavailable.
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param format Optional encoding: json (default), columnar, csv or binary; otherwise taken from the Accept header.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return Historical price data or an error message if unavailable.
      */
     @GetMapping("/historical")
-    public ResponseEntity<?> getHistoricalData() {
-        List<GoldPriceDTO> historicalData = goldPriceFetchService.getHistoricalData();
-        if (historicalData != null && !historicalData.isEmpty()) {
-            return ResponseEntity.ok(historicalData);
+    public ResponseEntity<?> getHistoricalData(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+
+        WireFormat wireFormat = WireFormat.negotiate(format, webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (wireFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid format. Use json, columnar, csv or binary."));
+        }
+
+        long version = goldPriceFetchService.getDataVersion(metal);
+        String etag = ConditionalRequests.etag("historical", version, metal.getCode(), wireFormat.getCode(),
+                conversion.getKey());
+        if (ConditionalRequests.isNotModified(webRequest, etag, goldPriceFetchService.getLastModified(metal), intradayMaxAge)) {
+            return null;
+        }
+
+        String group = ResponseCacheService.group(ResponseCacheService.INTRADAY, metal);
+        ResponseEntity<byte[]> response;
+        if (wireFormat == WireFormat.JSON) {
+            response = cachedJson(webRequest, group, keyed("historical", conversion), version, () -> {
+                List<GoldPriceDTO> historicalData = goldPriceFetchService.getHistoricalData(metal);
+                return historicalData == null || historicalData.isEmpty() ? null : convert(historicalData, conversion);
+            });
+        } else {
+            response = cachedBody(webRequest, group, keyed("historical:" + wireFormat.getCode(), conversion), version,
+                    wireFormat, () -> toColumnar(goldPriceFetchService.getHistoricalData(metal), conversion));
+        }
+        if (response != null) {
+            return response;
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Historical data not available.");
         }
     }
 
 
+    /**
+     * API to fetch the most recent daily closing prices.
+     * Endpoint: /last-entries
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param numEntries Number of entries to return.
+     * @param format Optional encoding: json (default), columnar, csv or binary; otherwise taken from the Accept header.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return The last entries in chronological order.
+     */
     @GetMapping("/last-entries")
-    public ResponseEntity<?> getLastEntries(@RequestParam(defaultValue = "7") int numEntries) {
+    public ResponseEntity<?> getLastEntries(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(defaultValue = "7") int numEntries,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+
         // Check if the number of entries is positive
         if (numEntries <= 0) {
             // Returning a structured error response
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid number of entries specified. Please provide a positive number."));
         }
 
+        WireFormat wireFormat = WireFormat.negotiate(format, webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (wireFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid format. Use json, columnar, csv or binary."));
+        }
+
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        if (isHistoryNotModified(webRequest, metal, conversion, series, "last-entries", numEntries, wireFormat.getCode())) {
+            return null;
+        }
+
+        String group = ResponseCacheService.group(ResponseCacheService.HISTORY, metal);
+        if (wireFormat != WireFormat.JSON) {
+            ResponseEntity<byte[]> response = series.isEmpty()
+                    ? encoded(webRequest, wireFormat, csvReaderService.getLastNPrices(metal, series, numEntries, conversion))
+                    : cachedBody(webRequest, group,
+                            keyed("last-entries:" + numEntries + ":" + wireFormat.getCode(), conversion), series.getVersion(),
+                            wireFormat, () -> csvReaderService.getLastNPrices(metal, series, numEntries, conversion));
+            return response != null
+                    ? response
+                    : ResponseEntity.status(404).body(Map.of("message", "No entries found for the requested number."));
+        }
+
+        if (!series.isEmpty()) {
+            ResponseEntity<byte[]> response = cachedJson(webRequest, group,
+                    keyed("last-entries:" + numEntries, conversion), series.getVersion(),
+                    () -> csvReaderService.getLastNEntries(series, numEntries, conversion));
+            if (response != null) {
+                return response;
+            }
+        }
+
         // Fetch the last 'numEntries' from the service
-        List<ObjectNode> lastEntries = csvReaderService.getLastNEntries(numEntries);
+        List<ObjectNode> lastEntries = csvReaderService.getLastNEntries(metal, numEntries, conversion);
 
         // Handle the case where no entries were found
         if (lastEntries.isEmpty()) {
@@ -125,61 +366,582 @@ public class GoldPriceController {
 
 
     /**
-     * API to fetch gold price entries based on the specified number of days.
+     * API to fetch price entries for the last N days or for a custom date range.
      * Endpoint: /gold-price-entries
-     * @param days Number of days for which to fetch entries (default is 7 days).
-     * @return List of gold price entries.
-     */
-//    @GetMapping("/gold-price-entries")
-//    public ResponseEntity<?> getGoldPriceEntries(
-//            @RequestParam(value = "days", required = false) Integer days,
-//            @RequestParam(value = "startDate", required = false) String startDate,
-//            @RequestParam(value = "endDate", required = false) String endDate) {
-//
-//        try {
-//            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-//
-//            // If a custom date range is provided
-//            if (startDate != null || endDate != null) {
-//                if (startDate == null || endDate == null) {
-//                    return ResponseEntity.badRequest()
-//                            .body("Both 'startDate' and 'endDate' must be provided for a date range.");
-//                }
-//
-//                LocalDateTime start;
-//                LocalDateTime end;
-//                try {
-//                    start = LocalDate.parse(startDate, formatter).atStartOfDay();
-//                    end = LocalDate.parse(endDate, formatter).atStartOfDay();
-//                } catch (Exception e) {
-//                    return ResponseEntity.badRequest()
-//                            .body("Invalid date format. Please use 'yyyy-MM-dd'.");
-//                }
-//
-//                if (end.isBefore(start)) {
-//                    return ResponseEntity.badRequest().body("End date must be after start date.");
-//                }
-//
-//                List<GoldCsvDTO> goldPrices = goldPriceService.getPricesByDateRange(start, end);
-//                return goldPrices.isEmpty()
-//                        ? ResponseEntity.status(HttpStatus.NOT_FOUND).body("No data found for the specified date range.")
-//                        : ResponseEntity.ok(goldPrices);
-//            }
-//
-//            // Fallback to 'days' parameter
-//            if (days == null || days < 1) {
-//                return ResponseEntity.badRequest().body("The 'days' parameter must be greater than 0.");
-//            }
-//
-//            List<GoldCsvDTO> goldPrices = goldPriceService.getEntriesByDays(days);
-//            return goldPrices.isEmpty()
-//                    ? ResponseEntity.status(HttpStatus.NOT_FOUND).body("No data found for the last " + days + " days.")
-//                    : ResponseEntity.ok(goldPrices);
-//
-//        } catch (Exception e) {
-//            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-//                    .body("An error occurred while fetching the data: " + e.getMessage());
-//        }
-//    }
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param days Number of days for which to fetch entries (used when no date range is given).
+     * @param startDate Start of the date range (inclusive), formatted as yyyy-MM-dd.
+     * @param endDate End of the date range (inclusive), formatted as yyyy-MM-dd.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return List of gold price entries, most recent first.
+     */
+    @GetMapping("/gold-price-entries")
+    public ResponseEntity<?> getGoldPriceEntries(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "days", required = false) Integer days,
+            @RequestParam(value = "startDate", required = false) String startDate,
+            @RequestParam(value = "endDate", required = false) String endDate,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+        String group = ResponseCacheService.group(ResponseCacheService.HISTORY, metal);
+
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+            // If a custom date range is provided
+            if (startDate != null || endDate != null) {
+                if (startDate == null || endDate == null) {
+                    return ResponseEntity.badRequest()
+                            .body("Both 'startDate' and 'endDate' must be provided for a date range.");
+                }
+
+                LocalDateTime start;
+                LocalDateTime end;
+                try {
+                    start = LocalDate.parse(startDate, formatter).atStartOfDay();
+                    end = LocalDate.parse(endDate, formatter).atTime(LocalTime.MAX);
+                } catch (Exception e) {
+                    return ResponseEntity.badRequest()
+                            .body("Invalid date format. Please use 'yyyy-MM-dd'.");
+                }
+
+                if (end.isBefore(start)) {
+                    return ResponseEntity.badRequest().body("End date must be after start date.");
+                }
+
+                PriceSeries series = priceStoreRegistry.snapshot(metal);
+                if (isHistoryNotModified(webRequest, metal, conversion, series, "gold-price-entries", startDate, endDate)) {
+                    return null;
+                }
+
+                ResponseEntity<byte[]> response = cachedJson(webRequest, group,
+                        keyed("gold-price-entries:" + startDate + ":" + endDate, conversion), series.getVersion(),
+                        () -> nonEmpty(goldPriceService.getPricesByDateRange(metal, start, end, conversion)));
+                return response == null
+                        ? ResponseEntity.status(HttpStatus.NOT_FOUND).body("No data found for the specified date range.")
+                        : response;
+            }
+
+            // Fallback to 'days' parameter
+            if (days == null || days < 1) {
+                return ResponseEntity.badRequest().body("The 'days' parameter must be greater than 0.");
+            }
+
+            // The window moves with the clock, so the current date is part of the validator
+            LocalDate today = LocalDate.now();
+            PriceSeries series = priceStoreRegistry.snapshot(metal);
+            if (isHistoryNotModified(webRequest, metal, conversion, series, "gold-price-entries", days, today)) {
+                return null;
+            }
+
+            ResponseEntity<byte[]> response = cachedJson(webRequest, group,
+                    keyed("gold-price-entries:" + days + ":" + today, conversion), series.getVersion(),
+                    () -> nonEmpty(goldPriceService.getEntriesByDays(metal, days, conversion)));
+            return response == null
+                    ? ResponseEntity.status(HttpStatus.NOT_FOUND).body("No data found for the last " + days + " days.")
+                    : response;
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An error occurred while fetching the data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * API to fetch pre-aggregated OHLC candles.
+     * Endpoint: /candles
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param interval Candle resolution: 1w, 1M, 1Q or 1Y.
+     * @param from Optional start date (inclusive), formatted as yyyy-MM-dd.
+     * @param to Optional end date (inclusive), formatted as yyyy-MM-dd.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return Candles in chronological order.
+     */
+    @GetMapping("/candles")
+    public ResponseEntity<?> getCandles(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "interval", defaultValue = "1M") String interval,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+
+        CandleInterval candleInterval = CandleInterval.fromCode(interval);
+        if (candleInterval == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid interval. Use one of 1w, 1M, 1Q or 1Y."));
+        }
+
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = from == null ? null : LocalDate.parse(from).atStartOfDay();
+            end = to == null ? null : LocalDate.parse(to).atTime(LocalTime.MAX);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Please use 'yyyy-MM-dd'."));
+        }
+
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        if (isHistoryNotModified(webRequest, metal, conversion, series, "candles", interval, from, to)) {
+            return null;
+        }
+
+        Supplier<List<CandleDTO>> candles = () -> candleService.getCandles(metal, candleInterval, start, end, conversion);
+        return cachedJson(webRequest, ResponseCacheService.group(ResponseCacheService.HISTORY, metal),
+                keyed("candles:" + interval + ":" + from + ":" + to, conversion), series.getVersion(), candles);
+    }
+
+    /**
+     * API to fetch a technical indicator computed over the daily close prices.
+     * Endpoint: /indicators
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param type Indicator: sma, ema, rsi, bollinger or macd.
+     * @param window Look-back period (signal period for macd); defaults per indicator.
+     * @param from Optional start date (inclusive), formatted as yyyy-MM-dd.
+     * @param to Optional end date (inclusive), formatted as yyyy-MM-dd.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return Indicator values in chronological order; RSI is unitless and never converted.
+     */
+    @GetMapping("/indicators")
+    public ResponseEntity<?> getIndicator(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "type") String type,
+            @RequestParam(value = "window", required = false) Integer window,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+
+        IndicatorType indicatorType = IndicatorType.fromCode(type);
+        if (indicatorType == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid type. Use one of sma, ema, rsi, bollinger or macd."));
+        }
+
+        int period = window == null ? indicatorType.getDefaultWindow() : window;
+        if (period < IndicatorService.MIN_WINDOW || period > IndicatorService.MAX_WINDOW) {
+            return ResponseEntity.badRequest().body(Map.of("error", "The 'window' parameter must be between "
+                    + IndicatorService.MIN_WINDOW + " and " + IndicatorService.MAX_WINDOW + "."));
+        }
+
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = from == null ? null : LocalDate.parse(from).atStartOfDay();
+            end = to == null ? null : LocalDate.parse(to).atTime(LocalTime.MAX);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Please use 'yyyy-MM-dd'."));
+        }
+
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        if (isHistoryNotModified(webRequest, metal, conversion, series, "indicators", indicatorType.getCode(), period, from, to)) {
+            return null;
+        }
+
+        Supplier<List<IndicatorPointDTO>> points =
+                () -> indicatorService.getIndicator(metal, indicatorType, period, start, end, conversion);
+        return cachedJson(webRequest, ResponseCacheService.group(ResponseCacheService.HISTORY, metal),
+                keyed("indicators:" + indicatorType.getCode() + ":" + period + ":" + from + ":" + to, conversion),
+                series.getVersion(), points);
+    }
 
+    /**
+     * API to fetch high/low/average/standard deviation of the price between two dates.
+     * Endpoint: /stats
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param from Optional start date (inclusive), formatted as yyyy-MM-dd.
+     * @param to Optional end date (inclusive), formatted as yyyy-MM-dd.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return Statistics for the range.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return invalidConversion(metal, currency, unit, karat);
+        }
+
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = from == null ? null : LocalDate.parse(from).atStartOfDay();
+            end = to == null ? null : LocalDate.parse(to).atTime(LocalTime.MAX);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Please use 'yyyy-MM-dd'."));
+        }
+
+        if (start != null && end != null && end.isBefore(start)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "End date must be after start date."));
+        }
+
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        if (isHistoryNotModified(webRequest, metal, conversion, series, "stats", from, to)) {
+            return null;
+        }
+
+        Supplier<RangeStatsDTO> stats = () -> rangeStatsService.getStats(metal, start, end, conversion);
+        ResponseEntity<byte[]> response = cachedJson(webRequest, ResponseCacheService.group(ResponseCacheService.HISTORY, metal),
+                keyed("stats:" + from + ":" + to, conversion), series.getVersion(), stats);
+        if (response == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "No data found for the specified date range."));
+        }
+        return response;
+    }
+
+    /**
+     * API to stream the full daily price history, row by row, in constant memory.
+     * Endpoint: /history/stream
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param format Output format: ndjson (one JSON object per line) or csv.
+     * @param from Optional start date (inclusive), formatted as yyyy-MM-dd.
+     * @param to Optional end date (inclusive), formatted as yyyy-MM-dd.
+     * @param currency Optional currency to quote prices in, e.g. EUR or INR; USD when omitted.
+     * @param unit Optional weight unit: oz (default), g, kg or tola.
+     * @param karat Optional gold purity: 24 (default), 22, 21, 18 or 14.
+     * @return The rows in chronological order, written as they are produced.
+     */
+    @GetMapping("/history/stream")
+    public ResponseEntity<StreamingResponseBody> streamHistory(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "currency", required = false) String currency,
+            @RequestParam(value = "unit", required = false) String unit,
+            @RequestParam(value = "karat", required = false) String karat,
+            WebRequest webRequest) {
+
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return streamError(invalidSymbolMessage());
+        }
+
+        PriceConversion conversion = conversion(metal, currency, unit, karat);
+        if (conversion == null) {
+            return streamError(invalidConversionMessage(metal, currency, unit, karat));
+        }
+
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return streamError("Invalid format. Use ndjson or csv.");
+        }
+
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = from == null ? null : LocalDate.parse(from).atStartOfDay();
+            end = to == null ? null : LocalDate.parse(to).atTime(LocalTime.MAX);
+        } catch (Exception e) {
+            return streamError("Invalid date format. Please use 'yyyy-MM-dd'.");
+        }
+
+        PriceSeries snapshot = historyExportService.snapshot(metal);
+        if (isHistoryNotModified(webRequest, metal, conversion, snapshot, "history-stream", format.toLowerCase(), from, to)) {
+            return null;
+        }
+        // Converts all four price columns in one pass each before streaming
+        PriceSeries series = conversion.isIdentity() ? snapshot : snapshot.scaled(conversion.getFactor());
+
+        StreamingResponseBody body = csv
+                ? out -> historyExportService.writeCsv(series, start, end, out)
+                : out -> historyExportService.writeNdjson(series, start, end, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * API to bulk-load history rows, e.g. older history or corrections of bad days, without a restart.
+     * The upload is merged one row per day: the upload row with the latest time of the day (the one
+     * uploaded last if several share it) replaces any existing one.
+     * Endpoint: /history/ingest (POST)
+     * @param symbol Metal: XAU (default), XAG, XPT or XPD.
+     * @param format Optional body format: csv or ndjson; taken from the Content-Type when omitted, csv by default.
+     * @param contentType The Content-Type of the body.
+     * @param body CSV rows in the layout of the history file, or NDJSON objects as written by /history/stream.
+     * @return Counts of the rows received, added, replaced, unchanged and dropped as repeats, or an error message.
+     */
+    @PostMapping("/history/ingest")
+    public ResponseEntity<?> ingestHistory(
+            @RequestParam(value = "symbol", defaultValue = "XAU") String symbol,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) {
+        Logger logger = LoggerFactory.getLogger(GoldPriceController.class);
+
+        Metal metal = priceStoreRegistry.resolve(symbol);
+        if (metal == null) {
+            return invalidSymbol();
+        }
+
+        HistoryUploadParser.Format uploadFormat = format != null ? HistoryUploadParser.Format.fromCode(format)
+                : contentType != null && contentType.contains("json") ? HistoryUploadParser.Format.NDJSON
+                : HistoryUploadParser.Format.CSV;
+        if (uploadFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid format. Use csv or ndjson."));
+        }
+
+        try {
+            IngestResultDTO result = historyIngestService.ingest(metal, uploadFormat, body);
+            if (result == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "The upload contains no valid rows."));
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error occurred while ingesting {} history: {}", metal.getDisplayName(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error occurred while ingesting history: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Conditional-request check for endpoints derived from a metal's daily price history, keyed on
+     * the snapshot version so that a 304 is answered before any data is read.
+     */
+    private boolean isHistoryNotModified(WebRequest webRequest, Metal metal, PriceConversion conversion,
+                                         PriceSeries series, String resource, Object... parameters) {
+        Object[] tagged = new Object[parameters.length + 2];
+        tagged[0] = metal.getCode();
+        tagged[1] = conversion.getKey();
+        System.arraycopy(parameters, 0, tagged, 2, parameters.length);
+        String etag = ConditionalRequests.etag(resource, series.getVersion(), tagged);
+        return ConditionalRequests.isNotModified(webRequest, etag, series.getLastModified(), historyMaxAge);
+    }
+
+    private ResponseEntity<Map<String, String>> invalidSymbol() {
+        return ResponseEntity.badRequest().body(Map.of("error", invalidSymbolMessage()));
+    }
+
+    private String invalidSymbolMessage() {
+        return "Invalid symbol. Use one of " + priceStoreRegistry.getMetals().stream()
+                .map(Metal::getCode).collect(Collectors.joining(", ")) + ".";
+    }
+
+    /**
+     * Resolves the currency, unit and karat parameters of a price endpoint.
+     *
+     * @return the conversion, {@link PriceConversion#NONE} when none is given, or null if one is invalid.
+     */
+    private PriceConversion conversion(Metal metal, String currency, String unit, String karat) {
+        if (currency == null && unit == null && karat == null) {
+            return PriceConversion.NONE;
+        }
+        PriceUnit priceUnit = unit == null ? PriceUnit.OUNCE : PriceUnit.fromCode(unit);
+        Karat purity = karat == null ? Karat.K24 : Karat.fromCode(karat);
+        if (priceUnit == null || purity == null || (purity != Karat.K24 && metal != Metal.XAU)) {
+            return null;
+        }
+        return fxRateService.conversion(currency == null ? FxRates.BASE_CURRENCY : currency, priceUnit, purity);
+    }
+
+    private ResponseEntity<Map<String, String>> invalidConversion(Metal metal, String currency, String unit, String karat) {
+        return ResponseEntity.badRequest().body(Map.of("error", invalidConversionMessage(metal, currency, unit, karat)));
+    }
+
+    private String invalidConversionMessage(Metal metal, String currency, String unit, String karat) {
+        if (unit != null && PriceUnit.fromCode(unit) == null) {
+            return "Invalid unit. Use one of " + Arrays.stream(PriceUnit.values())
+                    .map(PriceUnit::getCode).collect(Collectors.joining(", ")) + ".";
+        }
+        Karat purity = karat == null ? Karat.K24 : Karat.fromCode(karat);
+        if (purity == null) {
+            return "Invalid karat. Use one of " + Arrays.stream(Karat.values())
+                    .map(k -> String.valueOf(k.getKarats())).collect(Collectors.joining(", ")) + ".";
+        }
+        if (purity != Karat.K24 && metal != Metal.XAU) {
+            return "The 'karat' parameter applies to gold only.";
+        }
+        return "Invalid currency. Use one of " + String.join(", ", fxRateService.current().getCurrencies()) + ".";
+    }
+
+    /**
+     * Answers a converted live price from the metal's precomputed {@link PriceMatrix}.
+     */
+    private ResponseEntity<?> convertedLivePrice(WebRequest webRequest, Metal metal, PriceConversion conversion) {
+        PriceMatrix matrix = priceMatrixService.current(metal);
+        if (matrix == null) {
+            // No price fetched yet: same empty 200 as the unconverted price
+            return ResponseEntity.ok().build();
+        }
+
+        // The matrix carries its own price and rates, so both validators come from the same read
+        long version = matrix.getSnapshot().getVersion();
+        String parameters = conversion.getCurrency() + ":" + conversion.getUnit().getCode() + ":"
+                + conversion.getKarat().getKarats() + ":fx" + matrix.getRates().getVersion();
+        if (ConditionalRequests.isNotModified(webRequest, ConditionalRequests.etag("live", version, metal.getCode(),
+                parameters), matrix.getSnapshot().getLastModified(), liveMaxAge)) {
+            return null;
+        }
+        ResponseEntity<byte[]> response = cachedJson(webRequest, ResponseCacheService.group(ResponseCacheService.LIVE, metal),
+                "live:" + parameters, version, () -> matrix.toDTO(conversion));
+        return response != null ? response : invalidConversion(metal, conversion.getCurrency(), null, null);
+    }
+
+    /**
+     * @return the cache key of a converted response; unconverted responses keep their plain key.
+     */
+    private static String keyed(String key, PriceConversion conversion) {
+        return conversion.isIdentity() ? key : key + ":" + conversion.getKey();
+    }
+
+    /**
+     * Answers with the JSON body cached for the key and data version, loading and encoding it
+     * only on a miss. Read {@code version} before the data the loader uses.
+     *
+     * @param loader produces the response object, or null when there is nothing to return.
+     * @return the response, or null if the loader returned null.
+     */
+    private ResponseEntity<byte[]> cachedJson(WebRequest webRequest, String group, String key, long version,
+                                              Supplier<?> loader) {
+        ResponseCacheService.CachedBody cached = responseCacheService.get(group, key, version, () -> {
+            Object body = loader.get();
+            try {
+                return body == null ? null : objectMapper.writeValueAsBytes(body);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize the " + key + " response", e);
+            }
+        });
+        return cached == null ? null : respond(webRequest, MediaType.APPLICATION_JSON, cached);
+    }
+
+    /**
+     * Same as {@link #cachedJson}, for the compact encodings of a timestamp/price list.
+     */
+    private ResponseEntity<byte[]> cachedBody(WebRequest webRequest, String group, String key, long version,
+                                              WireFormat wireFormat, Supplier<ColumnarPricesDTO> loader) {
+        ResponseCacheService.CachedBody cached = responseCacheService.get(group, key, version,
+                () -> encode(wireFormat, loader.get()));
+        return cached == null ? null : respond(webRequest, wireFormat.getMediaType(), cached);
+    }
+
+    /**
+     * Encodes a timestamp/price list without caching it.
+     */
+    private ResponseEntity<byte[]> encoded(WebRequest webRequest, WireFormat wireFormat, ColumnarPricesDTO prices) {
+        byte[] body = encode(wireFormat, prices);
+        if (body == null) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(wireFormat.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    private byte[] encode(WireFormat wireFormat, ColumnarPricesDTO prices) {
+        if (prices == null || prices.size() == 0) {
+            return null;
+        }
+        try {
+            return wireFormat.encode(prices, objectMapper);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the " + wireFormat.getCode() + " response", e);
+        }
+    }
+
+    private static ResponseEntity<byte[]> respond(WebRequest webRequest, MediaType mediaType,
+                                                  ResponseCacheService.CachedBody cached) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.getGzipped() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.getGzipped());
+        }
+        return response.body(cached.getBody());
+    }
+
+    private static ColumnarPricesDTO toColumnar(List<GoldPriceDTO> prices, PriceConversion conversion) {
+        if (prices == null || prices.isEmpty()) {
+            return null;
+        }
+        long[] timestamps = new long[prices.size()];
+        double[] closes = new double[prices.size()];
+        for (int i = 0; i < prices.size(); i++) {
+            GoldPriceDTO price = prices.get(i);
+            timestamps[i] = price.getTimestamp() == null ? 0 : HistoryCsv.toEpochSecond(price.getTimestamp());
+            closes[i] = price.getPrice();
+        }
+        return new ColumnarPricesDTO(timestamps, conversion.apply(closes));
+    }
+
+    private static List<GoldPriceDTO> convert(List<GoldPriceDTO> prices, PriceConversion conversion) {
+        if (conversion.isIdentity()) {
+            return prices;
+        }
+        List<GoldPriceDTO> converted = new ArrayList<>(prices.size());
+        for (GoldPriceDTO price : prices) {
+            GoldPriceDTO copy = new GoldPriceDTO();
+            copy.setPrice(conversion.apply(price.getPrice()));
+            copy.setCurrency(conversion.getCurrency());
+            copy.setTimestamp(price.getTimestamp());
+            converted.add(copy);
+        }
+        return converted;
+    }
+
+    /**
+     * Bad-request response for the streaming endpoints, whose handler only accepts streamed bodies.
+     */
+    private ResponseEntity<StreamingResponseBody> streamError(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Map.of("error", message)));
+    }
+
+    private static <T> List<T> nonEmpty(List<T> list) {
+        return list == null || list.isEmpty() ? null : list;
+    }
 }
@@ -0,0 +1,122 @@
+package com.example.controller;
+
+import com.example.dto.ColumnarPricesDTO;
+import com.example.store.HistoryCsv;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Response encodings offered by the price list endpoints, chosen with the {@code format}
+ * parameter or, failing that, the Accept header.
+ */
+enum WireFormat {
+
+    /** The default row-of-objects JSON. */
+    JSON("json", MediaType.APPLICATION_JSON),
+
+    /** {@code {"t":[...],"c":[...]}}, see {@link ColumnarPricesDTO}. */
+    COLUMNAR("columnar", MediaType.parseMediaType("application/vnd.goldprice.columnar+json")),
+
+    /** {@code Date,Close} rows, dates formatted like the history file. */
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+
+    /**
+     * Little-endian: an int32 row count, then that many int64 epoch seconds, then that many
+     * float64 prices.
+     */
+    BINARY("binary", MediaType.APPLICATION_OCTET_STREAM);
+
+    private final String code;
+    private final MediaType mediaType;
+
+    WireFormat(String code, MediaType mediaType) {
+        this.code = code;
+        this.mediaType = mediaType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param format the {@code format} request parameter, or null.
+     * @param accept the Accept header, or null.
+     * @return the requested format, JSON when nothing more specific is asked for, or null if
+     *         {@code format} names an unknown format.
+     */
+    static WireFormat negotiate(String format, String accept) {
+        if (format != null) {
+            for (WireFormat candidate : values()) {
+                if (candidate.code.equalsIgnoreCase(format)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+        if (accept != null) {
+            try {
+                List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+                MimeTypeUtils.sortBySpecificity(accepted);
+                // Quality decides first; the stable sort keeps the more specific type first among equals
+                accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+                for (MediaType type : accepted) {
+                    if (type.getQualityValue() == 0) {
+                        break; // q=0 marks a type as not acceptable
+                    }
+                    for (WireFormat candidate : values()) {
+                        // Wildcards fall through to JSON below rather than matching the first format
+                        if (!type.isWildcardType() && !type.isWildcardSubtype()
+                                && candidate.mediaType.isCompatibleWith(type)) {
+                            return candidate;
+                        }
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // Malformed Accept header: answer with the default
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Encodes the prices in this format. Not used for {@link #JSON}, whose rows carry more
+     * than a timestamp and a price.
+     */
+    byte[] encode(ColumnarPricesDTO prices, ObjectMapper objectMapper) throws JsonProcessingException {
+        long[] t = prices.getT();
+        double[] c = prices.getC();
+        switch (this) {
+            case COLUMNAR:
+                return objectMapper.writeValueAsBytes(prices);
+            case CSV: {
+                StringBuilder csv = new StringBuilder(16 + t.length * 32).append("Date,Close\n");
+                for (int i = 0; i < t.length; i++) {
+                    csv.append(HistoryCsv.formatDate(t[i])).append(',').append(HistoryCsv.formatPrice(c[i])).append('\n');
+                }
+                return csv.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            case BINARY: {
+                ByteBuffer buffer = ByteBuffer.allocate(4 + t.length * 16).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(t.length);
+                buffer.asLongBuffer().put(t);
+                buffer.position(4 + t.length * 8);
+                buffer.asDoubleBuffer().put(c);
+                return buffer.array();
+            }
+            default:
+                throw new IllegalStateException("Rows are not encoded as " + code);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.dto;
+
+import java.time.LocalDateTime;
+
+public class CandleDTO {
+    private LocalDateTime timestamp; // Start of the candle's period
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+
+    public CandleDTO(LocalDateTime timestamp, double open, double high, double low, double close) {
+        this.timestamp = timestamp;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+    }
+
+    // Getters and setters
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public void setOpen(double open) {
+        this.open = open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public void setHigh(double high) {
+        this.high = high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public void setLow(double low) {
+        this.low = low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public void setClose(double close) {
+        this.close = close;
+    }
+
+    @Override
+    public String toString() {
+        return "CandleDTO{" +
+                "timestamp=" + timestamp +
+                ", open=" + open +
+                ", high=" + high +
+                ", low=" + low +
+                ", close=" + close +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.dto;
+
+import java.util.Arrays;
+
+/**
+ * Compact, column-oriented price list: one array of timestamps and one of prices instead of
+ * one object per row. Serialized as {@code {"t":[...],"c":[...]}}.
+ */
+public class ColumnarPricesDTO {
+    private long[] t; // Epoch seconds, reading each row's local date-time as UTC
+    private double[] c; // Close (or spot) price in USD
+
+    public ColumnarPricesDTO(long[] t, double[] c) {
+        this.t = t;
+        this.c = c;
+    }
+
+    // Getters and setters
+    public long[] getT() {
+        return t;
+    }
+
+    public void setT(long[] t) {
+        this.t = t;
+    }
+
+    public double[] getC() {
+        return c;
+    }
+
+    public void setC(double[] c) {
+        this.c = c;
+    }
+
+    public int size() {
+        return t.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarPricesDTO{" +
+                "t=" + Arrays.toString(t) +
+                ", c=" + Arrays.toString(c) +
+                '}';
+    }
+}
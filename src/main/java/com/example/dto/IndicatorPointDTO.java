@@ -0,0 +1,39 @@
+package com.example.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class IndicatorPointDTO {
+    private LocalDateTime timestamp;
+    private Map<String, Double> values; // Keyed by indicator column, e.g. "upper" for Bollinger bands
+
+    public IndicatorPointDTO(LocalDateTime timestamp, Map<String, Double> values) {
+        this.timestamp = timestamp;
+        this.values = values;
+    }
+
+    // Getters and setters
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Map<String, Double> getValues() {
+        return values;
+    }
+
+    public void setValues(Map<String, Double> values) {
+        this.values = values;
+    }
+
+    @Override
+    public String toString() {
+        return "IndicatorPointDTO{" +
+                "timestamp=" + timestamp +
+                ", values=" + values +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.dto;
+
+public class IngestResultDTO {
+    private String symbol;
+    private int received; // Valid rows in the upload
+    private int superseded; // Rows overridden by a later row of the same day in the upload
+    private int added; // Days new to the history
+    private int replaced; // Days whose row changed
+    private int unchanged; // Days whose row already matched
+    private int repeated; // Days dropped for repeating the previous day's prices
+    private int total; // Rows in the history after the merge
+    private long version; // Snapshot version after the merge
+    private long elapsedMillis;
+
+    public IngestResultDTO(String symbol, int received, int superseded, int added, int replaced, int unchanged,
+                           int repeated, int total, long version, long elapsedMillis) {
+        this.symbol = symbol;
+        this.received = received;
+        this.superseded = superseded;
+        this.added = added;
+        this.replaced = replaced;
+        this.unchanged = unchanged;
+        this.repeated = repeated;
+        this.total = total;
+        this.version = version;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public int getSuperseded() {
+        return superseded;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getReplaced() {
+        return replaced;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getRepeated() {
+        return repeated;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestResultDTO{" +
+                "symbol='" + symbol + '\'' +
+                ", received=" + received +
+                ", superseded=" + superseded +
+                ", added=" + added +
+                ", replaced=" + replaced +
+                ", unchanged=" + unchanged +
+                ", repeated=" + repeated +
+                ", total=" + total +
+                ", version=" + version +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 
@@ -8,6 +10,14 @@ public class LiveGoldPriceDTO {
     private LocalDateTime updatedAt; // UTC time
     private ZonedDateTime newYorkTime; // New York time
 
+    // Only set when the price was converted from USD per troy ounce
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String currency;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String unit;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer karat;
+
     public LiveGoldPriceDTO(double price, LocalDateTime updatedAt, ZonedDateTime newYorkTime) {
         this.price = price;
         this.updatedAt = updatedAt;
@@ -38,4 +48,28 @@ public class LiveGoldPriceDTO {
     public void setNewYorkTime(ZonedDateTime newYorkTime) {
         this.newYorkTime = newYorkTime;
     }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public Integer getKarat() {
+        return karat;
+    }
+
+    public void setKarat(Integer karat) {
+        this.karat = karat;
+    }
 }
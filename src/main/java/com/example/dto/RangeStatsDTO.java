@@ -0,0 +1,103 @@
+package com.example.dto;
+
+import java.time.LocalDateTime;
+
+public class RangeStatsDTO {
+    private LocalDateTime from; // First entry in the range
+    private LocalDateTime to; // Last entry in the range
+    private int count;
+    private double open;
+    private double close;
+    private double high;
+    private LocalDateTime highDate;
+    private double low;
+    private LocalDateTime lowDate;
+    private double average; // Mean close
+    private double stdDev; // Population standard deviation of the close
+    private double change;
+    private double changePercent;
+
+    public RangeStatsDTO(LocalDateTime from, LocalDateTime to, int count, double open, double close,
+                         double high, LocalDateTime highDate, double low, LocalDateTime lowDate,
+                         double average, double stdDev) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+        this.open = open;
+        this.close = close;
+        this.high = high;
+        this.highDate = highDate;
+        this.low = low;
+        this.lowDate = lowDate;
+        this.average = average;
+        this.stdDev = stdDev;
+        this.change = close - open;
+        this.changePercent = open == 0 ? 0 : (close - open) / open * 100;
+    }
+
+    // Getters
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public LocalDateTime getHighDate() {
+        return highDate;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public LocalDateTime getLowDate() {
+        return lowDate;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    public double getChange() {
+        return change;
+    }
+
+    public double getChangePercent() {
+        return changePercent;
+    }
+
+    @Override
+    public String toString() {
+        return "RangeStatsDTO{" +
+                "from=" + from +
+                ", to=" + to +
+                ", count=" + count +
+                ", high=" + high +
+                ", low=" + low +
+                ", average=" + average +
+                ", stdDev=" + stdDev +
+                '}';
+    }
+}
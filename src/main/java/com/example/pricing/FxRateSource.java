@@ -0,0 +1,22 @@
+package com.example.pricing;
+
+import java.io.IOException;
+
+/**
+ * Where exchange rates come from. Declare a bean of this type to replace the source
+ * configured by {@code fx.rates.location}.
+ */
+public interface FxRateSource {
+
+    /**
+     * @return a short name for logs, e.g. the file or URL read.
+     */
+    String getName();
+
+    /**
+     * Reads the current rates.
+     *
+     * @throws IOException if the rates cannot be read.
+     */
+    FxRates load() throws IOException;
+}
@@ -0,0 +1,158 @@
+package com.example.pricing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable table of exchange rates against the US dollar. Currencies are numbered so that
+ * price matrices can index them with a plain array lookup. USD is always present at index 0.
+ */
+public final class FxRates {
+
+    public static final String BASE_CURRENCY = "USD";
+
+    private final String[] currencies;
+    private final double[] perUsd;
+    private final Map<String, Integer> index;
+    private final String asOf;
+    private final long version;
+
+    private FxRates(String[] currencies, double[] perUsd, String asOf, long version) {
+        this.currencies = currencies;
+        this.perUsd = perUsd;
+        this.asOf = asOf;
+        this.version = version;
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < currencies.length; i++) {
+            positions.put(currencies[i], i);
+        }
+        this.index = Collections.unmodifiableMap(positions);
+    }
+
+    /**
+     * @return a table with the US dollar only, used until the first rates are loaded.
+     */
+    public static FxRates usdOnly() {
+        return of(Map.of(), null);
+    }
+
+    /**
+     * @param perUsd units of each currency per US dollar; invalid rates are skipped.
+     * @param asOf   when the rates were published, as given by the source; may be null.
+     */
+    public static FxRates of(Map<String, Double> perUsd, String asOf) {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        rates.put(BASE_CURRENCY, 1.0);
+        perUsd.forEach((currency, rate) -> {
+            String code = currency.trim().toUpperCase(Locale.ROOT);
+            if (!code.equals(BASE_CURRENCY) && rate != null && rate > 0 && !rate.isInfinite()) {
+                rates.put(code, rate);
+            }
+        });
+        String[] currencies = rates.keySet().toArray(new String[0]);
+        double[] values = new double[currencies.length];
+        for (int i = 0; i < currencies.length; i++) {
+            values[i] = rates.get(currencies[i]);
+        }
+        return new FxRates(currencies, values, asOf, 0);
+    }
+
+    /**
+     * Reads rates from JSON, either a flat object such as {@code {"EUR":0.92,"INR":83.1}} or
+     * one with the rates under {@code rates}, as most FX APIs answer, and an optional
+     * {@code asOf} (or {@code date}) field.
+     *
+     * @throws IllegalArgumentException if the JSON holds no rates.
+     */
+    public static FxRates fromJson(JsonNode root) {
+        JsonNode rates = root.has("rates") ? root.get("rates") : root;
+        Map<String, Double> perUsd = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = rates.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNumber() || field.getValue().isTextual()) {
+                double rate = field.getValue().asDouble(Double.NaN);
+                if (!Double.isNaN(rate)) {
+                    perUsd.put(field.getKey(), rate);
+                }
+            }
+        }
+        if (perUsd.isEmpty()) {
+            throw new IllegalArgumentException("No exchange rates found");
+        }
+        JsonNode asOf = root.has("asOf") ? root.get("asOf") : root.get("date");
+        return of(perUsd, asOf == null ? null : asOf.asText());
+    }
+
+    /**
+     * @return a copy of this table carrying the given version.
+     */
+    public FxRates withVersion(long version) {
+        return new FxRates(currencies, perUsd, asOf, version);
+    }
+
+    /**
+     * @return the position of the currency (case-insensitive), or -1 if it has no rate.
+     */
+    public int indexOf(String currency) {
+        if (currency == null) {
+            return -1;
+        }
+        Integer position = index.get(currency.trim().toUpperCase(Locale.ROOT));
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * @return units of the currency at {@code index} per US dollar.
+     */
+    public double rateAt(int index) {
+        return perUsd[index];
+    }
+
+    public String currencyAt(int index) {
+        return currencies[index];
+    }
+
+    public int size() {
+        return currencies.length;
+    }
+
+    public String[] getCurrencies() {
+        return currencies.clone();
+    }
+
+    public String getAsOf() {
+        return asOf;
+    }
+
+    /**
+     * @return a number that grows whenever the loaded rates change; 0 before the first load.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return whether both tables hold the same currencies, rates and publication time.
+     */
+    public boolean sameRatesAs(FxRates other) {
+        return Arrays.equals(currencies, other.currencies) && Arrays.equals(perUsd, other.perUsd)
+                && Objects.equals(asOf, other.asOf);
+    }
+
+    @Override
+    public String toString() {
+        return "FxRates{" +
+                "currencies=" + currencies.length +
+                ", asOf='" + asOf + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
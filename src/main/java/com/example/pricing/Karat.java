@@ -0,0 +1,51 @@
+package com.example.pricing;
+
+/**
+ * Gold purities prices can be quoted at. Spot prices are for pure (24 karat) metal.
+ */
+public enum Karat {
+
+    K24(24),
+    K22(22),
+    K21(21),
+    K18(18),
+    K14(14);
+
+    private final int karats;
+
+    Karat(int karats) {
+        this.karats = karats;
+    }
+
+    public int getKarats() {
+        return karats;
+    }
+
+    /**
+     * @return the fraction of pure gold, e.g. 0.75 for 18 karat.
+     */
+    public double getPurity() {
+        return karats / 24.0;
+    }
+
+    /**
+     * Resolves a request code such as {@code 22} or {@code 22k} (case-insensitive).
+     *
+     * @return the matching purity, or null if the code is unknown.
+     */
+    public static Karat fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        String digits = code.trim();
+        if (digits.endsWith("k") || digits.endsWith("K")) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        for (Karat karat : values()) {
+            if (String.valueOf(karat.karats).equals(digits)) {
+                return karat;
+            }
+        }
+        return null;
+    }
+}
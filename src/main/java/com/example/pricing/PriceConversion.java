@@ -0,0 +1,104 @@
+package com.example.pricing;
+
+/**
+ * Converts USD-per-troy-ounce prices into another currency, unit and purity. The three
+ * adjustments are all proportional, so they fold into a single factor and converting a
+ * series is one multiplication per value.
+ * <p>
+ * History is converted at the current exchange rate, not the rate of each row's date.
+ */
+public final class PriceConversion {
+
+    /**
+     * USD per troy ounce of pure metal: prices are returned as stored.
+     */
+    public static final PriceConversion NONE =
+            new PriceConversion(FxRates.BASE_CURRENCY, PriceUnit.OUNCE, Karat.K24, 1.0, 0);
+
+    private final String currency;
+    private final PriceUnit unit;
+    private final Karat karat;
+    private final double factor;
+    private final long fxVersion;
+
+    private PriceConversion(String currency, PriceUnit unit, Karat karat, double factor, long fxVersion) {
+        this.currency = currency;
+        this.unit = unit;
+        this.karat = karat;
+        this.factor = factor;
+        this.fxVersion = fxVersion;
+    }
+
+    /**
+     * @return the conversion into the currency, or null if the rates have none for it.
+     */
+    public static PriceConversion of(FxRates rates, String currency, PriceUnit unit, Karat karat) {
+        int index = rates.indexOf(currency);
+        if (index < 0) {
+            return null;
+        }
+        double factor = rates.rateAt(index) * unit.getOuncesPerUnit() * karat.getPurity();
+        return new PriceConversion(rates.currencyAt(index), unit, karat, factor, rates.getVersion());
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public PriceUnit getUnit() {
+        return unit;
+    }
+
+    public Karat getKarat() {
+        return karat;
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * @return whether prices come out unchanged.
+     */
+    public boolean isIdentity() {
+        return factor == 1.0 && currency.equals(FxRates.BASE_CURRENCY);
+    }
+
+    /**
+     * @return a string identifying the conversion and the rates it uses, for cache keys and ETags.
+     */
+    public String getKey() {
+        return isIdentity() ? "" : currency + ":" + unit.getCode() + ":" + karat.getKarats() + ":fx" + fxVersion;
+    }
+
+    public double apply(double price) {
+        return price * factor;
+    }
+
+    /**
+     * Converts every price of the array in place. The loop has no branches or calls, so the JIT
+     * compiles it to SIMD multiplications.
+     *
+     * @return the same array.
+     */
+    public double[] apply(double[] prices) {
+        if (isIdentity()) {
+            return prices;
+        }
+        double f = factor;
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] *= f;
+        }
+        return prices;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceConversion{" +
+                "currency='" + currency + '\'' +
+                ", unit=" + unit +
+                ", karat=" + karat +
+                ", factor=" + factor +
+                '}';
+    }
+}
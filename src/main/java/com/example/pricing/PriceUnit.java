@@ -0,0 +1,48 @@
+package com.example.pricing;
+
+/**
+ * Weight units prices can be quoted in. Upstream and stored prices are per troy ounce.
+ */
+public enum PriceUnit {
+
+    OUNCE("oz", 1.0),
+    GRAM("g", 1.0 / PriceUnit.GRAMS_PER_OUNCE),
+    KILOGRAM("kg", 1000.0 / PriceUnit.GRAMS_PER_OUNCE),
+    // The Indian tola is 180 grains
+    TOLA("tola", 11.6638038 / PriceUnit.GRAMS_PER_OUNCE);
+
+    private static final double GRAMS_PER_OUNCE = 31.1034768;
+
+    private final String code;
+    private final double ouncesPerUnit;
+
+    PriceUnit(String code, double ouncesPerUnit) {
+        this.code = code;
+        this.ouncesPerUnit = ouncesPerUnit;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return the troy ounces in one unit; a per-ounce price times this is the price per unit.
+     */
+    public double getOuncesPerUnit() {
+        return ouncesPerUnit;
+    }
+
+    /**
+     * Resolves a request code such as {@code g} or {@code tola} (case-insensitive).
+     *
+     * @return the matching unit, or null if the code is unknown.
+     */
+    public static PriceUnit fromCode(String code) {
+        for (PriceUnit unit : values()) {
+            if (unit.code.equalsIgnoreCase(code)) {
+                return unit;
+            }
+        }
+        return null;
+    }
+}
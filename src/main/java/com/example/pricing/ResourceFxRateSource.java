@@ -0,0 +1,36 @@
+package com.example.pricing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads rates from a JSON file or class path resource, re-reading it on every load so that
+ * an edited file takes effect on the next refresh.
+ */
+public class ResourceFxRateSource implements FxRateSource {
+
+    private final Resource resource;
+    private final ObjectMapper objectMapper;
+
+    public ResourceFxRateSource(Resource resource, ObjectMapper objectMapper) {
+        this.resource = resource;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return resource.getDescription();
+    }
+
+    @Override
+    public FxRates load() throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return FxRates.fromJson(objectMapper.readTree(in));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + " in " + getName(), e);
+        }
+    }
+}
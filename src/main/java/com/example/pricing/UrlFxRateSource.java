@@ -0,0 +1,41 @@
+package com.example.pricing;
+
+import com.example.upstream.UpstreamClient;
+import com.example.upstream.UpstreamUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Fetches rates as JSON over HTTP through the resilient {@link UpstreamClient}.
+ */
+public class UrlFxRateSource implements FxRateSource {
+
+    private final String url;
+    private final UpstreamClient upstreamClient;
+    private final ObjectMapper objectMapper;
+
+    public UrlFxRateSource(String url, UpstreamClient upstreamClient, ObjectMapper objectMapper) {
+        this.url = url;
+        this.upstreamClient = upstreamClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return url;
+    }
+
+    @Override
+    public FxRates load() throws IOException {
+        try {
+            String body = upstreamClient.get(url, String.class);
+            if (body == null) {
+                throw new IOException("Empty response from " + url);
+            }
+            return FxRates.fromJson(objectMapper.readTree(body));
+        } catch (UpstreamUnavailableException | IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1 @@
+package com.example.pricing;
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.example.service;
+
+import com.example.dto.CandleDTO;
+import com.example.pricing.PriceConversion;
+import com.example.store.CandleInterval;
+import com.example.store.CandleTier;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceSeriesListener;
+import com.example.store.PriceStoreRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains weekly, monthly, quarterly and yearly OHLC candles over the daily history.
+ * Each tier is folded forward as rows are appended and only rebuilt when the series is
+ * replaced or reordered. Every metal has its own set of tiers.
+ */
+@Service
+public class CandleService {
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final Map<Metal, Partition> partitions = new EnumMap<>(Metal.class);
+
+    public CandleService(PriceStoreRegistry priceStoreRegistry) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        for (Metal metal : priceStoreRegistry.getMetals()) {
+            partitions.put(metal, new Partition());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        partitions.forEach(priceStoreRegistry::addListener);
+    }
+
+    /**
+     * Get candles of the given interval overlapping the range.
+     *
+     * @param metal    the metal
+     * @param interval the candle resolution
+     * @param from     include the candle containing this time and later ones, or null for no lower bound
+     * @param to       include candles starting up to this time, or null for no upper bound
+     * @param conversion the currency, unit and purity to quote the prices in
+     * @return the candles in chronological order
+     */
+    public List<CandleDTO> getCandles(Metal metal, CandleInterval interval, LocalDateTime from, LocalDateTime to,
+                                      PriceConversion conversion) {
+        CandleTier tier = partitions.get(metal).tiers[interval.ordinal()];
+        int start = from == null ? 0 : tier.lowerBound(interval.bucketStart(HistoryCsv.toEpochSecond(from)));
+        int end = to == null ? tier.size() : tier.upperBound(HistoryCsv.toEpochSecond(to));
+
+        List<CandleDTO> candles = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            candles.add(new CandleDTO(HistoryCsv.toDateTime(tier.startAt(i)),
+                    conversion.apply(tier.openAt(i)), conversion.apply(tier.highAt(i)),
+                    conversion.apply(tier.lowAt(i)), conversion.apply(tier.closeAt(i))));
+        }
+        return candles;
+    }
+
+    /**
+     * The candle tiers of one metal.
+     */
+    private static final class Partition implements PriceSeriesListener {
+
+        // Indexed by CandleInterval ordinal; replaced as a whole so readers see a consistent set
+        private volatile CandleTier[] tiers = build(PriceSeries.empty());
+
+        @Override
+        public void onAppend(PriceSeries series, int fromIndex) {
+            CandleTier[] current = tiers;
+            CandleTier[] next = new CandleTier[current.length];
+            for (int i = 0; i < current.length; i++) {
+                CandleTier updated = current[i].withRows(series, fromIndex);
+                next[i] = updated != null ? updated : CandleTier.of(current[i].getInterval(), series);
+            }
+            tiers = next;
+        }
+
+        @Override
+        public void onReplace(PriceSeries series) {
+            tiers = build(series);
+        }
+    }
+
+    private static CandleTier[] build(PriceSeries series) {
+        CandleInterval[] intervals = CandleInterval.values();
+        CandleTier[] built = new CandleTier[intervals.length];
+        for (CandleInterval interval : intervals) {
+            built[interval.ordinal()] = CandleTier.of(interval, series);
+        }
+        return built;
+    }
+}
@@ -1,120 +1,160 @@
 package com.example.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.dto.ColumnarPricesDTO;
+import com.example.pricing.PriceConversion;
+import com.example.store.CsvTailReader;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStore;
+import com.example.store.PriceStoreRegistry;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Service to read and process data from a CSV file.
+ * Service to read the most recent entries of a metal's price history.
  */
 @Service
 public class CsvReaderService {
 
     private static final Logger logger = LoggerFactory.getLogger(CsvReaderService.class);
 
-    // Use the path from application.properties or default to a manual folder location
-    @Value("${csv.file.path:./data/historical_gold_spot_prices.csv}")
-    private String csvFilePath;
+    private final PriceStoreRegistry priceStoreRegistry;
+
+    public CsvReaderService(PriceStoreRegistry priceStoreRegistry) {
+        this.priceStoreRegistry = priceStoreRegistry;
+    }
 
     /**
-     * Fetches the last N entries from the CSV file, cleans up inconsistent data, and returns them in JSON format.
+     * Fetches the last N entries from the metal's price store and returns them in JSON format.
      *
-     * @param numEntries the number of entries to fetch from the end of the file.
+     * @param metal      the metal.
+     * @param numEntries the number of entries to fetch from the end of the history.
+     * @param conversion the currency, unit and purity to quote the prices in.
      * @return a list of ObjectNode representing the last N entries.
      */
-    public List<ObjectNode> getLastNEntries(int numEntries) {
-        ensureCsvFileExists(); // Ensure the file exists
-
+    public List<ObjectNode> getLastNEntries(Metal metal, int numEntries, PriceConversion conversion) {
         if (numEntries <= 0) {
             logger.warn("Invalid number of entries requested: {}. Returning empty list.", numEntries);
             return new ArrayList<>();
         }
 
-        Path path = Paths.get(csvFilePath);
-        String filepath = System.getProperty("user.dir");
-        System.out.println(filepath + "file path found");
-        if (Files.notExists(path)) {
-
-            logger.error("CSV file does not exist: {}", path.toAbsolutePath());
-            return new ArrayList<>();
+        PriceStore priceStore = priceStoreRegistry.store(metal);
+        PriceSeries series = priceStore.snapshot();
+        if (series.isEmpty()) {
+            // The store has not been loaded yet; read just the tail of the file instead
+            if (conversion.isIdentity()) {
+                return readLastEntriesFromFile(priceStore, numEntries);
+            }
+            ColumnarPricesDTO prices = readLastPricesFromFile(priceStore, numEntries);
+            return prices == null ? new ArrayList<>() : toEntries(prices.getT(), conversion.apply(prices.getC()));
         }
+        return getLastNEntries(series, numEntries, conversion);
+    }
 
-        if (!Files.isReadable(path)) {
-            logger.error("CSV file is not readable: {}", path.toAbsolutePath());
-            return new ArrayList<>();
+    /**
+     * Fetches the last N entries of the given snapshot and returns them in JSON format.
+     *
+     * @param series     the snapshot to read from.
+     * @param numEntries the number of entries to fetch from the end of the history.
+     * @param conversion the currency, unit and purity to quote the prices in.
+     * @return a list of ObjectNode representing the last N entries.
+     */
+    public List<ObjectNode> getLastNEntries(PriceSeries series, int numEntries, PriceConversion conversion) {
+        int startIdx = Math.max(0, series.size() - numEntries);
+        double[] closes = conversion.apply(series.closeValues(startIdx, series.size()));
+        List<ObjectNode> lastEntries = new ArrayList<>(closes.length);
+        for (int i = 0; i < closes.length; i++) {
+            ObjectNode jsonObject = JsonNodeFactory.instance.objectNode();
+            jsonObject.put("Date", HistoryCsv.formatDate(series.timestampAt(startIdx + i)));
+            jsonObject.put("Close", HistoryCsv.formatPrice(closes[i]));
+            lastEntries.add(jsonObject);
         }
 
-        List<ObjectNode> lastEntries = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(path.toFile()))) {
-            List<String> allLines = reader.lines().skip(1).toList(); // Skip header
-            if (allLines.isEmpty()) {
-                logger.warn("CSV file is empty or has only the header.");
-                return lastEntries;
-            }
-
-            int startIdx = Math.max(0, allLines.size() - numEntries);
-            List<String> lastLines = allLines.subList(startIdx, allLines.size());
-
-            ObjectMapper mapper = new ObjectMapper();
-            for (String line : lastLines) {
-                if (line.trim().isEmpty()) {
-                    logger.warn("Skipping empty line.");
-                    continue;
-                }
+        logger.debug("Fetched the last {} entries from the price store.", lastEntries.size());
+        return lastEntries;
+    }
 
-                String[] values = line.split(",");
-                if (values.length < 5) {
-                    logger.warn("Skipping invalid CSV line: {}", line);
-                    continue;
-                }
+    /**
+     * Fetches the last N entries of the given snapshot as parallel timestamp and close columns.
+     *
+     * @param metal      the metal, whose file is read while the store is still loading.
+     * @param series     the snapshot to read from.
+     * @param numEntries the number of entries to fetch from the end of the history.
+     * @param conversion the currency, unit and purity to quote the prices in.
+     * @return the entries in chronological order, or null if there are none.
+     */
+    public ColumnarPricesDTO getLastNPrices(Metal metal, PriceSeries series, int numEntries, PriceConversion conversion) {
+        if (series.isEmpty()) {
+            ColumnarPricesDTO prices = readLastPricesFromFile(priceStoreRegistry.store(metal), numEntries);
+            if (prices != null) {
+                conversion.apply(prices.getC());
+            }
+            return prices;
+        }
+        int startIdx = Math.max(0, series.size() - numEntries);
+        long[] timestamps = new long[series.size() - startIdx];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = series.timestampAt(startIdx + i);
+        }
+        return new ColumnarPricesDTO(timestamps, conversion.apply(series.closeValues(startIdx, series.size())));
+    }
 
-                String date = values[0].trim().replaceAll("^\"|\"$", "");
-                String close = values[4].trim().replaceAll("^\"|\"$", "");
+    /**
+     * Reads the last N entries straight from the end of the CSV file without scanning the rest of it.
+     */
+    private List<ObjectNode> readLastEntriesFromFile(PriceStore priceStore, int numEntries) {
+        Path path = priceStore.getCsvPath();
+        if (Files.notExists(path)) {
+            logger.error("CSV file does not exist: {}", path.toAbsolutePath());
+            return new ArrayList<>();
+        }
 
-                ObjectNode jsonObject = mapper.createObjectNode();
-                jsonObject.put("Date", date);
-                jsonObject.put("Close", close);
+        List<ObjectNode> lastEntries = new ArrayList<>();
+        try {
+            for (String[] values : CsvTailReader.readLastRecords(path, numEntries, 5)) {
+                ObjectNode jsonObject = JsonNodeFactory.instance.objectNode();
+                jsonObject.put("Date", values[0]);
+                jsonObject.put("Close", values[4]);
                 lastEntries.add(jsonObject);
             }
-
-            logger.info("Fetched the last {} entries from the CSV file.", numEntries);
         } catch (IOException e) {
             logger.error("Error reading the CSV file: {}", e.getMessage(), e);
         }
-
         return lastEntries;
     }
 
-    /**
-     * Ensures that the CSV file exists and is accessible.
-     * Creates the file if it does not already exist.
-     */
-    private void ensureCsvFileExists() {
-        Path path = Paths.get(csvFilePath);
-        String filepath = System.getProperty("user.dir");
-        System.out.println(filepath + "file path found");
-        try {
-            if (Files.notExists(path)) {
-                // Create parent directories if they don't exis
-                logger.info("CSV file not found");
+    private ColumnarPricesDTO readLastPricesFromFile(PriceStore priceStore, int numEntries) {
+        List<ObjectNode> entries = readLastEntriesFromFile(priceStore, numEntries);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        long[] timestamps = new long[entries.size()];
+        double[] closes = new double[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            timestamps[i] = HistoryCsv.toEpochSecond(HistoryCsv.parseDateTime(entries.get(i).get("Date").asText()));
+            closes[i] = Double.parseDouble(entries.get(i).get("Close").asText());
+        }
+        return new ColumnarPricesDTO(timestamps, closes);
+    }
 
-            } else {
-                logger.info("CSV file found: {}", path.toAbsolutePath());
-            }
-        } catch (Exception e) {
-            logger.error("Error ensuring CSV file existence: {}", e.getMessage(), e);
+    private static List<ObjectNode> toEntries(long[] timestamps, double[] closes) {
+        List<ObjectNode> entries = new ArrayList<>(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            ObjectNode jsonObject = JsonNodeFactory.instance.objectNode();
+            jsonObject.put("Date", HistoryCsv.formatDate(timestamps[i]));
+            jsonObject.put("Close", HistoryCsv.formatPrice(closes[i]));
+            entries.add(jsonObject);
         }
+        return entries;
     }
 }
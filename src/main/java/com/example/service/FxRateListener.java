@@ -0,0 +1,12 @@
+package com.example.service;
+
+import com.example.pricing.FxRates;
+
+/**
+ * Receives every new exchange rate table the {@link FxRateService} loads, on the loading
+ * thread and after it became visible to {@link FxRateService#current()}.
+ */
+public interface FxRateListener {
+
+    void onRates(FxRates rates);
+}
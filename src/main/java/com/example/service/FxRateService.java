@@ -0,0 +1,122 @@
+package com.example.service;
+
+import com.example.pricing.FxRateSource;
+import com.example.pricing.FxRates;
+import com.example.pricing.Karat;
+import com.example.pricing.PriceConversion;
+import com.example.pricing.PriceUnit;
+import com.example.pricing.ResourceFxRateSource;
+import com.example.pricing.UrlFxRateSource;
+import com.example.upstream.UpstreamClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory cache of exchange rates against the US dollar, reloaded periodically from an
+ * {@link FxRateSource}. The source is an {@code FxRateSource} bean if one is declared, otherwise
+ * the file, class path resource or URL configured as {@code fx.rates.location}.
+ * <p>
+ * Readers get the current immutable {@link FxRates} without locking. When a load fails the
+ * previous rates stay in use; before the first successful load only USD is available.
+ */
+@Service
+public class FxRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+
+    private final FxRateSource source;
+    private final AtomicReference<FxRates> current = new AtomicReference<>(FxRates.usdOnly());
+    private final List<FxRateListener> listeners = new CopyOnWriteArrayList<>();
+
+    public FxRateService(ObjectProvider<FxRateSource> customSource, UpstreamClient upstreamClient,
+                         ObjectMapper objectMapper, ResourceLoader resourceLoader,
+                         @Value("${fx.rates.location:classpath:fx_rates.json}") String location) {
+        FxRateSource configured = customSource.getIfAvailable();
+        this.source = configured != null ? configured : source(location, upstreamClient, objectMapper, resourceLoader);
+    }
+
+    private static FxRateSource source(String location, UpstreamClient upstreamClient, ObjectMapper objectMapper,
+                                       ResourceLoader resourceLoader) {
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            return new UrlFxRateSource(location, upstreamClient, objectMapper);
+        }
+        if (location.startsWith(ResourceLoader.CLASSPATH_URL_PREFIX) || location.startsWith("file:")) {
+            return new ResourceFxRateSource(resourceLoader.getResource(location), objectMapper);
+        }
+        // A plain path is a local file, not a resource relative to the servlet context
+        return new ResourceFxRateSource(new FileSystemResource(location), objectMapper);
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * @return the latest rates.
+     */
+    public FxRates current() {
+        return current.get();
+    }
+
+    /**
+     * Registers a listener for future rate changes.
+     */
+    public void addListener(FxRateListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the conversion at the current rates, or null if there is no rate for the currency.
+     */
+    public PriceConversion conversion(String currency, PriceUnit unit, Karat karat) {
+        return PriceConversion.of(current.get(), currency, unit, karat);
+    }
+
+    /**
+     * Reloads the rates every hour and notifies listeners if they changed.
+     *
+     * @return the rates in use after the reload.
+     */
+    @Scheduled(fixedDelayString = "${fx.refresh-ms:3600000}", initialDelayString = "${fx.refresh-ms:3600000}")
+    public synchronized FxRates refresh() {
+        FxRates loaded;
+        try {
+            loaded = source.load();
+        } catch (Exception e) {
+            logger.warn("Could not load exchange rates from {}, keeping the previous ones: {}",
+                    source.getName(), e.getMessage());
+            return current.get();
+        }
+
+        FxRates previous = current.get();
+        if (loaded.sameRatesAs(previous)) {
+            logger.debug("Exchange rates from {} unchanged", source.getName());
+            return previous;
+        }
+
+        FxRates rates = loaded.withVersion(previous.getVersion() + 1);
+        current.set(rates);
+        logger.info("Loaded {} exchange rates from {} (as of {})", rates.size(), source.getName(), rates.getAsOf());
+        for (FxRateListener listener : listeners) {
+            try {
+                listener.onRates(rates);
+            } catch (RuntimeException e) {
+                logger.error("Exchange rate listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+        return rates;
+    }
+}
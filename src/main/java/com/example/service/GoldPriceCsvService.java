@@ -1,42 +1,46 @@
 package com.example.service;
 
-import com.opencsv.CSVWriter;
+import com.example.store.DailyBar;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceStore;
+import com.example.store.PriceStoreRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.io.FileWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class GoldPriceCsvService {
 
     private static final Logger logger = LoggerFactory.getLogger(GoldPriceCsvService.class);
-    private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
 
-    @Value("${csv.file.path:.data/historical_gold_spot_prices.csv}")
-    private String csvFilePath;
+    // A live price older than this is refreshed before it is written to the history
+    private static final long MAX_PRICE_AGE_MILLIS = 600000;
 
-    @Value("${gold.api.url}")
-    private String apiUrl;
+    private final LivePriceHub livePriceHub;
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final GoldPriceFetchService goldPriceFetchService;
 
-    private final RestTemplate restTemplate;
-
-    public GoldPriceCsvService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public GoldPriceCsvService(LivePriceHub livePriceHub, PriceStoreRegistry priceStoreRegistry,
+                               GoldPriceFetchService goldPriceFetchService) {
+        this.livePriceHub = livePriceHub;
+        this.priceStoreRegistry = priceStoreRegistry;
+        this.goldPriceFetchService = goldPriceFetchService;
     }
 
-    private void ensureCsvFileExists() {
+    private void ensureCsvFileExists(PriceStore priceStore) {
         try {
-            Path path = Paths.get(csvFilePath);
+            Path path = priceStore.getCsvPath().toAbsolutePath();
             if (Files.notExists(path.getParent())) {
                 logger.info("CSV file not found: {}", path.getParent());
             }
@@ -46,43 +50,79 @@ public class GoldPriceCsvService {
         }
     }
 
-    public String appendGoldPriceToCsv() {
-        ensureCsvFileExists();
-
-        try {
-            GoldPriceResponse response = restTemplate.getForObject(apiUrl, GoldPriceResponse.class);
+    /**
+     * Appends today's price of every metal to its history, refreshing stale prices concurrently.
+     *
+     * @return one status line per metal.
+     */
+    public String appendAllPricesToCsv() {
+        Map<Metal, LivePriceSnapshot> snapshots = livePriceHub.currentOrRefreshAll(MAX_PRICE_AGE_MILLIS);
+        List<String> results = new ArrayList<>(snapshots.size());
+        snapshots.forEach((metal, snapshot) -> results.add(appendPriceToCsv(metal, snapshot)));
+        return String.join("\n", results);
+    }
 
-            if (response == null || response.getPrice() <= 0) {
-                logger.error("Invalid response from the API.");
-                return "Error: Could not fetch the gold price.";
-            }
+    /**
+     * Appends today's open/high/low/close of one metal to its history.
+     *
+     * @return the status message.
+     */
+    public String appendPriceToCsv(Metal metal) {
+        return appendPriceToCsv(metal, livePriceHub.currentOrRefresh(metal, MAX_PRICE_AGE_MILLIS));
+    }
 
-            double goldPrice = response.getPrice();
-            logger.info("Fetched gold price: {}", goldPrice);
+    private String appendPriceToCsv(Metal metal, LivePriceSnapshot snapshot) {
+        PriceStore priceStore = priceStoreRegistry.store(metal);
+        ensureCsvFileExists(priceStore);
+        String name = capitalize(metal.getDisplayName());
 
-            LocalDateTime now = ZonedDateTime.now(java.time.ZoneId.of("America/New_York")).toLocalDateTime();
-            String formattedDate = now.format(OUTPUT_FORMAT);
+        try {
+            if (snapshot == null || snapshot.getPrice() <= 0) {
+                logger.error("No live {} price available.", metal.getDisplayName());
+                return "Error: Could not fetch the " + metal.getDisplayName() + " price.";
+            }
 
-            synchronized (this) {
-                Path path = Paths.get(csvFilePath);
-                try (CSVWriter writer = new CSVWriter(new FileWriter(path.toFile(), true))) {
-                    String[] record = {formattedDate, "0", "0", "0", String.valueOf(goldPrice)};
-                    writer.writeNext(record);
-                    logger.info("Gold price appended successfully to the CSV file.");
-                }
+            double price = snapshot.getPrice();
+            logger.info("Fetched {} price: {}", metal.getDisplayName(), price);
+
+            LocalDateTime now = ZonedDateTime.now(java.time.ZoneId.of("America/New_York")).toLocalDateTime()
+                    .truncatedTo(ChronoUnit.MINUTES);
+            String formattedDate = now.format(HistoryCsv.OUTPUT_FORMAT);
+
+            // The day's ticks give the real range; the price just fetched is the close
+            DailyBar bar = goldPriceFetchService.getDailyBar(metal);
+            double open = price;
+            double high = price;
+            double low = price;
+            if (bar != null && bar.getDay().equals(now.toLocalDate())) {
+                open = bar.getOpen();
+                high = Math.max(bar.getHigh(), price);
+                low = Math.min(bar.getLow(), price);
             }
 
-            return "Gold price appended successfully!";
+            // Group-committed with any concurrent appends, and synced per history.journal.fsync
+            String[] record = {formattedDate, String.valueOf(open), String.valueOf(high),
+                    String.valueOf(low), String.valueOf(price)};
+            priceStoreRegistry.journal(metal).append(String.join(",", record));
+            logger.info("{} price appended successfully to the CSV file.", name);
+            // Publish the new row right away instead of waiting for the file watcher
+            priceStoreRegistry.follower(metal).poll();
+
+            return name + " price appended successfully!";
         } catch (Exception e) {
-            logger.error("Error while appending gold price: {}", e.getMessage(), e);
-            return "Error while appending gold price: " + e.getMessage();
+            logger.error("Error while appending {} price: {}", metal.getDisplayName(), e.getMessage(), e);
+            return "Error while appending " + metal.getDisplayName() + " price: " + e.getMessage();
         }
     }
 
     // Scheduled job to run at 10 PM New York Time every day
     @Scheduled(cron = "0 0 22 * * ?", zone = "America/New_York")
     public void scheduleGoldPriceCsvAppend() {
-        logger.info("Running scheduled task: appendGoldPriceToCsv()");
-        appendGoldPriceToCsv();
+        logger.info("Running scheduled task: appendAllPricesToCsv()");
+        appendAllPricesToCsv();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
     }
 }
@@ -1,91 +1,43 @@
 package com.example.service;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStoreRegistry;
 import org.springframework.stereotype.Service;
 
-import java.io.FileReader;
-import java.io.Reader;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.format.ResolverStyle;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 @Service
 public class GoldPriceDataService {
 
-    private static final String CSV_FILE_PATH = "src/main/resources/historical_gold_spot_prices.csv";
+    private final PriceStoreRegistry priceStoreRegistry;
 
-    // Flexible DateTimeFormatter for multiple date formats
-    private static final DateTimeFormatter FLEXIBLE_FORMATTER = new DateTimeFormatterBuilder()
-            .appendOptional(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))
-            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX"))
-            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
-            .toFormatter(Locale.ENGLISH)
-            .withResolverStyle(ResolverStyle.SMART);
+    public GoldPriceDataService(PriceStoreRegistry priceStoreRegistry) {
+        this.priceStoreRegistry = priceStoreRegistry;
+    }
 
     public List<GoldPriceData> getGoldPriceData(int days) {
-        List<GoldPriceData> goldPriceDataList = new ArrayList<>();
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(days);
-
-        try (Reader reader = new FileReader(Paths.get(CSV_FILE_PATH).toFile())) {
-            CSVParser csvParser = CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader() // Skip the header row
-                    .parse(reader);
-
-            for (CSVRecord record : csvParser) {
-                try {
-                    // Check if the record has a valid date field
-                    if (record.get(0) == null || record.get(0).isEmpty()) {
-                        System.err.println("Skipping row with empty date: " + record);
-                        continue;
-                    }
-
-                    String dateStr = record.get(0); // Date is in the first column
-                    LocalDateTime date = LocalDateTime.parse(dateStr, FLEXIBLE_FORMATTER);
+        return getPriceData(Metal.XAU, days);
+    }
 
-                    // Skip rows older than the cutoff date
-                    if (date.isBefore(cutoffDate)) {
-                        continue;
-                    }
+    public List<GoldPriceData> getPriceData(Metal metal, int days) {
+        long cutoff = HistoryCsv.toEpochSecond(LocalDateTime.now().minusDays(days));
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
 
-                    // Extract the price
-                    String priceStr = extractPrice(record);
-                    if (priceStr != null) {
-                        double price = Double.parseDouble(priceStr);
-                        goldPriceDataList.add(new GoldPriceData(dateStr, price));
-                    }
-                } catch (Exception innerException) {
-                    // Log and skip malformed rows
-                    System.err.println("Skipping invalid row: " + record + " Error: " + innerException.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        // The series is sorted, so walk back from the newest row until the cutoff is crossed
+        int first = series.size();
+        while (first > 0 && series.timestampAt(first - 1) >= cutoff) {
+            first--;
         }
 
-        return goldPriceDataList;
-    }
-
-    /**
-     * Extracts the price from the CSVRecord. 
-     * If the record has multiple values, it takes the last value.
-     * If it has a single value, it uses that value directly.
-     */
-    private String extractPrice(CSVRecord record) {
-        int valueCount = record.size();
-        // Find the last non-empty value
-        for (int i = valueCount - 1; i > 0; i--) {
-            if (record.get(i) != null && !record.get(i).isEmpty()) {
-                return record.get(i);
-            }
+        List<GoldPriceData> goldPriceDataList = new ArrayList<>(series.size() - first);
+        for (int i = first; i < series.size(); i++) {
+            goldPriceDataList.add(new GoldPriceData(HistoryCsv.formatDate(series.timestampAt(i)), series.closeAt(i)));
         }
-        return null; // Return null if no valid value is found
+        return goldPriceDataList;
     }
 
     public static class GoldPriceData {
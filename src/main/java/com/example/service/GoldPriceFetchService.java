@@ -1,75 +1,78 @@
 package com.example.service;
 
 import com.example.dto.GoldPriceDTO;
+import com.example.store.DailyBar;
+import com.example.store.IntradayTickBuffer;
+import com.example.store.Metal;
+import com.example.store.TickJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Keeps every live price tick of the day in a per-metal {@link IntradayTickBuffer}, journaled
+ * to disk so the day survives a restart. Serves the hourly samples for {@code /historical}
+ * and the running daily OHLC for the CSV append.
+ */
 @Service
-public class GoldPriceFetchService {
+public class GoldPriceFetchService implements LivePriceListener {
 
     private static final Logger logger = LoggerFactory.getLogger(GoldPriceFetchService.class);
 
-    private final RestTemplate restTemplate;
-    private final String apiUrl = "https://api.gold-api.com/price/XAU";
+    private static final long SAMPLE_INTERVAL_MILLIS = 3600000; // One sample per hour
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
 
-    private GoldPriceDTO livePrice; // For storing the latest gold price
-    private final List<GoldPriceDTO> historicalData = Collections.synchronizedList(new ArrayList<>());
+    private final LivePriceHub livePriceHub;
+    private final ResponseCacheService responseCacheService;
 
-    public GoldPriceFetchService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    // One buffer per metal, created up front so lookups never lock
+    private final Map<Metal, IntradayTickBuffer> buffers = new EnumMap<>(Metal.class);
+
+    public GoldPriceFetchService(LivePriceHub livePriceHub, ResponseCacheService responseCacheService,
+                                 @Value("${intraday.capacity:4096}") int capacity,
+                                 @Value("${intraday.journal.path:./data/intraday_{metal}.journal}") String journalPath) {
+        this.livePriceHub = livePriceHub;
+        this.responseCacheService = responseCacheService;
+        for (Metal metal : livePriceHub.getMetals()) {
+            TickJournal journal = journalPath.isBlank() ? null : new TickJournal(Paths.get(metal.resolvePath(journalPath)));
+            buffers.put(metal, new IntradayTickBuffer(metal, capacity, SAMPLE_INTERVAL_MILLIS, journal));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // Restore before listening, so replayed ticks precede live ones
+        buffers.values().forEach(IntradayTickBuffer::restore);
+        livePriceHub.addListener(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        buffers.values().forEach(IntradayTickBuffer::close);
     }
 
     /**
-     * Fetch gold price every 1 hour at 2 minutes past the hour.
+     * Records every live price published by {@link LivePriceHub} as a tick.
      */
-    @Scheduled(fixedRate = 3600000) // Every hour at HH:02
-    public void fetchGoldPrice() {
-        try {
-            System.out.println("[DEBUG] Starting fetchGoldPrice...");
-            logger.info("Fetching gold price from API: {}", apiUrl);
-            ResponseEntity<GoldPriceDTO> response = restTemplate.getForEntity(apiUrl, GoldPriceDTO.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                System.out.println("[DEBUG] API response received successfully.");
-                GoldPriceDTO goldPrice = response.getBody();
-
-                // Get New York time
-                ZonedDateTime newYorkTime = ZonedDateTime.now(java.time.ZoneId.of("America/New_York"));
-                String formattedNewYorkTime = newYorkTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z"));
-
-                // Set the New York time in the gold price DTO
-                goldPrice.setTimestamp(newYorkTime.toLocalDateTime());
-
-                // Log gold price and New York time
-                logger.info("Fetched gold price: {} USD", goldPrice.getPrice());
-                logger.info("Live New York time: {}", formattedNewYorkTime);
-
-                System.out.println("[DEBUG] Fetched gold price: " + goldPrice.getPrice() + " USD");
-                System.out.println("[DEBUG] Live New York time: " + formattedNewYorkTime);
-
-                // Update live price and add to historical data
-                livePrice = goldPrice;
-                historicalData.add(goldPrice);
-
-                System.out.println("[DEBUG] Live price updated and added to historical data.");
-            } else {
-                logger.error("Failed to fetch gold price. Status: {}", response.getStatusCode());
-                System.out.println("[ERROR] Failed to fetch gold price. Status: " + response.getStatusCode());
-            }
-        } catch (Exception e) {
-            logger.error("Error fetching gold price: {}", e.getMessage());
-            System.out.println("[ERROR] Exception while fetching gold price: " + e.getMessage());
+    @Override
+    public void onPrice(LivePriceSnapshot snapshot) {
+        Metal metal = snapshot.getMetal();
+        if (buffer(metal).add(snapshot.getFetchedAt(), snapshot.getPrice(), snapshot.getCurrency())) {
+            invalidate(metal);
+            logger.info("Recorded hourly {} price sample: {} {}",
+                    metal.getDisplayName(), snapshot.getPrice(), snapshot.getCurrency());
         }
     }
 
@@ -78,28 +81,80 @@ public class GoldPriceFetchService {
      */
     @Scheduled(cron = "0 0 0 * * *", zone = "America/New_York") // Every day at 00:00 New York time
     public void clearHistoricalDataAtMidnight() {
-        System.out.println("[DEBUG] Clearing historical data at 00:00 New York time...");
         logger.info("Clearing historical data at 00:00 New York time...");
-        historicalData.clear();
+        buffers.forEach((metal, buffer) -> {
+            buffer.clear();
+            invalidate(metal);
+        });
     }
 
     /**
-     * Get the live gold price.
+     * Get the live price of a metal.
      *
-     * @return the live price as GoldPriceDTO
+     * @return the live price as GoldPriceDTO, or null before the first update
      */
-    public GoldPriceDTO getLivePrice() {
-        System.out.println("[DEBUG] getLivePrice called. Returning live price: " + (livePrice != null ? livePrice.getPrice() : "null"));
+    public GoldPriceDTO getLivePrice(Metal metal) {
+        LivePriceSnapshot snapshot = livePriceHub.current(metal);
+        if (snapshot == null) {
+            return null;
+        }
+        GoldPriceDTO livePrice = new GoldPriceDTO();
+        livePrice.setPrice(snapshot.getPrice());
+        livePrice.setCurrency(snapshot.getCurrency());
+        livePrice.setTimestamp(snapshot.getNewYorkTime().toLocalDateTime());
         return livePrice;
     }
 
     /**
-     * Get historical gold price data.
+     * Get today's hourly samples of a metal's price, copied from the tick buffer without locking.
      *
-     * @return a synchronized list of historical gold prices
+     * @return the samples, oldest first, timestamped in New York time
      */
-    public List<GoldPriceDTO> getHistoricalData() {
-        System.out.println("[DEBUG] getHistoricalData called. Returning historical data of size: " + historicalData.size());
-        return new ArrayList<>(historicalData); // Return a copy of the list to avoid modification
+    public List<GoldPriceDTO> getHistoricalData(Metal metal) {
+        IntradayTickBuffer buffer = buffer(metal);
+        IntradayTickBuffer.Ticks samples = buffer.samples();
+        String currency = buffer.getCurrency();
+        List<GoldPriceDTO> historicalData = new ArrayList<>(samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            GoldPriceDTO price = new GoldPriceDTO();
+            price.setPrice(samples.priceAt(i));
+            price.setCurrency(currency);
+            price.setTimestamp(Instant.ofEpochMilli(samples.timeAt(i)).atZone(NEW_YORK).toLocalDateTime());
+            historicalData.add(price);
+        }
+        return historicalData;
+    }
+
+    /**
+     * @return today's running open/high/low/close of the metal, or null before its first tick.
+     */
+    public DailyBar getDailyBar(Metal metal) {
+        return buffer(metal).getBar();
+    }
+
+    /**
+     * @return a counter that changes whenever the metal's samples change; suitable as a cache key.
+     */
+    public long getDataVersion(Metal metal) {
+        return buffer(metal).getVersion();
+    }
+
+    /**
+     * @return the time (epoch millis) the metal's samples last changed.
+     */
+    public long getLastModified(Metal metal) {
+        return buffer(metal).getLastModified();
+    }
+
+    private IntradayTickBuffer buffer(Metal metal) {
+        IntradayTickBuffer buffer = buffers.get(metal);
+        if (buffer == null) {
+            throw new IllegalArgumentException("Metal not enabled: " + metal);
+        }
+        return buffer;
+    }
+
+    private void invalidate(Metal metal) {
+        responseCacheService.invalidate(ResponseCacheService.group(ResponseCacheService.INTRADAY, metal));
     }
 }
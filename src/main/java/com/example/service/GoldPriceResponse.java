@@ -1,14 +0,0 @@
-package com.example.service;
-
-public class GoldPriceResponse {
-    private double price;
-
-    // Getter and Setter
-    public double getPrice() {
-        return price;
-    }
-
-    public void setPrice(double price) {
-        this.price = price;
-    }
-}
@@ -1,118 +1,81 @@
 package com.example.service;
 
 import com.example.dto.GoldCsvDTO;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import org.springframework.core.io.ClassPathResource;
+import com.example.pricing.PriceConversion;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStoreRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.format.ResolverStyle;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
 
 @Service
 public class GoldPriceService {
 
-    private static final DateTimeFormatter FLEXIBLE_FORMATTER = new DateTimeFormatterBuilder()
-            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX"))
-            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
-            .appendOptional(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))
-            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
-            .toFormatter(Locale.ENGLISH)
-            .withResolverStyle(ResolverStyle.SMART);
+    private static final Logger logger = LoggerFactory.getLogger(GoldPriceService.class);
+
+    private final PriceStoreRegistry priceStoreRegistry;
+
+    public GoldPriceService(PriceStoreRegistry priceStoreRegistry) {
+        this.priceStoreRegistry = priceStoreRegistry;
+    }
 
     /**
-     * Reads entries from the CSV file for the last 'n' days.
+     * Reads entries from a metal's price history for the last 'n' days.
      *
-     * @param days the number of days to fetch
-     * @return a list of GoldCsvDTO objects containing the relevant entries
+     * @param metal the metal
+     * @param days  the number of days to fetch
+     * @param conversion the currency, unit and purity to quote the prices in
+     * @return a list of GoldCsvDTO objects containing the relevant entries, most recent first
      */
-    public List<GoldCsvDTO> getEntriesByDays(int days) {
-        List<GoldCsvDTO> goldPrices = new ArrayList<>();
+    public List<GoldCsvDTO> getEntriesByDays(Metal metal, int days, PriceConversion conversion) {
         LocalDateTime today = LocalDateTime.now();
-        LocalDateTime startDate = today.minusDays(days); // Calculate the start date for the range
-
-        System.out.println("Filtering entries between " + startDate + " and " + today); // Debug log
-
-        try (Reader reader = new InputStreamReader(new ClassPathResource("historical_gold_spot_prices.csv").getInputStream())) {
-            CSVParser csvParser = CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader()
-                    .parse(reader);
-
-            for (CSVRecord record : csvParser) {
-                try {
-                    String dateStr = record.get("Date"); // Use header name "Date"
-                    if (dateStr == null || dateStr.isEmpty()) {
-                        System.err.println("Skipping row with empty date: " + record);
-                        continue; // Skip empty rows
-                    }
-
-                    LocalDateTime date = LocalDateTime.parse(dateStr, FLEXIBLE_FORMATTER);
-                    // Include entries that are between the start date and today (inclusive)
-                    if (!date.isBefore(startDate) && !date.isAfter(today)) {
-                        String closePriceStr = record.get("Close (Spot Price USD)"); // Use header name "Close (Spot Price USD)"
-                        if (closePriceStr != null && !closePriceStr.isEmpty()) {
-                            double closePrice = Double.parseDouble(closePriceStr);
-                            goldPrices.add(new GoldCsvDTO(date, closePrice));
-                        } else {
-                            System.err.println("Skipping row with empty close price: " + record);
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Skipping invalid row: " + record + " Error: " + e.getMessage());
-                }
-            }
-
-            // Sort the data by date (most recent first)
-            goldPrices = goldPrices.stream()
-                    .sorted((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()))
-                    .collect(Collectors.toList());
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        System.out.println("Total entries after filtering: " + goldPrices.size());
-
-        // Display the first and last entries in the filtered list
-        if (!goldPrices.isEmpty()) {
-            System.out.println("First entry: " + goldPrices.get(0));
-            System.out.println("Last entry: " + goldPrices.get(goldPrices.size() - 1));
-        }
-
-        return goldPrices;
+        return getPricesByDateRange(metal, today.minusDays(days), today, conversion);
     }
 
     /**
-     * Get the most recent price data.
+     * Get the most recent price data of a metal.
      *
      * @return a GoldCsvDTO object containing the latest date and price
      */
-    public GoldCsvDTO getMostRecentPrice() {
-        List<GoldCsvDTO> allPrices = getEntriesByDays(Integer.MAX_VALUE); // Fetch all data
-        return allPrices.isEmpty() ? null : allPrices.get(0); // Return the most recent entry
+    public GoldCsvDTO getMostRecentPrice(Metal metal) {
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        if (series.isEmpty()) {
+            return null;
+        }
+        int last = series.size() - 1;
+        return new GoldCsvDTO(series.dateTimeAt(last), series.closeAt(last));
     }
 
     /**
-     * Get prices for a custom date range.
+     * Get prices for a custom date range. The bounds are located by binary search over the
+     * sorted timestamps, so only the matching rows are visited.
      *
-     * @param startDate the start date of the range
-     * @param endDate   the end date of the range
-     * @return a list of GoldCsvDTO objects within the specified range
+     * @param metal     the metal
+     * @param startDate the start date of the range (inclusive)
+     * @param endDate   the end date of the range (inclusive)
+     * @param conversion the currency, unit and purity to quote the prices in
+     * @return a list of GoldCsvDTO objects within the specified range, most recent first
      */
-    public List<GoldCsvDTO> getPricesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        List<GoldCsvDTO> allPrices = getEntriesByDays(Integer.MAX_VALUE); // Fetch all data
-        return allPrices.stream()
-                .filter(price -> !price.getTimestamp().isBefore(startDate) && !price.getTimestamp().isAfter(endDate))
-                .sorted((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()))
-                .collect(Collectors.toList());
+    public List<GoldCsvDTO> getPricesByDateRange(Metal metal, LocalDateTime startDate, LocalDateTime endDate,
+                                                 PriceConversion conversion) {
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        int from = series.lowerBound(HistoryCsv.toEpochSecond(startDate));
+        int to = Math.max(from, series.upperBound(HistoryCsv.toEpochSecond(endDate)));
+
+        // Convert the whole close range in one pass before building the rows
+        double[] closes = conversion.apply(series.closeValues(from, to));
+        List<GoldCsvDTO> goldPrices = new ArrayList<>(to - from);
+        for (int i = to - 1; i >= from; i--) {
+            goldPrices.add(new GoldCsvDTO(series.dateTimeAt(i), closes[i - from]));
+        }
+
+        logger.debug("Found {} entries between {} and {}", goldPrices.size(), startDate, endDate);
+        return goldPrices;
     }
 }
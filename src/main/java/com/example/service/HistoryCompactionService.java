@@ -0,0 +1,70 @@
+package com.example.service;
+
+import com.example.store.HistoryMerge;
+import com.example.store.Metal;
+import com.example.store.PriceStoreRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps every metal's history CSV in its canonical layout (see {@link com.example.store.CanonicalCsv}):
+ * sorted, one row per day, with a header that lets readers skip sorting and duplicate checks.
+ * Files left behind by hand edits or older versions are compacted once the application is
+ * ready, and rows appended since the last compaction are folded in nightly.
+ */
+@Service
+public class HistoryCompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryCompactionService.class);
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final boolean onStartup;
+
+    public HistoryCompactionService(PriceStoreRegistry priceStoreRegistry,
+                                    @Value("${history.compaction.on-startup:true}") boolean onStartup) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        this.onStartup = onStartup;
+    }
+
+    /**
+     * Compacts one metal's history file.
+     *
+     * @return the outcome, or null if the file was canonical already.
+     */
+    public HistoryMerge compact(Metal metal) {
+        try {
+            return priceStoreRegistry.follower(metal).compact(priceStoreRegistry.journal(metal));
+        } catch (Exception e) {
+            logger.error("Error compacting the {} history: {}", metal.getDisplayName(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Compacts every metal's history file.
+     */
+    public void compactAll() {
+        for (Metal metal : priceStoreRegistry.getMetals()) {
+            compact(metal);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void compactOnStartup() {
+        if (onStartup) {
+            compactAll();
+        }
+    }
+
+    // Scheduled job to run at 3:30 AM New York Time every day, after the 10 PM append
+    @Scheduled(cron = "${history.compaction.cron:0 30 3 * * *}", zone = "America/New_York")
+    public void scheduleCompaction() {
+        logger.info("Running scheduled task: compactAll()");
+        compactAll();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.service;
+
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStoreRegistry;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams the price history row by row, straight from a {@link PriceSeries} snapshot to the
+ * response, so an export of any length runs in constant heap.
+ * <p>
+ * Output is flushed every {@link #FLUSH_ROWS} rows; writes block while the client is slow to
+ * read, which throttles the export to the client's pace.
+ */
+@Service
+public class HistoryExportService {
+
+    static final int FLUSH_ROWS = 512;
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final ObjectMapper objectMapper;
+
+    public HistoryExportService(PriceStoreRegistry priceStoreRegistry, ObjectMapper objectMapper) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the snapshot an export of the metal's history should be taken from.
+     */
+    public PriceSeries snapshot(Metal metal) {
+        return priceStoreRegistry.snapshot(metal);
+    }
+
+    /**
+     * Writes one JSON object per line: timestamp, open, high, low and close.
+     *
+     * @param from the earliest row to include, or null for no lower bound
+     * @param to   the latest row to include, or null for no upper bound
+     */
+    public void writeNdjson(PriceSeries series, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        int start = startIndex(series, from);
+        int end = endIndex(series, to);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (int i = start; i < end; i++) {
+                generator.writeStartObject();
+                generator.writeStringField("timestamp",
+                        series.dateTimeAt(i).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                generator.writeNumberField("open", series.openAt(i));
+                generator.writeNumberField("high", series.highAt(i));
+                generator.writeNumberField("low", series.lowAt(i));
+                generator.writeNumberField("close", series.closeAt(i));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if ((i - start + 1) % FLUSH_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the rows in the same CSV layout as the history file, header included.
+     *
+     * @param from the earliest row to include, or null for no lower bound
+     * @param to   the latest row to include, or null for no upper bound
+     */
+    public void writeCsv(PriceSeries series, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        int start = startIndex(series, from);
+        int end = endIndex(series, to);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", HistoryCsv.HEADER));
+        writer.write('\n');
+        for (int i = start; i < end; i++) {
+            HistoryCsv.writeRow(writer, series, i);
+            if ((i - start + 1) % FLUSH_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private static int startIndex(PriceSeries series, LocalDateTime from) {
+        return from == null ? 0 : series.lowerBound(HistoryCsv.toEpochSecond(from));
+    }
+
+    private static int endIndex(PriceSeries series, LocalDateTime to) {
+        return to == null ? series.size() : series.upperBound(HistoryCsv.toEpochSecond(to));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.service;
+
+import com.example.dto.IngestResultDTO;
+import com.example.store.HistoryMerge;
+import com.example.store.HistoryUploadParser;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceStoreRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Bulk-loads history rows, e.g. older history or corrections of bad days, into a running
+ * instance: the upload is parsed in parallel while it streams in, merged into the metal's
+ * history one row per day with the upload winning, and published as a single new snapshot.
+ */
+@Service
+public class HistoryIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryIngestService.class);
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final HistoryUploadParser parser;
+
+    public HistoryIngestService(PriceStoreRegistry priceStoreRegistry, ObjectMapper objectMapper,
+                                @Value("${history.ingest.chunk-bytes:1048576}") int chunkBytes) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        this.parser = new HistoryUploadParser(objectMapper, chunkBytes);
+    }
+
+    /**
+     * Parses the upload and merges it into the metal's history.
+     *
+     * @return what was merged, or null if the upload held no valid row.
+     * @throws IOException if the upload could not be read or the history file not rewritten.
+     */
+    public IngestResultDTO ingest(Metal metal, HistoryUploadParser.Format format, InputStream in) throws IOException {
+        long start = System.nanoTime();
+        PriceSeries batch = parser.parse(in, format);
+        if (batch.isEmpty()) {
+            return null;
+        }
+
+        HistoryMerge merge = priceStoreRegistry.follower(metal).ingest(priceStoreRegistry.journal(metal), batch);
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Ingested {} {} rows in {} ms", merge.getReceived(), metal.getDisplayName(), elapsedMillis);
+        return new IngestResultDTO(metal.getCode(), merge.getReceived(), merge.getSuperseded(), merge.getAdded(),
+                merge.getReplaced(), merge.getUnchanged(), merge.getRepeated(), series.size(), series.getVersion(), elapsedMillis);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.service;
+
+import com.example.dto.IndicatorPointDTO;
+import com.example.pricing.PriceConversion;
+import com.example.store.HistoryCsv;
+import com.example.store.Indicator;
+import com.example.store.IndicatorType;
+import com.example.store.IndicatorValues;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceSeriesListener;
+import com.example.store.PriceStoreRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes technical indicators over the close-price series. Each (indicator, window) pair is
+ * computed in one pass on first request, cached, and then advanced in O(1) per appended day.
+ * Each metal has its own set of indicators, bounded by {@code indicator.cache.max-entries}:
+ * past that, the least recently requested one is dropped and recomputed when asked for again.
+ */
+@Service
+public class IndicatorService {
+
+    public static final int MIN_WINDOW = 2;
+    public static final int MAX_WINDOW = 500;
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final Map<Metal, Partition> partitions = new EnumMap<>(Metal.class);
+
+    public IndicatorService(PriceStoreRegistry priceStoreRegistry,
+                            @Value("${indicator.cache.max-entries:32}") int maxEntries) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        for (Metal metal : priceStoreRegistry.getMetals()) {
+            partitions.put(metal, new Partition(Math.max(1, maxEntries)));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        partitions.forEach(priceStoreRegistry::addListener);
+    }
+
+    /**
+     * Get indicator values for rows within the range, skipping the warm-up period.
+     *
+     * @param metal  the metal
+     * @param type   the indicator
+     * @param window the look-back period (the signal period for MACD)
+     * @param from   the earliest row to include, or null for no lower bound
+     * @param to     the latest row to include, or null for no upper bound
+     * @param conversion the currency, unit and purity to quote price-denominated values in
+     * @return the values in chronological order
+     */
+    public List<IndicatorPointDTO> getIndicator(Metal metal, IndicatorType type, int window,
+                                                LocalDateTime from, LocalDateTime to, PriceConversion conversion) {
+        PriceSeries series = priceStoreRegistry.snapshot(metal);
+        IndicatorValues values = partitions.get(metal).getOrCreate(type, window, series).values();
+
+        // Values may lag the snapshot by an append that is being processed; only read rows both have
+        int size = Math.min(series.size(), values.size());
+        int start = from == null ? 0 : series.lowerBound(HistoryCsv.toEpochSecond(from));
+        int end = Math.min(size, to == null ? size : series.upperBound(HistoryCsv.toEpochSecond(to)));
+
+        String[] columns = type.getColumns();
+        PriceConversion scale = type.isPriceDenominated() ? conversion : PriceConversion.NONE;
+        List<IndicatorPointDTO> points = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            if (Double.isNaN(values.valueAt(0, i))) {
+                continue;
+            }
+            Map<String, Double> row = new LinkedHashMap<>();
+            for (int c = 0; c < columns.length; c++) {
+                row.put(columns[c], scale.apply(values.valueAt(c, i)));
+            }
+            points.add(new IndicatorPointDTO(series.dateTimeAt(i), row));
+        }
+        return points;
+    }
+
+    /**
+     * The cached indicators of one metal, least recently requested first.
+     */
+    private static final class Partition implements PriceSeriesListener {
+
+        private final Map<String, Indicator> indicators;
+
+        Partition(int maxEntries) {
+            indicators = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Indicator> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        @Override
+        public void onAppend(PriceSeries series, int fromIndex) {
+            for (Indicator indicator : cached()) {
+                indicator.update(series, true);
+            }
+        }
+
+        @Override
+        public void onReplace(PriceSeries series) {
+            for (Indicator indicator : cached()) {
+                indicator.update(series, false);
+            }
+        }
+
+        private synchronized List<Indicator> cached() {
+            return new ArrayList<>(indicators.values());
+        }
+
+        private Indicator getOrCreate(IndicatorType type, int window, PriceSeries series) {
+            Indicator indicator;
+            synchronized (this) {
+                indicator = indicators.computeIfAbsent(type.getCode() + ":" + window, key -> Indicator.create(type, window));
+            }
+            if (indicator.values().getVersion() < series.getVersion()) {
+                // Computed outside the lock on first use, or created just as the store published
+                // a snapshot this listener did not see yet; a no-op if the listener got further
+                indicator.update(series, false);
+            }
+            return indicator;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.service;
+
+import com.example.store.Metal;
+import com.example.store.PriceStoreRegistry;
+import com.example.upstream.MultiProviderPriceSource;
+import com.example.upstream.PriceQuote;
+import com.example.upstream.UpstreamUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Single source of the live price of every enabled metal. One upstream call per metal per tick
+ * feeds every consumer: the live endpoints, the intraday samples and the daily CSV append.
+ * All metals are fetched concurrently, so a tick takes as long as the slowest metal rather
+ * than the sum of all of them.
+ * <p>
+ * Readers call {@link #current(Metal)} and get an immutable {@link LivePriceSnapshot} without
+ * taking any lock, so they never block on a refresh or see a price paired with another
+ * price's timestamp. Every change of a price gets the next number of a hub-wide sequence as its
+ * {@link LivePriceSnapshot#getVersion() version}; the sequence starts at the startup time in
+ * epoch millis, so versions keep growing across restarts.
+ */
+@Service
+public class LivePriceHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(LivePriceHub.class);
+
+    private final MultiProviderPriceSource priceSource;
+    private final Map<Metal, Slot> slots = new EnumMap<>(Metal.class);
+    private final List<LivePriceListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+    private final ExecutorService refreshExecutor;
+
+    public LivePriceHub(MultiProviderPriceSource priceSource, PriceStoreRegistry priceStoreRegistry) {
+        this.priceSource = priceSource;
+        for (Metal metal : priceStoreRegistry.getMetals()) {
+            slots.put(metal, new Slot());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(slots.size(), runnable -> {
+            Thread thread = new Thread(runnable, "live-price-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the metals whose live price is tracked.
+     */
+    public Set<Metal> getMetals() {
+        return slots.keySet();
+    }
+
+    /**
+     * @return the latest price of the metal, or null before its first successful refresh.
+     */
+    public LivePriceSnapshot current(Metal metal) {
+        return slot(metal).current.get();
+    }
+
+    /**
+     * Registers a listener for future snapshots and immediately hands it the current ones, if any.
+     */
+    public synchronized void addListener(LivePriceListener listener) {
+        listeners.add(listener);
+        for (Slot slot : slots.values()) {
+            LivePriceSnapshot snapshot = slot.current.get();
+            if (snapshot != null) {
+                listener.onPrice(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Returns the current price if it was fetched within {@code maxAgeMillis}, otherwise refreshes it first.
+     *
+     * @return the price, or null if there is none and the upstream could not be reached.
+     */
+    public LivePriceSnapshot currentOrRefresh(Metal metal, long maxAgeMillis) {
+        LivePriceSnapshot snapshot = current(metal);
+        if (snapshot != null && System.currentTimeMillis() - snapshot.getFetchedAt() <= maxAgeMillis) {
+            return snapshot;
+        }
+        return refresh(metal);
+    }
+
+    /**
+     * Same as {@link #currentOrRefresh(Metal, long)} for every metal, refreshing the stale ones concurrently.
+     *
+     * @return the price per metal; null for a metal without any price.
+     */
+    public Map<Metal, LivePriceSnapshot> currentOrRefreshAll(long maxAgeMillis) {
+        return forEachMetal(metal -> currentOrRefresh(metal, maxAgeMillis));
+    }
+
+    /**
+     * Fetches the price of every metal every 5 minutes.
+     */
+    @Scheduled(fixedRateString = "${live.price.refresh-ms:300000}")
+    public void scheduledRefresh() {
+        forEachMetal(this::refresh);
+    }
+
+    /**
+     * Fetches the metal's price from the configured providers and publishes it. Concurrent
+     * callers wait for the refresh in progress instead of issuing their own call.
+     *
+     * @return the latest price, which is the previous one if the fetch failed.
+     */
+    public LivePriceSnapshot refresh(Metal metal) {
+        Slot slot = slot(metal);
+        LivePriceSnapshot before = slot.current.get();
+        synchronized (slot) {
+            if (slot.current.get() != before) {
+                return slot.current.get(); // Another caller refreshed while this one waited
+            }
+            try {
+                PriceQuote quote = priceSource.fetch(metal.getCode());
+                LivePriceSnapshot snapshot = new LivePriceSnapshot(metal, quote.getPrice(), quote.getCurrency(),
+                        quote.getUpdatedAt(), System.currentTimeMillis(), version(before, quote));
+                publish(slot, snapshot);
+                logger.info("Updated live {} price: {} {}, updatedAt: {} (from {})", metal.getDisplayName(),
+                        snapshot.getPrice(), snapshot.getCurrency(), snapshot.getUpdatedAt(), quote.getProvider());
+            } catch (UpstreamUnavailableException e) {
+                // Keep serving the last good price until the upstream recovers
+                logger.warn("Live {} price unavailable, serving the last known price: {}",
+                        metal.getDisplayName(), e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error fetching the live {} price: {}", metal.getDisplayName(), e.getMessage());
+            }
+            return slot.current.get();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Map<Metal, LivePriceSnapshot> forEachMetal(Function<Metal, LivePriceSnapshot> action) {
+        Map<Metal, CompletableFuture<LivePriceSnapshot>> pending = new EnumMap<>(Metal.class);
+        for (Metal metal : slots.keySet()) {
+            pending.put(metal, CompletableFuture.supplyAsync(() -> action.apply(metal), refreshExecutor));
+        }
+        Map<Metal, LivePriceSnapshot> results = new EnumMap<>(Metal.class);
+        pending.forEach((metal, future) -> results.put(metal, future.join()));
+        return results;
+    }
+
+    private Slot slot(Metal metal) {
+        Slot slot = slots.get(metal);
+        if (slot == null) {
+            throw new IllegalArgumentException("Metal not enabled: " + metal);
+        }
+        return slot;
+    }
+
+    /**
+     * @return the previous snapshot's version if the quote repeats it, otherwise the next one.
+     */
+    private long version(LivePriceSnapshot previous, PriceQuote quote) {
+        if (previous != null && previous.getPrice() == quote.getPrice()
+                && Objects.equals(previous.getCurrency(), quote.getCurrency())
+                && Objects.equals(previous.getUpdatedAt(), quote.getUpdatedAt())) {
+            return previous.getVersion();
+        }
+        return sequence.incrementAndGet();
+    }
+
+    private void publish(Slot slot, LivePriceSnapshot snapshot) {
+        slot.current.set(snapshot);
+        for (LivePriceListener listener : listeners) {
+            try {
+                listener.onPrice(snapshot);
+            } catch (RuntimeException e) {
+                logger.error("Live price listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * The latest price of one metal; also the lock that coalesces its refreshes.
+     */
+    private static final class Slot {
+
+        private final AtomicReference<LivePriceSnapshot> current = new AtomicReference<>();
+    }
+}
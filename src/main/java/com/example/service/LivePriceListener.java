@@ -0,0 +1,11 @@
+package com.example.service;
+
+/**
+ * Receives every snapshot the {@link LivePriceHub} publishes, on the refreshing thread and
+ * after the snapshot became visible to {@link LivePriceHub#current}. Metals are refreshed
+ * concurrently, so callbacks for different metals may overlap.
+ */
+public interface LivePriceListener {
+
+    void onPrice(LivePriceSnapshot snapshot);
+}
@@ -0,0 +1,99 @@
+package com.example.service;
+
+import com.example.dto.LiveGoldPriceDTO;
+import com.example.store.Metal;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Immutable live price of one metal published by {@link LivePriceHub}. Price and timestamps
+ * always come from the same upstream response.
+ */
+public final class LivePriceSnapshot {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private final Metal metal;
+    private final double price;
+    private final String currency;
+    private final LocalDateTime updatedAt;
+    private final long fetchedAt;
+    private final long version;
+
+    public LivePriceSnapshot(Metal metal, double price, String currency, LocalDateTime updatedAt, long fetchedAt,
+                             long version) {
+        this.metal = metal;
+        this.price = price;
+        this.currency = currency;
+        this.updatedAt = updatedAt;
+        this.fetchedAt = fetchedAt;
+        this.version = version;
+    }
+
+    public Metal getMetal() {
+        return metal;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return the upstream update time, in UTC.
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * @return the upstream update time in New York.
+     */
+    public ZonedDateTime getNewYorkTime() {
+        return updatedAt.atZone(ZoneOffset.UTC).withZoneSameInstant(NEW_YORK);
+    }
+
+    /**
+     * @return the wall-clock time (epoch millis) this price was fetched.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * @return the upstream update time in epoch millis, for Last-Modified headers.
+     */
+    public long getLastModified() {
+        return updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * @return the hub's sequence number for this price; grows whenever the price, currency or
+     * upstream update time changes, even if the upstream reuses a timestamp.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public LiveGoldPriceDTO toDTO() {
+        return new LiveGoldPriceDTO(price, updatedAt, getNewYorkTime());
+    }
+
+    @Override
+    public String toString() {
+        return "LivePriceSnapshot{" +
+                "metal=" + metal +
+                ", price=" + price +
+                ", currency='" + currency + '\'' +
+                ", updatedAt=" + updatedAt +
+                ", fetchedAt=" + fetchedAt +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.service;
+
+import com.example.dto.LiveGoldPriceDTO;
+import com.example.store.Metal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+/**
+ * Fans each new live price published by {@link LivePriceHub} out to every Server-Sent Events
+ * subscriber of that metal.
+ * <p>
+ * Each metal has its own channel, so an update only visits that metal's subscribers. The price
+ * is serialized once per update. Each subscriber has a one-slot outbound buffer:
+ * a price that arrives before the previous one was written replaces it, so a slow client
+ * only ever receives the latest price. Writes run on a small dispatcher pool, at most one per
+ * subscriber at a time. A write still blocked after {@code live.stream.write-timeout-ms} means
+ * the client stopped reading: it is evicted, and the pool gets an extra thread until that write
+ * returns, so stalled clients never take the threads the others are served by.
+ */
+@Service
+public class LivePriceStreamService implements LivePriceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LivePriceStreamService.class);
+
+    static final String EVENT_NAME = "price";
+
+    // Write start of a subscriber evicted while its write was blocked
+    private static final long STALLED = -1;
+
+    private final LivePriceHub livePriceHub;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+    private final int maxSubscribers;
+    private final long writeTimeoutMillis;
+    private final int dispatcherThreads;
+    private final LongFunction<SseEmitter> emitters;
+    private final Map<Metal, Channel> channels = new EnumMap<>(Metal.class);
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicInteger stalledWrites = new AtomicInteger();
+    private final ThreadPoolExecutor dispatcher;
+
+    public LivePriceStreamService(LivePriceHub livePriceHub, ObjectMapper objectMapper,
+                                  @Value("${live.stream.timeout-ms:1800000}") long timeoutMillis,
+                                  @Value("${live.stream.reconnect-ms:5000}") long reconnectMillis,
+                                  @Value("${live.stream.max-subscribers:10000}") int maxSubscribers,
+                                  @Value("${live.stream.dispatcher-threads:4}") int dispatcherThreads,
+                                  @Value("${live.stream.write-timeout-ms:5000}") long writeTimeoutMillis) {
+        this(livePriceHub, objectMapper, timeoutMillis, reconnectMillis, maxSubscribers, dispatcherThreads,
+                writeTimeoutMillis, SseEmitter::new);
+    }
+
+    LivePriceStreamService(LivePriceHub livePriceHub, ObjectMapper objectMapper, long timeoutMillis,
+                           long reconnectMillis, int maxSubscribers, int dispatcherThreads, long writeTimeoutMillis,
+                           LongFunction<SseEmitter> emitters) {
+        this.livePriceHub = livePriceHub;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.dispatcherThreads = Math.max(1, dispatcherThreads);
+        this.emitters = emitters;
+        for (Metal metal : livePriceHub.getMetals()) {
+            channels.put(metal, new Channel());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(this.dispatcherThreads, this.dispatcherThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "live-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.allowCoreThreadTimeOut(true);
+    }
+
+    @PostConstruct
+    public void init() {
+        livePriceHub.addListener(this);
+    }
+
+    /**
+     * Registers a new subscriber to the metal's prices and sends it the current price, unless
+     * the client already saw it before reconnecting.
+     *
+     * @param metal       the metal to follow.
+     * @param lastEventId the Last-Event-ID header sent by a reconnecting client, or null.
+     * @return the emitter to return from the handler, or null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(Metal metal, String lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        Channel channel = channels.get(metal);
+        SseEmitter emitter = emitters.apply(timeoutMillis);
+        Subscriber subscriber = new Subscriber(channel, emitter);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+        channel.subscribers.add(subscriber);
+
+        PriceEvent current = channel.latest.get();
+        if (current != null && current.id > parseEventId(lastEventId)) {
+            subscriber.offer(current);
+        } else {
+            // Tell the client how soon to reconnect, and flush the headers right away
+            subscriber.heartbeat();
+        }
+        return emitter;
+    }
+
+    /**
+     * Broadcasts a new live price of the metal; a price with the same or an older id than the
+     * metal's last one is ignored.
+     *
+     * @param id a monotonic event id, such as the {@link LivePriceSnapshot#getVersion() version} of the price.
+     */
+    public void publish(Metal metal, LiveGoldPriceDTO price, long id) {
+        Channel channel = channels.get(metal);
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(price);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize the live price: {}", e.getMessage(), e);
+            return;
+        }
+
+        PriceEvent event = new PriceEvent(id, data);
+        PriceEvent previous = channel.latest.getAndAccumulate(event, (current, next) ->
+                current == null || next.id > current.id ? next : current);
+        if (previous != null && previous.id >= id) {
+            return;
+        }
+        for (Subscriber subscriber : channel.subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    @Override
+    public void onPrice(LivePriceSnapshot snapshot) {
+        publish(snapshot.getMetal(), snapshot.toDTO(), snapshot.getVersion());
+    }
+
+    /**
+     * @return the number of connected subscribers, over all metals.
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects clients that went away.
+     */
+    @Scheduled(fixedRateString = "${live.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.heartbeat();
+            }
+        }
+    }
+
+    /**
+     * Evicts the subscribers whose write has been blocked for longer than the write timeout.
+     */
+    @Scheduled(fixedRateString = "${live.stream.stall-check-ms:1000}")
+    public void evictStalledSubscribers() {
+        long now = System.currentTimeMillis();
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.evictIfStalled(now);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.emitter.complete();
+            }
+            channel.subscribers.clear();
+        }
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Grows or shrinks the dispatcher by the given number of threads tied up in stalled writes.
+     */
+    private synchronized void resizeDispatcher(int stalledDelta) {
+        int size = dispatcherThreads + stalledWrites.addAndGet(stalledDelta);
+        if (size > dispatcher.getMaximumPoolSize()) {
+            dispatcher.setMaximumPoolSize(size);
+            dispatcher.setCorePoolSize(size);
+        } else {
+            dispatcher.setCorePoolSize(size);
+            dispatcher.setMaximumPoolSize(size);
+        }
+    }
+
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static final class PriceEvent {
+
+        private final long id;
+        private final String data;
+
+        PriceEvent(long id, String data) {
+            this.id = id;
+            this.data = data;
+        }
+    }
+
+    /**
+     * The subscribers of one metal and its latest price event.
+     */
+    private static final class Channel {
+
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<PriceEvent> latest = new AtomicReference<>();
+    }
+
+    /**
+     * One connected client with its conflating one-slot buffer.
+     */
+    private final class Subscriber {
+
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final AtomicReference<PriceEvent> pending = new AtomicReference<>();
+        private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Wall-clock start (epoch millis) of the write in progress, 0 when idle, or STALLED
+        private final AtomicLong writingSince = new AtomicLong();
+
+        Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void remove() {
+            if (channel.subscribers.remove(this)) {
+                subscriberCount.decrementAndGet();
+            }
+        }
+
+        void offer(PriceEvent event) {
+            pending.set(event);
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatPending.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * Drops a subscriber whose write is blocked past the timeout, and lends the dispatcher a
+         * thread for as long as that write stays blocked.
+         */
+        void evictIfStalled(long now) {
+            long since = writingSince.get();
+            if (since > 0 && now - since > writeTimeoutMillis && writingSince.compareAndSet(since, STALLED)) {
+                resizeDispatcher(1);
+                remove();
+                logger.info("Evicted a live price subscriber whose write was blocked for {} ms", now - since);
+                // Completes the async request; the container's own write timeout ends the blocked write
+                emitter.completeWithError(new IOException("Write timed out"));
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    PriceEvent event = pending.getAndSet(null);
+                    boolean heartbeat = heartbeatPending.getAndSet(false);
+                    boolean written = true;
+                    if (event != null) {
+                        written = send(SseEmitter.event()
+                                .id(Long.toString(event.id))
+                                .name(EVENT_NAME)
+                                .reconnectTime(reconnectMillis)
+                                .data(event.data, MediaType.APPLICATION_JSON));
+                    } else if (heartbeat) {
+                        written = send(SseEmitter.event().comment("heartbeat").reconnectTime(reconnectMillis));
+                    } else {
+                        draining.set(false);
+                        // Re-check: an offer may have raced with the reset above
+                        if ((pending.get() == null && !heartbeatPending.get()) || !draining.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                    if (!written) {
+                        return; // Evicted: leave draining set so nothing is scheduled for it again
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                remove();
+                draining.set(false);
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * @return false if the subscriber was evicted while the write was blocked.
+         */
+        private boolean send(SseEmitter.SseEventBuilder event) throws IOException {
+            long start = System.currentTimeMillis();
+            writingSince.set(start);
+            boolean evicted;
+            try {
+                emitter.send(event);
+            } finally {
+                evicted = !writingSince.compareAndSet(start, 0);
+                if (evicted) {
+                    resizeDispatcher(-1);
+                }
+            }
+            return !evicted;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.service;
+
+import com.example.dto.LiveGoldPriceDTO;
+import com.example.pricing.FxRates;
+import com.example.pricing.Karat;
+import com.example.pricing.PriceConversion;
+import com.example.pricing.PriceUnit;
+import com.example.store.Metal;
+
+/**
+ * Immutable live price of one metal in every currency, unit and purity, precomputed from one
+ * {@link LivePriceSnapshot} and one set of {@link FxRates}, so a converted quote is a single
+ * array read.
+ */
+public final class PriceMatrix {
+
+    private static final PriceUnit[] UNITS = PriceUnit.values();
+    private static final Karat[] KARATS = Karat.values();
+
+    private final LivePriceSnapshot snapshot;
+    private final FxRates rates;
+    private final double[] prices; // Indexed [currency][unit][karat], flattened
+
+    public PriceMatrix(LivePriceSnapshot snapshot, FxRates rates) {
+        this.snapshot = snapshot;
+        this.rates = rates;
+        this.prices = new double[rates.size() * UNITS.length * KARATS.length];
+
+        double usdPerOunce = toUsd(snapshot, rates);
+        int i = 0;
+        for (int currency = 0; currency < rates.size(); currency++) {
+            double rate = rates.rateAt(currency);
+            for (PriceUnit unit : UNITS) {
+                for (Karat karat : KARATS) {
+                    // Same factor as PriceConversion, so live and history prices agree to the last digit
+                    prices[i++] = usdPerOunce * (rate * unit.getOuncesPerUnit() * karat.getPurity());
+                }
+            }
+        }
+    }
+
+    private static double toUsd(LivePriceSnapshot snapshot, FxRates rates) {
+        int index = rates.indexOf(snapshot.getCurrency());
+        return index > 0 ? snapshot.getPrice() / rates.rateAt(index) : snapshot.getPrice();
+    }
+
+    public LivePriceSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public FxRates getRates() {
+        return rates;
+    }
+
+    /**
+     * @return the price at the currency position of {@link #getRates()}.
+     */
+    public double price(int currency, PriceUnit unit, Karat karat) {
+        return prices[(currency * UNITS.length + unit.ordinal()) * KARATS.length + karat.ordinal()];
+    }
+
+    /**
+     * @return the live price in the conversion's currency, unit and purity, or null if these
+     *         rates have no such currency.
+     */
+    public LiveGoldPriceDTO toDTO(PriceConversion conversion) {
+        int currency = rates.indexOf(conversion.getCurrency());
+        if (currency < 0) {
+            return null;
+        }
+        LiveGoldPriceDTO dto = snapshot.toDTO();
+        dto.setPrice(price(currency, conversion.getUnit(), conversion.getKarat()));
+        dto.setCurrency(rates.currencyAt(currency));
+        dto.setUnit(conversion.getUnit().getCode());
+        if (snapshot.getMetal() == Metal.XAU) {
+            dto.setKarat(conversion.getKarat().getKarats());
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.service;
+
+import com.example.pricing.FxRates;
+import com.example.store.Metal;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a {@link PriceMatrix} per metal, recomputed once per live price tick and once per
+ * exchange rate change, so converted live prices are served from memory.
+ */
+@Service
+public class PriceMatrixService implements LivePriceListener, FxRateListener {
+
+    private final LivePriceHub livePriceHub;
+    private final FxRateService fxRateService;
+    private final Map<Metal, AtomicReference<PriceMatrix>> matrices = new EnumMap<>(Metal.class);
+
+    public PriceMatrixService(LivePriceHub livePriceHub, FxRateService fxRateService) {
+        this.livePriceHub = livePriceHub;
+        this.fxRateService = fxRateService;
+        for (Metal metal : livePriceHub.getMetals()) {
+            matrices.put(metal, new AtomicReference<>());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        fxRateService.addListener(this);
+        livePriceHub.addListener(this);
+    }
+
+    /**
+     * @return the metal's matrix, or null before its first live price.
+     */
+    public PriceMatrix current(Metal metal) {
+        return matrices.get(metal).get();
+    }
+
+    @Override
+    public void onPrice(LivePriceSnapshot snapshot) {
+        rebuild(snapshot.getMetal());
+    }
+
+    @Override
+    public void onRates(FxRates rates) {
+        for (Metal metal : matrices.keySet()) {
+            rebuild(metal);
+        }
+    }
+
+    /**
+     * Builds from the latest price and rates rather than the ones a callback was handed, so a
+     * tick and a rate change racing each other cannot leave an outdated matrix behind.
+     */
+    private void rebuild(Metal metal) {
+        AtomicReference<PriceMatrix> matrix = matrices.get(metal);
+        synchronized (matrix) {
+            LivePriceSnapshot snapshot = livePriceHub.current(metal);
+            if (snapshot != null) {
+                matrix.set(new PriceMatrix(snapshot, fxRateService.current()));
+            }
+        }
+    }
+}
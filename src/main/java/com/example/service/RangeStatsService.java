@@ -0,0 +1,86 @@
+package com.example.service;
+
+import com.example.dto.RangeStatsDTO;
+import com.example.pricing.PriceConversion;
+import com.example.store.HistoryCsv;
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceSeriesListener;
+import com.example.store.PriceStoreRegistry;
+import com.example.store.RangeStatsIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Answers high/low/average/standard-deviation questions for any date range from a
+ * {@link RangeStatsIndex} per metal, which is extended on every append instead of rebuilt.
+ */
+@Service
+public class RangeStatsService {
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final Map<Metal, Partition> partitions = new EnumMap<>(Metal.class);
+
+    public RangeStatsService(PriceStoreRegistry priceStoreRegistry) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        for (Metal metal : priceStoreRegistry.getMetals()) {
+            partitions.put(metal, new Partition());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        partitions.forEach(priceStoreRegistry::addListener);
+    }
+
+    /**
+     * Get statistics for the entries within the range.
+     *
+     * @param metal the metal
+     * @param from  the earliest entry to include, or null for no lower bound
+     * @param to    the latest entry to include, or null for no upper bound
+     * @param conversion the currency, unit and purity to quote the prices in
+     * @return the statistics, or null if the range contains no entries
+     */
+    public RangeStatsDTO getStats(Metal metal, LocalDateTime from, LocalDateTime to, PriceConversion conversion) {
+        RangeStatsIndex stats = partitions.get(metal).index;
+        PriceSeries series = stats.getSeries();
+        int start = from == null ? 0 : series.lowerBound(HistoryCsv.toEpochSecond(from));
+        int end = (to == null ? series.size() : series.upperBound(HistoryCsv.toEpochSecond(to))) - 1;
+        if (start > end) {
+            return null;
+        }
+
+        int high = stats.highestHigh(start, end);
+        int low = stats.lowestLow(start, end);
+        // Every statistic is proportional to the prices, so converting them is one multiplication each
+        return new RangeStatsDTO(series.dateTimeAt(start), series.dateTimeAt(end), end - start + 1,
+                conversion.apply(series.openAt(start)), conversion.apply(series.closeAt(end)),
+                conversion.apply(series.highAt(high)), series.dateTimeAt(high),
+                conversion.apply(series.lowAt(low)), series.dateTimeAt(low),
+                conversion.apply(stats.meanClose(start, end)), conversion.apply(stats.stdDevClose(start, end)));
+    }
+
+    /**
+     * The statistics index of one metal.
+     */
+    private static final class Partition implements PriceSeriesListener {
+
+        private volatile RangeStatsIndex index = RangeStatsIndex.of(PriceSeries.empty());
+
+        @Override
+        public void onAppend(PriceSeries series, int fromIndex) {
+            RangeStatsIndex current = index;
+            index = current.size() == fromIndex ? current.withRows(series) : RangeStatsIndex.of(series);
+        }
+
+        @Override
+        public void onReplace(PriceSeries series) {
+            index = RangeStatsIndex.of(series);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.service;
+
+import com.example.store.Metal;
+import com.example.store.PriceSeries;
+import com.example.store.PriceSeriesListener;
+import com.example.store.PriceStore;
+import com.example.store.PriceStoreRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Size-bounded LRU cache of fully encoded response bodies and their gzip copies, so a hot
+ * request is answered with a single buffer write instead of rebuilding and reserializing its
+ * object graph.
+ * <p>
+ * Keys are {@code group:parameters}, with one group per kind of data and metal (see
+ * {@link #group(String, Metal)}). Every entry records the data version it was encoded from and
+ * only matches requests for that same version, so a version bump retires all older bodies at once.
+ * The owners of the data also call {@link #invalidate(String)} when it changes, which frees the
+ * memory straight away. The price history and live price groups are invalidated by listening
+ * to each metal's {@link PriceStore} and to the {@link LivePriceHub}.
+ */
+@Service
+public class ResponseCacheService implements LivePriceListener {
+
+    public static final String HISTORY = "history";
+    public static final String INTRADAY = "intraday";
+    public static final String LIVE = "live";
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheService.class);
+
+    // Bodies smaller than this are not worth compressing
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final PriceStoreRegistry priceStoreRegistry;
+    private final LivePriceHub livePriceHub;
+    private final long maxBytes;
+    private final LinkedHashMap<String, CachedBody> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public ResponseCacheService(PriceStoreRegistry priceStoreRegistry, LivePriceHub livePriceHub,
+                                @Value("${response.cache.max-bytes:16777216}") long maxBytes) {
+        this.priceStoreRegistry = priceStoreRegistry;
+        this.livePriceHub = livePriceHub;
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (Metal metal : priceStoreRegistry.getMetals()) {
+            String history = group(HISTORY, metal);
+            priceStoreRegistry.addListener(metal, new PriceSeriesListener() {
+                @Override
+                public void onAppend(PriceSeries series, int fromIndex) {
+                    invalidate(history);
+                }
+
+                @Override
+                public void onReplace(PriceSeries series) {
+                    invalidate(history);
+                }
+            });
+        }
+        livePriceHub.addListener(this);
+    }
+
+    /**
+     * @return the group holding one metal's bodies of the given kind, e.g. {@code history:XAG}.
+     */
+    public static String group(String group, Metal metal) {
+        return group + ':' + metal.getCode();
+    }
+
+    /**
+     * Returns the cached body for the key and data version, encoding and caching it on a miss.
+     * Read the version before reading the data the encoder uses: a body is then never newer
+     * than, or stored under, a version it does not belong to.
+     *
+     * @param encoder produces the encoded body, or null when there is nothing to cache.
+     * @return the cached body, or null if the encoder returned null.
+     */
+    public CachedBody get(String group, String key, long version, Supplier<byte[]> encoder) {
+        String cacheKey = group + ':' + key;
+        synchronized (this) {
+            CachedBody cached = entries.get(cacheKey);
+            if (cached != null && cached.version == version) {
+                return cached;
+            }
+        }
+
+        // Encode outside the lock; concurrent misses for the same key just encode twice
+        byte[] body = encoder.get();
+        if (body == null) {
+            return null;
+        }
+        CachedBody encoded = new CachedBody(version, body);
+        if (encoded.weight() > maxBytes) {
+            return encoded;
+        }
+
+        synchronized (this) {
+            CachedBody previous = entries.get(cacheKey);
+            if (previous != null && previous.version > version) {
+                return encoded; // A newer body was cached meanwhile; keep it
+            }
+            if (previous != null) {
+                totalBytes -= previous.weight();
+            }
+            entries.put(cacheKey, encoded);
+            totalBytes += encoded.weight();
+            evict();
+        }
+        return encoded;
+    }
+
+    /**
+     * Drops every cached body of the group.
+     */
+    public synchronized void invalidate(String group) {
+        String prefix = group + ':';
+        Iterator<Map.Entry<String, CachedBody>> iterator = entries.entrySet().iterator();
+        int removed = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedBody> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                totalBytes -= entry.getValue().weight();
+                iterator.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Invalidated {} cached '{}' responses", removed, group);
+        }
+    }
+
+    /**
+     * @return the number of bytes currently held, compressed variants included.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public void onPrice(LivePriceSnapshot snapshot) {
+        invalidate(group(LIVE, snapshot.getMetal()));
+    }
+
+    private void evict() {
+        Iterator<CachedBody> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().weight();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * An encoded response body, with its gzip variant when the body is large enough to benefit.
+     */
+    public static final class CachedBody {
+
+        private final long version;
+        private final byte[] body;
+        private final byte[] gzipped;
+
+        private CachedBody(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+            this.gzipped = body.length < GZIP_MIN_BYTES ? null : gzip(body);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return the gzip-encoded body, or null if the body is too small to be worth compressing.
+         */
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        private long weight() {
+            return body.length + (gzipped == null ? 0 : gzipped.length);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary history file: a fixed 64-byte header followed by fixed 40-byte records
+ * of {@code (epochSecond, open, high, low, close)} in little-endian order.
+ * <p>
+ * Opened files are memory-mapped read-only, so any record can be read in O(1) straight from
+ * the page cache without parsing or copying. The header also records how much of the source
+ * CSV the records cover, so the CSV can be followed from that point on.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     4  magic "XAUB"
+ *      4     4  format version
+ *      8     4  record size (40)
+ *     12     4  reserved
+ *     16     8  record count
+ *     24     8  source CSV offset covered by the records
+ *     32     8  CRC32 of the source CSV bytes up to the covered offset
+ *     40    24  reserved
+ * </pre>
+ */
+public final class BinaryPriceFile {
+
+    public static final int MAGIC = 0x58415542; // "XAUB"
+    public static final int FORMAT_VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 40;
+
+    private static final int COUNT_OFFSET = 16;
+    private static final int SOURCE_OFFSET = 24;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final SourceMark source;
+
+    private BinaryPriceFile(MappedByteBuffer buffer, int size, SourceMark source) {
+        this.buffer = buffer;
+        this.size = size;
+        this.source = source;
+    }
+
+    /**
+     * Maps an existing binary file read-only.
+     *
+     * @throws IOException if the file cannot be read or is not a valid binary history file.
+     */
+    public static BinaryPriceFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Binary price file is too short: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != RECORD_SIZE) {
+                throw new IOException("Not a binary price file (or unsupported version): " + path);
+            }
+            long count = buffer.getLong(COUNT_OFFSET);
+            if (count < 0 || HEADER_SIZE + count * RECORD_SIZE > length) {
+                throw new IOException("Binary price file is truncated: " + path);
+            }
+            SourceMark source = new SourceMark(buffer.getLong(SOURCE_OFFSET), buffer.getLong(SOURCE_OFFSET + 8));
+            return new BinaryPriceFile(buffer, (int) count, source);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return which part of the source CSV the records were built from.
+     */
+    public SourceMark getSource() {
+        return source;
+    }
+
+    public long timestampAt(int index) {
+        return buffer.getLong(position(index));
+    }
+
+    public double openAt(int index) {
+        return buffer.getDouble(position(index) + 8);
+    }
+
+    public double highAt(int index) {
+        return buffer.getDouble(position(index) + 16);
+    }
+
+    public double lowAt(int index) {
+        return buffer.getDouble(position(index) + 24);
+    }
+
+    public double closeAt(int index) {
+        return buffer.getDouble(position(index) + 32);
+    }
+
+    /**
+     * Copies all records into a builder.
+     */
+    public PriceSeries.Builder toBuilder() {
+        PriceSeries.Builder builder = new PriceSeries.Builder(size);
+        for (int i = 0; i < size; i++) {
+            int position = HEADER_SIZE + i * RECORD_SIZE;
+            builder.add(buffer.getLong(position),
+                    buffer.getDouble(position + 8),
+                    buffer.getDouble(position + 16),
+                    buffer.getDouble(position + 24),
+                    buffer.getDouble(position + 32));
+        }
+        return builder;
+    }
+
+    /**
+     * Writes a complete binary file for the given series, replacing any existing file atomically.
+     */
+    public static void write(Path path, PriceSeries series, SourceMark source) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = header(series.size(), source);
+            writeFully(channel, header, 0);
+            writeRecords(channel, series, HEADER_SIZE);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Appends records to an existing binary file and updates its header.
+     */
+    public static void append(Path path, PriceSeries rows, SourceMark source) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer countBuffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(countBuffer, COUNT_OFFSET);
+            long count = countBuffer.getLong(0);
+
+            writeRecords(channel, rows, HEADER_SIZE + count * RECORD_SIZE);
+            // Records first, then the header, so a crash in between leaves the old count valid
+            channel.force(false);
+            writeFully(channel, header(count + rows.size(), source), 0);
+            channel.force(false);
+        }
+    }
+
+    private static ByteBuffer header(long count, SourceMark source) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, FORMAT_VERSION);
+        header.putInt(8, RECORD_SIZE);
+        header.putLong(COUNT_OFFSET, count);
+        header.putLong(SOURCE_OFFSET, source.getOffset());
+        header.putLong(SOURCE_OFFSET + 8, source.getChecksum());
+        return header;
+    }
+
+    private static void writeRecords(FileChannel channel, PriceSeries series, long position) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < series.size(); i++) {
+            if (!chunk.hasRemaining()) {
+                chunk.flip();
+                position += writeFully(channel, chunk, position);
+                chunk.clear();
+            }
+            chunk.putLong(series.timestamps()[i])
+                    .putDouble(series.open()[i])
+                    .putDouble(series.high()[i])
+                    .putDouble(series.low()[i])
+                    .putDouble(series.close()[i]);
+        }
+        chunk.flip();
+        writeFully(channel, chunk, position);
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    /**
+     * Reads {@code [from, to)} of a channel into a new array.
+     */
+    static byte[] read(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.array();
+    }
+
+    private int position(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Identifies the prefix of the source CSV that a binary file was built from, by its length
+     * and a CRC32 of all of its bytes, so an edit anywhere in the prefix is noticed.
+     */
+    public static final class SourceMark {
+
+        private static final int READ_CHUNK = 1 << 16;
+
+        private final long offset;
+        private final long checksum;
+
+        public SourceMark(long offset, long checksum) {
+            this.offset = offset;
+            this.checksum = checksum;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return the CRC32 of the first {@link #getOffset()} bytes of the source.
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Builds the mark for the first {@code end} bytes of a source file.
+         */
+        public static SourceMark of(byte[] data, int end) {
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, end);
+            return new SourceMark(end, crc.getValue());
+        }
+
+        /**
+         * Builds the mark for the first {@code offset} bytes of a source file, reading all of them.
+         */
+        public static SourceMark read(FileChannel channel, long offset) throws IOException {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+            long position = 0;
+            while (position < offset) {
+                buffer.clear().limit((int) Math.min(READ_CHUNK, offset - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+            return new SourceMark(position, crc.getValue());
+        }
+
+        /**
+         * Extends the mark over {@code data[0, length)}, the bytes that follow the covered prefix,
+         * without reading the prefix again.
+         */
+        public SourceMark extend(byte[] data, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            return new SourceMark(offset + length, combine(checksum, crc.getValue(), length));
+        }
+
+        /**
+         * Checks whether the first {@link #getOffset()} bytes of the given source still match this mark.
+         */
+        public boolean matches(FileChannel channel) throws IOException {
+            if (channel.size() < offset) {
+                return false;
+            }
+            SourceMark current = read(channel, offset);
+            return current.offset == offset && current.checksum == checksum;
+        }
+
+        /**
+         * The CRC32 of two concatenated blocks from the CRCs of each and the second's length, as
+         * zlib's {@code crc32_combine}: the first CRC is shifted over {@code length} zero bytes by
+         * repeated squaring of the CRC's shift operator over GF(2).
+         */
+        static long combine(long first, long second, long length) {
+            if (length <= 0) {
+                return first;
+            }
+            long[] even = new long[32];
+            long[] odd = new long[32];
+
+            // The operator for one zero bit, then for two and four
+            odd[0] = 0xedb88320L;
+            long row = 1;
+            for (int n = 1; n < 32; n++) {
+                odd[n] = row;
+                row <<= 1;
+            }
+            square(even, odd);
+            square(odd, even);
+
+            long crc = first;
+            do {
+                // Apply the operator for the next power of two zero bytes where length has a one bit
+                square(even, odd);
+                if ((length & 1) != 0) {
+                    crc = times(even, crc);
+                }
+                length >>= 1;
+                if (length == 0) {
+                    break;
+                }
+                square(odd, even);
+                if ((length & 1) != 0) {
+                    crc = times(odd, crc);
+                }
+                length >>= 1;
+            } while (length != 0);
+            return crc ^ second;
+        }
+
+        private static long times(long[] matrix, long vector) {
+            long sum = 0;
+            for (int i = 0; vector != 0; i++, vector >>>= 1) {
+                if ((vector & 1) != 0) {
+                    sum ^= matrix[i];
+                }
+            }
+            return sum;
+        }
+
+        private static void square(long[] square, long[] matrix) {
+            for (int n = 0; n < 32; n++) {
+                square[n] = times(matrix, matrix[n]);
+            }
+        }
+    }
+}
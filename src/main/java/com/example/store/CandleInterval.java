@@ -0,0 +1,58 @@
+package com.example.store;
+
+import java.time.LocalDate;
+
+/**
+ * Resolutions of the pre-aggregated OHLC candles, with the bucket each timestamp falls into.
+ */
+public enum CandleInterval {
+
+    WEEK("1w"),
+    MONTH("1M"),
+    QUARTER("1Q"),
+    YEAR("1Y");
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private final String code;
+
+    CandleInterval(String code) {
+        this.code = code;
+    }
+
+    /**
+     * @return the code used in request parameters, e.g. {@code 1w}.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Resolves a request code such as {@code 1w}, {@code 1M}, {@code 1Q} or {@code 1Y}.
+     *
+     * @return the matching interval, or null if the code is unknown.
+     */
+    public static CandleInterval fromCode(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param timestamp epoch seconds of a row.
+     * @return epoch seconds of the start of the bucket containing it (weeks start on Monday).
+     */
+    public long bucketStart(long timestamp) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(timestamp, SECONDS_PER_DAY));
+        LocalDate start = switch (this) {
+            case WEEK -> date.minusDays(date.getDayOfWeek().getValue() - 1L);
+            case MONTH -> date.withDayOfMonth(1);
+            case QUARTER -> LocalDate.of(date.getYear(), ((date.getMonthValue() - 1) / 3) * 3 + 1, 1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+        return start.toEpochDay() * SECONDS_PER_DAY;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.store;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the OHLC candles of one {@link CandleInterval}, sorted by bucket start.
+ * <p>
+ * Completed candles live in primitive arrays that consecutive snapshots share, like
+ * {@link PriceSeries}; the still-forming last candle is held in plain fields so that updating
+ * it never touches memory visible to older snapshots.
+ */
+public final class CandleTier {
+
+    private final CandleInterval interval;
+    private final long[] starts;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final int closed;
+
+    private final boolean forming;
+    private final long lastStart;
+    private final double lastOpen;
+    private final double lastHigh;
+    private final double lastLow;
+    private final double lastClose;
+
+    private CandleTier(CandleInterval interval, long[] starts, double[] open, double[] high, double[] low,
+                       double[] close, int closed, boolean forming, long lastStart, double lastOpen,
+                       double lastHigh, double lastLow, double lastClose) {
+        this.interval = interval;
+        this.starts = starts;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.closed = closed;
+        this.forming = forming;
+        this.lastStart = lastStart;
+        this.lastOpen = lastOpen;
+        this.lastHigh = lastHigh;
+        this.lastLow = lastLow;
+        this.lastClose = lastClose;
+    }
+
+    public static CandleTier empty(CandleInterval interval) {
+        return new CandleTier(interval, new long[16], new double[16], new double[16], new double[16],
+                new double[16], 0, false, 0L, 0, 0, 0, 0);
+    }
+
+    /**
+     * Aggregates a whole series in one pass.
+     */
+    public static CandleTier of(CandleInterval interval, PriceSeries series) {
+        CandleTier tier = empty(interval);
+        return tier.withRows(series, 0);
+    }
+
+    public CandleInterval getInterval() {
+        return interval;
+    }
+
+    public int size() {
+        return forming ? closed + 1 : closed;
+    }
+
+    public long startAt(int index) {
+        return index == closed ? checkLast(index, lastStart) : starts[checkClosed(index)];
+    }
+
+    public double openAt(int index) {
+        return index == closed ? checkLast(index, lastOpen) : open[checkClosed(index)];
+    }
+
+    public double highAt(int index) {
+        return index == closed ? checkLast(index, lastHigh) : high[checkClosed(index)];
+    }
+
+    public double lowAt(int index) {
+        return index == closed ? checkLast(index, lastLow) : low[checkClosed(index)];
+    }
+
+    public double closeAt(int index) {
+        return index == closed ? checkLast(index, lastClose) : close[checkClosed(index)];
+    }
+
+    /**
+     * @return the index of the first candle starting at or after the timestamp, or {@link #size()}.
+     */
+    public int lowerBound(long timestamp) {
+        int lo = 0;
+        int hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startAt(mid) < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the index of the first candle starting after the timestamp, or {@link #size()}.
+     */
+    public int upperBound(long timestamp) {
+        int lo = 0;
+        int hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startAt(mid) <= timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Folds rows {@code [fromIndex, series.size())} into the candles. Rows must not be older
+     * than the bucket of the last candle. Only call this on the latest snapshot of a tier, since
+     * sealed candles are written into array slots that the returned snapshot takes ownership of.
+     *
+     * @return the updated snapshot, or null if a row falls before the last candle and the tier
+     * has to be rebuilt with {@link #of(CandleInterval, PriceSeries)}.
+     */
+    public CandleTier withRows(PriceSeries series, int fromIndex) {
+        long[] s = starts;
+        double[] o = open;
+        double[] h = high;
+        double[] l = low;
+        double[] c = close;
+        int n = closed;
+        boolean f = forming;
+        long ls = lastStart;
+        double lo = lastOpen;
+        double lh = lastHigh;
+        double ll = lastLow;
+        double lc = lastClose;
+
+        for (int i = fromIndex; i < series.size(); i++) {
+            long bucket = interval.bucketStart(series.timestampAt(i));
+            if (f && bucket == ls) {
+                lh = Math.max(lh, series.highAt(i));
+                ll = Math.min(ll, series.lowAt(i));
+                lc = series.closeAt(i);
+                continue;
+            }
+            if (f && bucket < ls) {
+                return null;
+            }
+            if (f) {
+                // Seal the forming candle into the shared arrays, beyond every published snapshot's size
+                if (n == s.length) {
+                    int capacity = Math.max(16, n + (n >> 1) + 1);
+                    s = Arrays.copyOf(s, capacity);
+                    o = Arrays.copyOf(o, capacity);
+                    h = Arrays.copyOf(h, capacity);
+                    l = Arrays.copyOf(l, capacity);
+                    c = Arrays.copyOf(c, capacity);
+                }
+                s[n] = ls;
+                o[n] = lo;
+                h[n] = lh;
+                l[n] = ll;
+                c[n] = lc;
+                n++;
+            }
+            f = true;
+            ls = bucket;
+            lo = series.openAt(i);
+            lh = series.highAt(i);
+            ll = series.lowAt(i);
+            lc = series.closeAt(i);
+        }
+        return new CandleTier(interval, s, o, h, l, c, n, f, ls, lo, lh, ll, lc);
+    }
+
+    private double checkLast(int index, double value) {
+        if (!forming) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        return value;
+    }
+
+    private long checkLast(int index, long value) {
+        if (!forming) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        return value;
+    }
+
+    private int checkClosed(int index) {
+        if (index < 0 || index >= closed) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        return index;
+    }
+}
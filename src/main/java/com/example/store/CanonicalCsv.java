@@ -0,0 +1,144 @@
+package com.example.store;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * The canonical layout of a history CSV, written by compaction and bulk ingest.
+ * <p>
+ * The header row carries one extra field, {@code format=2;rows=N;bytes=B;crc=C}, describing
+ * the {@code B} bytes of data rows that follow it: one row per day, sorted, every date in
+ * {@code dd-MM-yyyy HH:mm} and every open/high/low/close present, unquoted, each line ending
+ * in a single {@code \n}. Rows appended later follow that region in the usual form until the
+ * next compaction.
+ * <p>
+ * Readers that find a header whose claims hold, CRC included, may decode the region at
+ * fixed offsets and skip sorting and duplicate checks for it. Anything else, including a
+ * file edited by hand, is read as an ordinary CSV.
+ */
+public final class CanonicalCsv {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final String FORMAT_KEY = "format=";
+
+    private CanonicalCsv() {
+    }
+
+    /**
+     * The verified canonical data rows at the head of a file.
+     */
+    public static final class Region {
+
+        private final int start;
+        private final int end;
+        private final int rows;
+
+        Region(int start, int end, int rows) {
+            this.start = start;
+            this.end = end;
+            this.rows = rows;
+        }
+
+        /**
+         * @return the offset of the first data row, just past the header line.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return the offset just past the last canonical row; later bytes were appended since.
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+    }
+
+    /**
+     * Writes the series in the canonical layout, header included.
+     *
+     * @param series sorted rows with at most one per day.
+     */
+    public static void write(PriceSeries series, OutputStream out) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(Math.max(64, series.size() * 48));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.US_ASCII), 1 << 16);
+        for (int i = 0; i < series.size(); i++) {
+            HistoryCsv.writeRow(writer, series, i);
+        }
+        writer.flush();
+
+        byte[] rows = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(rows, 0, rows.length);
+        String header = String.join(",", HistoryCsv.HEADER) + "," + FORMAT_KEY + FORMAT_VERSION
+                + ";rows=" + series.size() + ";bytes=" + rows.length + ";crc=" + Long.toHexString(crc.getValue()) + "\n";
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        out.write(rows);
+    }
+
+    /**
+     * Checks whether {@code data[0, length)} starts with a canonical header whose claims hold.
+     *
+     * @return the canonical region, or null if the file is not (or no longer) canonical.
+     */
+    public static Region detect(byte[] data, int length) {
+        int headerEnd = -1;
+        for (int i = 0; i < length; i++) {
+            if (data[i] == '\n') {
+                headerEnd = i;
+                break;
+            }
+        }
+        if (headerEnd < 0) {
+            return null;
+        }
+        String header = new String(data, 0, headerEnd, StandardCharsets.US_ASCII);
+        int field = header.lastIndexOf(',') + 1;
+        if (!header.startsWith(FORMAT_KEY, field)) {
+            return null;
+        }
+
+        int version = -1;
+        int rows = -1;
+        long bytes = -1;
+        long checksum = -1;
+        try {
+            for (String claim : header.substring(field).split(";")) {
+                int separator = claim.indexOf('=');
+                String value = claim.substring(separator + 1);
+                switch (claim.substring(0, Math.max(0, separator))) {
+                    case "format" -> version = Integer.parseInt(value);
+                    case "rows" -> rows = Integer.parseInt(value);
+                    case "bytes" -> bytes = Long.parseLong(value);
+                    case "crc" -> checksum = Long.parseLong(value, 16);
+                    default -> {
+                        // Claims added by later versions
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        int start = headerEnd + 1;
+        if (version != FORMAT_VERSION || rows < 0 || bytes < 0 || checksum < 0 || start + bytes > length
+                || (bytes > 0 && data[(int) (start + bytes - 1)] != '\n')) {
+            return null;
+        }
+        int end = (int) (start + bytes);
+        CRC32 crc = new CRC32();
+        crc.update(data, start, end - start);
+        return crc.getValue() == checksum ? new Region(start, end, rows) : null;
+    }
+}
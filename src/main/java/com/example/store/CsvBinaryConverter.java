@@ -0,0 +1,76 @@
+package com.example.store;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Converts between the history CSV and the {@link BinaryPriceFile} format.
+ */
+public final class CsvBinaryConverter {
+
+    private CsvBinaryConverter() {
+    }
+
+    /**
+     * Builds a binary file from CSV content. A final line without a line break is included.
+     *
+     * @return the number of records written.
+     */
+    public static int importCsv(InputStream csv, Path binaryPath) throws IOException {
+        byte[] data = csv.readAllBytes();
+        PriceSeries.Builder builder = new PriceSeries.Builder(Math.max(16, data.length / 48));
+        HistoryCsvParser.parseFile(data, data.length, builder);
+        PriceSeries series = builder.build(0);
+        BinaryPriceFile.write(binaryPath, series, BinaryPriceFile.SourceMark.of(data, data.length));
+        return series.size();
+    }
+
+    /**
+     * Builds a binary file from a CSV file.
+     *
+     * @return the number of records written.
+     */
+    public static int importCsv(Path csvPath, Path binaryPath) throws IOException {
+        try (InputStream in = Files.newInputStream(csvPath)) {
+            return importCsv(in, binaryPath);
+        }
+    }
+
+    /**
+     * Writes the records of a binary file as CSV, replacing the target atomically. The binary
+     * file's source mark is updated to point at the exported CSV, so it can be followed from there.
+     *
+     * @return the number of records written.
+     */
+    public static int exportCsv(Path binaryPath, Path csvPath) throws IOException {
+        PriceSeries series = BinaryPriceFile.open(binaryPath).toBuilder().build(0);
+
+        Path temp = csvPath.resolveSibling(csvPath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", HistoryCsv.HEADER));
+            writer.write('\n');
+            for (int i = 0; i < series.size(); i++) {
+                writer.write(HistoryCsv.formatDate(series.timestampAt(i)));
+                writer.write(',');
+                writer.write(HistoryCsv.formatPrice(series.openAt(i)));
+                writer.write(',');
+                writer.write(HistoryCsv.formatPrice(series.highAt(i)));
+                writer.write(',');
+                writer.write(HistoryCsv.formatPrice(series.lowAt(i)));
+                writer.write(',');
+                writer.write(HistoryCsv.formatPrice(series.closeAt(i)));
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, csvPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        byte[] exported = Files.readAllBytes(csvPath);
+        BinaryPriceFile.write(binaryPath, series, BinaryPriceFile.SourceMark.of(exported, exported.length));
+        return series.size();
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Follows the history CSV like {@code tail -f}: remembers the last consumed byte offset,
+ * parses only bytes appended since then and publishes them into the {@link PriceStore}.
+ * <p>
+ * Parsed rows are mirrored into a {@link BinaryPriceFile}, whose header records how much of
+ * the CSV it covers. A reload maps the binary file and only parses the CSV beyond that point.
+ * <p>
+ * Truncation, replacement of the file, or a rewrite of the already-consumed bytes is
+ * detected through the file size, file key and a CRC32 of all consumed bytes, which is
+ * extended as rows are appended; any of these triggers a full reload.
+ * <p>
+ * One follower per metal is created by {@link PriceStoreRegistry}, which also drives the
+ * periodic {@link #poll()}.
+ */
+public class CsvTailFollower {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvTailFollower.class);
+
+    private final PriceStore priceStore;
+    private final Path csvPath;
+    private final Path binaryPath;
+
+    private BinaryPriceFile.SourceMark consumed = new BinaryPriceFile.SourceMark(0, 0);
+    private Object fileKey;
+
+    private volatile boolean started;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public CsvTailFollower(PriceStore priceStore, Path binaryPath) {
+        this.priceStore = priceStore;
+        this.csvPath = priceStore.getCsvPath().toAbsolutePath().normalize();
+        this.binaryPath = binaryPath.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return the path of the binary mirror of the CSV file.
+     */
+    public Path getBinaryPath() {
+        return binaryPath;
+    }
+
+    /**
+     * Performs the initial full load and starts watching the file for changes.
+     */
+    public synchronized void start() {
+        reload();
+        if (started) {
+            return;
+        }
+        started = true;
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            csvPath.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchThread = new Thread(this::watchLoop, "csv-tail-follower-" + priceStore.getMetal().getCode());
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            // The scheduled poll below still picks up changes, just less promptly
+            logger.warn("Could not watch {} for changes: {}", csvPath.getParent(), e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the store contents from the binary mirror when it still matches the CSV,
+     * otherwise by parsing the whole CSV and rebuilding the mirror.
+     */
+    public synchronized void reload() {
+        if (Files.notExists(csvPath)) {
+            logger.warn("CSV file does not exist: {}", csvPath);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            fileKey = fileKey();
+
+            BinaryPriceFile binary = openMatchingBinary(channel);
+            if (binary != null) {
+                PriceSeries series = priceStore.replace(binary.toBuilder());
+                consumed = binary.getSource();
+                logger.info("Loaded {} {} price entries from {} (version {})",
+                        series.size(), priceStore.getMetal().getDisplayName(), binaryPath, series.getVersion());
+                consumeAppended(channel);
+                return;
+            }
+
+            byte[] data = BinaryPriceFile.read(channel, 0, channel.size());
+            int end = lastLineEnd(data, 0);
+
+            PriceSeries.Builder builder = new PriceSeries.Builder(Math.max(16, end / 48));
+            HistoryCsvParser.parseFile(data, end, builder);
+            PriceSeries series = priceStore.replace(builder);
+            consumed = BinaryPriceFile.SourceMark.of(data, end);
+            logger.info("Loaded {} {} price entries from {} (version {})",
+                    series.size(), priceStore.getMetal().getDisplayName(), csvPath, series.getVersion());
+
+            try {
+                BinaryPriceFile.write(binaryPath, series, consumed);
+            } catch (IOException e) {
+                logger.warn("Could not write the binary price file {}: {}", binaryPath, e.getMessage());
+            }
+        } catch (IOException e) {
+            logger.error("Error reading the CSV file: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Consumes any complete lines appended since the last call, or reloads the file if it was
+     * truncated or rewritten.
+     */
+    public synchronized void poll() {
+        if (Files.notExists(csvPath)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            if (!Objects.equals(fileKey, fileKey()) || !consumed.matches(channel)) {
+                logger.info("CSV file {} was truncated or rewritten; reloading", csvPath);
+                reload();
+                return;
+            }
+            consumeAppended(channel);
+        } catch (IOException e) {
+            logger.error("Error following the CSV file: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Merges a batch of rows into the history (see {@link HistoryMerge}), rewrites the CSV
+     * with the result through the journal and publishes it as one new snapshot. Appends are
+     * held off meanwhile, and any already written are consumed first, so none is lost.
+     *
+     * @param journal the journal appending to this follower's CSV file.
+     * @param batch   the rows to merge, sorted by timestamp.
+     * @return the outcome; the file and store are untouched if nothing changed.
+     */
+    public synchronized HistoryMerge ingest(HistoryJournal journal, PriceSeries batch) throws IOException {
+        return journal.exclusively(() -> {
+            poll();
+            HistoryMerge merge = HistoryMerge.of(priceStore.snapshot(), batch);
+            if (!merge.isChanged()) {
+                return merge;
+            }
+
+            PriceSeries series = rewrite(journal, merge.getRows(), true);
+            logger.info("Merged {} uploaded {} price entries: {} added, {} replaced, {} unchanged, {} repeats dropped (version {})",
+                    merge.getReceived(), priceStore.getMetal().getDisplayName(), merge.getAdded(),
+                    merge.getReplaced(), merge.getUnchanged(), merge.getRepeated(), series.getVersion());
+            return merge;
+        });
+    }
+
+    /**
+     * Rewrites the CSV in the {@link CanonicalCsv} layout: sorted, one row per day, with rows
+     * repeating the previous day dropped and every date in the same format. The rows are parsed
+     * from the file itself, so whatever it holds, hand edits included, is what gets compacted.
+     * A new snapshot is published only if that differs from the store. Appends are held off
+     * meanwhile, as in {@link #ingest}.
+     *
+     * @param journal the journal appending to this follower's CSV file.
+     * @return the outcome, or null if the file was canonical already, with nothing appended since.
+     */
+    public synchronized HistoryMerge compact(HistoryJournal journal) throws IOException {
+        return journal.exclusively(() -> {
+            if (Files.notExists(csvPath)) {
+                return null;
+            }
+            poll();
+            byte[] data = Files.readAllBytes(csvPath);
+            CanonicalCsv.Region region = CanonicalCsv.detect(data, data.length);
+            if (region != null && region.getEnd() == data.length) {
+                return null;
+            }
+
+            int end = lastLineEnd(data, 0);
+            PriceSeries.Builder parsed = new PriceSeries.Builder(Math.max(16, end / 48));
+            HistoryCsvParser.parseFile(data, end, parsed);
+            PriceSeries rows = parsed.build(0);
+
+            // Merging the file's rows into nothing keeps the last row of each day and drops repeats
+            HistoryMerge merge = HistoryMerge.of(PriceSeries.empty(), rows);
+            int removed = merge.getSuperseded() + merge.getRepeated();
+            PriceSeries series = rewrite(journal, merge.getRows(), removed > 0 || !sameRows(rows, priceStore.snapshot()));
+            logger.info("Compacted the {} history {}: {} rows kept, {} duplicate and {} repeated rows removed (version {})",
+                    priceStore.getMetal().getDisplayName(), csvPath, merge.getAdded(),
+                    merge.getSuperseded(), merge.getRepeated(), series.getVersion());
+            return merge;
+        });
+    }
+
+    /**
+     * Replaces the CSV with the rows in the canonical layout and adopts the new file as
+     * consumed, so the watcher does not parse it all over again. Called with appends held off.
+     *
+     * @param publish whether the rows differ from the store and must be published.
+     * @return the store's snapshot afterwards.
+     */
+    private PriceSeries rewrite(HistoryJournal journal, PriceSeries.Builder rows, boolean publish) throws IOException {
+        PriceSeries canonical = rows.build(0);
+        journal.replace(out -> CanonicalCsv.write(canonical, out));
+        PriceSeries series = publish ? priceStore.replace(rows) : priceStore.snapshot();
+
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            fileKey = fileKey();
+            consumed = BinaryPriceFile.SourceMark.read(channel, channel.size());
+        }
+        try {
+            BinaryPriceFile.write(binaryPath, series, consumed);
+        } catch (IOException e) {
+            logger.warn("Could not write the binary price file {}: {}", binaryPath, e.getMessage());
+        }
+        return series;
+    }
+
+    /**
+     * @return the number of bytes of the file that have been parsed into the store.
+     */
+    public synchronized long getConsumedOffset() {
+        return consumed.getOffset();
+    }
+
+    /**
+     * Safety net for file systems where the watch service misses events.
+     */
+    public void pollPeriodically() {
+        if (started) {
+            poll();
+        }
+    }
+
+    public void stop() {
+        started = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Error closing the watch service: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watchLoop() {
+        Path fileName = csvPath.getFileName();
+        while (started) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            boolean relevant = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                    relevant = true;
+                }
+            }
+            if (relevant) {
+                poll();
+            }
+            if (!key.reset()) {
+                logger.warn("Stopped watching {}", csvPath.getParent());
+                return;
+            }
+        }
+    }
+
+    private void consumeAppended(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long offset = consumed.getOffset();
+        if (size <= offset) {
+            return;
+        }
+
+        byte[] appended = BinaryPriceFile.read(channel, offset, size);
+        int end = lastLineEnd(appended, 0);
+        if (end == 0) {
+            return; // Only a partial line so far
+        }
+
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        int added = HistoryCsvParser.parse(appended, 0, end, offset == 0, builder);
+        consumed = consumed.extend(appended, end);
+        if (added == 0) {
+            return;
+        }
+
+        PriceSeries series = priceStore.appendAll(builder);
+        logger.info("Ingested {} appended {} price entries (version {})",
+                added, priceStore.getMetal().getDisplayName(), series.getVersion());
+        try {
+            BinaryPriceFile.append(binaryPath, builder.build(0), consumed);
+        } catch (IOException e) {
+            // The mirror keeps its older mark, so the next reload parses these rows from the CSV again
+            logger.warn("Could not append to the binary price file {}: {}", binaryPath, e.getMessage());
+        }
+    }
+
+    private static boolean sameRows(PriceSeries a, PriceSeries b) {
+        int size = a.size();
+        return size == b.size()
+                && Arrays.equals(a.timestamps(), 0, size, b.timestamps(), 0, size)
+                && Arrays.equals(a.open(), 0, size, b.open(), 0, size)
+                && Arrays.equals(a.high(), 0, size, b.high(), 0, size)
+                && Arrays.equals(a.low(), 0, size, b.low(), 0, size)
+                && Arrays.equals(a.close(), 0, size, b.close(), 0, size);
+    }
+
+    private BinaryPriceFile openMatchingBinary(FileChannel channel) {
+        if (Files.notExists(binaryPath)) {
+            return null;
+        }
+        try {
+            BinaryPriceFile binary = BinaryPriceFile.open(binaryPath);
+            if (binary.getSource().getOffset() > 0 && binary.getSource().matches(channel)) {
+                return binary;
+            }
+            logger.info("Binary price file {} is out of date; parsing {}", binaryPath, csvPath);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable binary price file {}: {}", binaryPath, e.getMessage());
+        }
+        return null;
+    }
+
+    private Object fileKey() throws IOException {
+        return Files.readAttributes(csvPath, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * @return the offset just past the last line break at or after {@code from}, or {@code from} if there is none.
+     */
+    private static int lastLineEnd(byte[] data, int from) {
+        for (int i = data.length - 1; i >= from; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return from;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.example.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the last records of a CSV file by seeking from the end of the file and scanning
+ * backwards for line breaks, so the cost is proportional to the records returned rather
+ * than to the size of the file.
+ * <p>
+ * The first line of the file is treated as the header and never returned. Blank lines and
+ * records with fewer than the required number of fields are skipped.
+ */
+public final class CsvTailReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvTailReader.class);
+
+    private static final int BLOCK_SIZE = 8192;
+
+    private CsvTailReader() {
+    }
+
+    /**
+     * Returns up to {@code count} of the last valid records, oldest first.
+     *
+     * @param path      the CSV file.
+     * @param count     the maximum number of records to return.
+     * @param minFields records with fewer fields are skipped as malformed.
+     * @return the parsed records in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<String[]> readLastRecords(Path path, int count, int minFields) throws IOException {
+        List<String[]> records = new ArrayList<>(Math.max(0, Math.min(count, 1024)));
+        if (count <= 0) {
+            return records;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            // Bytes of the line that straddles the current block boundary, in file order
+            byte[] pending = new byte[0];
+            long position = channel.size();
+
+            while (position > 0 && records.size() < count) {
+                int blockLength = (int) Math.min(BLOCK_SIZE, position);
+                position -= blockLength;
+
+                buffer.clear().limit(blockLength);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                byte[] block = buffer.array();
+
+                int lineEnd = blockLength;
+                for (int i = blockLength - 1; i >= 0 && records.size() < count; i--) {
+                    if (block[i] == '\n') {
+                        acceptLine(concat(block, i + 1, lineEnd, pending), minFields, records);
+                        pending = new byte[0];
+                        lineEnd = i;
+                    }
+                }
+                pending = concat(block, 0, lineEnd, pending);
+            }
+            // Whatever is left at position 0 is the header line, which is never returned
+        }
+
+        Collections.reverse(records);
+        return records;
+    }
+
+    private static void acceptLine(byte[] bytes, int minFields, List<String[]> records) {
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        if (line.isBlank()) {
+            return;
+        }
+
+        String[] fields = HistoryCsv.splitLine(line);
+        if (fields.length < minFields) {
+            logger.warn("Skipping invalid CSV line: {}", line);
+            return;
+        }
+        records.add(fields);
+    }
+
+    private static byte[] concat(byte[] block, int from, int to, byte[] tail) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(to - from + tail.length);
+        out.write(block, from, to - from);
+        out.write(tail, 0, tail.length);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.store;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable running open/high/low/close of one metal's live price over one New York day.
+ * Each tick produces a new bar in constant time.
+ */
+public final class DailyBar {
+
+    private final LocalDate day;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final int ticks;
+
+    private DailyBar(LocalDate day, double open, double high, double low, double close, int ticks) {
+        this.day = day;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.ticks = ticks;
+    }
+
+    /**
+     * @return the bar of a day whose only tick so far is {@code price}.
+     */
+    public static DailyBar first(LocalDate day, double price) {
+        return new DailyBar(day, price, price, price, price, 1);
+    }
+
+    /**
+     * @return this bar extended by one more tick.
+     */
+    public DailyBar withTick(double price) {
+        return new DailyBar(day, open, Math.max(high, price), Math.min(low, price), price, ticks + 1);
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyBar{" +
+                "day=" + day +
+                ", open=" + open +
+                ", high=" + high +
+                ", low=" + low +
+                ", close=" + close +
+                ", ticks=" + ticks +
+                '}';
+    }
+}
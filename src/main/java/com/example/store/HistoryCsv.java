@@ -0,0 +1,137 @@
+package com.example.store;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shared constants and conversions for the historical price CSV files.
+ */
+public final class HistoryCsv {
+
+    // The bundled gold history, imported on first start
+    public static final String FILE_NAME = "historical_gold_spot_prices.csv";
+
+    public static final String[] HEADER = {
+            "Date",
+            "Open (Spot Price USD)",
+            "High (Spot Price USD)",
+            "Low (Spot Price USD)",
+            "Close (Spot Price USD)"
+    };
+
+    public static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    // Flexible DateTimeFormatter for the mixed date formats found in the file
+    public static final DateTimeFormatter FLEXIBLE_FORMATTER = new DateTimeFormatterBuilder()
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX"))
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+            .appendOptional(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))
+            .appendOptional(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
+            .toFormatter(Locale.ENGLISH)
+            .withResolverStyle(ResolverStyle.SMART);
+
+    private HistoryCsv() {
+    }
+
+    /**
+     * Parses a date cell in any of the formats used by the file.
+     *
+     * @param value the raw date cell.
+     * @return the parsed local date-time.
+     */
+    public static LocalDateTime parseDateTime(String value) {
+        return LocalDateTime.parse(value.trim(), FLEXIBLE_FORMATTER);
+    }
+
+    /**
+     * Encodes a row's local date-time as epoch seconds, reading the wall-clock value as UTC.
+     */
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Decodes a timestamp produced by {@link #toEpochSecond(LocalDateTime)}.
+     */
+    public static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Formats a timestamp the way the file writes its date column.
+     */
+    public static String formatDate(long epochSecond) {
+        return toDateTime(epochSecond).format(OUTPUT_FORMAT);
+    }
+
+    /**
+     * Formats a price without a trailing ".0" for whole numbers, matching the values in the file.
+     */
+    public static String formatPrice(double price) {
+        if (price == Math.rint(price) && Math.abs(price) < 1e15) {
+            return Long.toString((long) price);
+        }
+        return Double.toString(price);
+    }
+
+    /**
+     * Writes row {@code index} of the series as a line of the file, terminator included.
+     */
+    public static void writeRow(Writer writer, PriceSeries series, int index) throws IOException {
+        writer.write(formatDate(series.timestampAt(index)));
+        writer.write(',');
+        writer.write(formatPrice(series.openAt(index)));
+        writer.write(',');
+        writer.write(formatPrice(series.highAt(index)));
+        writer.write(',');
+        writer.write(formatPrice(series.lowAt(index)));
+        writer.write(',');
+        writer.write(formatPrice(series.closeAt(index)));
+        writer.write('\n');
+    }
+
+    /**
+     * Splits a single CSV line into trimmed fields, honouring double-quoted fields
+     * (which may contain commas) and doubled quotes inside them.
+     *
+     * @param line a CSV line without its line terminator.
+     * @return the fields of the line.
+     */
+    public static String[] splitLine(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+}
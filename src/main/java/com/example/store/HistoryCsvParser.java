@@ -0,0 +1,475 @@
+package com.example.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses raw bytes of the history CSV into {@link PriceSeries.Builder} rows.
+ * <p>
+ * Rows are decoded straight from the bytes: dates in the {@code dd-MM-yyyy HH:mm} and
+ * {@code yyyy-MM-dd HH:mm:ss} layouts become epoch seconds and prices become doubles without
+ * any intermediate {@code String}, so a row costs no allocation. Lines the fast path does not
+ * recognise, such as quoted fields, dates with an offset or out-of-range values, go through the
+ * general {@link #addRow(PriceSeries.Builder, String)}, which accepts everything
+ * {@link HistoryCsv#FLEXIBLE_FORMATTER} does. Either way a row parses to exactly what
+ * {@link HistoryCsv#parseDateTime} and {@link Double#parseDouble} make of it. Malformed rows
+ * are logged and skipped.
+ * <p>
+ * {@link #parseParallel} cuts large inputs into newline-aligned chunks parsed on the common
+ * fork-join pool. {@link #parseFile} additionally reads the region of a {@link CanonicalCsv}
+ * file at fixed offsets, without splitting or trimming fields.
+ */
+public final class HistoryCsvParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryCsvParser.class);
+
+    // Inputs smaller than this are parsed on the calling thread
+    static final int PARALLEL_CHUNK_BYTES = 1 << 20;
+
+    private static final int FIELDS = 5;
+    private static final long FAILED = Long.MIN_VALUE;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private HistoryCsvParser() {
+    }
+
+    /**
+     * Parses the complete lines in {@code data[from, to)} on the calling thread.
+     *
+     * @param data       the file bytes.
+     * @param from       offset of the first byte to parse; must be at the start of a line.
+     * @param to         offset just past the last byte to parse; should be just past a line break.
+     * @param skipHeader whether the first line in the range is the header row.
+     * @param builder    receives the parsed rows.
+     * @return the number of rows added.
+     */
+    public static int parse(byte[] data, int from, int to, boolean skipHeader, PriceSeries.Builder builder) {
+        return parse(data, from, to, skipHeader, false, builder);
+    }
+
+    private static int parse(byte[] data, int from, int to, boolean skipHeader, boolean canonical,
+                             PriceSeries.Builder builder) {
+        int[] bounds = new int[2 * FIELDS];
+        int added = 0;
+        int lineStart = from;
+        boolean header = skipHeader;
+        for (int i = from; i <= to; i++) {
+            if (i == to || data[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && data[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (header) {
+                    header = false;
+                } else if (lineEnd > lineStart
+                        && ((canonical && addCanonicalRow(builder, data, lineStart, lineEnd))
+                        || addRow(builder, data, lineStart, lineEnd, bounds))) {
+                    added++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Like {@link #parse}, but inputs of more than {@link #PARALLEL_CHUNK_BYTES} are split into
+     * newline-aligned chunks parsed concurrently on the common fork-join pool. The rows reach
+     * the builder in file order.
+     *
+     * @return the number of rows added.
+     */
+    public static int parseParallel(byte[] data, int from, int to, boolean skipHeader, PriceSeries.Builder builder) {
+        return parseParallel(data, from, to, skipHeader, false, builder);
+    }
+
+    /**
+     * Parses a whole history file, header included: the region of a {@link CanonicalCsv} file
+     * through the fixed-offset fast path and everything else as in {@link #parseParallel}.
+     *
+     * @param end offset just past the last byte to parse; should be just past a line break.
+     * @return the canonical region at the head of the file, or null if it is not canonical.
+     */
+    public static CanonicalCsv.Region parseFile(byte[] data, int end, PriceSeries.Builder builder) {
+        CanonicalCsv.Region region = CanonicalCsv.detect(data, end);
+        if (region == null) {
+            parseParallel(data, 0, end, true, false, builder);
+        } else {
+            parseParallel(data, region.getStart(), region.getEnd(), false, true, builder);
+            parseParallel(data, region.getEnd(), end, false, false, builder);
+        }
+        return region;
+    }
+
+    private static int parseParallel(byte[] data, int from, int to, boolean skipHeader, boolean canonical,
+                                     PriceSeries.Builder builder) {
+        int chunks = Math.min((to - from) / PARALLEL_CHUNK_BYTES, 4 * ForkJoinPool.getCommonPoolParallelism());
+        if (chunks <= 1) {
+            return parse(data, from, to, skipHeader, canonical, builder);
+        }
+
+        List<ForkJoinTask<PriceSeries.Builder>> tasks = new ArrayList<>(chunks);
+        int start = from;
+        for (int k = 1; k <= chunks && start < to; k++) {
+            int end = k == chunks ? to : nextLineStart(data, from + (int) ((long) (to - from) * k / chunks), to);
+            int chunkStart = start;
+            boolean header = skipHeader && chunkStart == from;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                PriceSeries.Builder chunk = new PriceSeries.Builder((end - chunkStart) / 32);
+                parse(data, chunkStart, end, header, canonical, chunk);
+                return chunk;
+            }));
+            start = end;
+        }
+
+        int added = 0;
+        for (ForkJoinTask<PriceSeries.Builder> task : tasks) {
+            PriceSeries.Builder chunk = task.join();
+            builder.addAll(chunk);
+            added += chunk.size();
+        }
+        return added;
+    }
+
+    /**
+     * Parses a single data line and adds it to the builder.
+     *
+     * @return true if the row was valid and added.
+     */
+    public static boolean addRow(PriceSeries.Builder builder, String line) {
+        try {
+            String[] values = HistoryCsv.splitLine(line);
+            if (values[0].isEmpty()) {
+                logger.warn("Skipping row with empty date: {}", line);
+                return false;
+            }
+            long timestamp = HistoryCsv.toEpochSecond(HistoryCsv.parseDateTime(values[0]));
+
+            if (values.length >= 5) {
+                builder.add(timestamp,
+                        parseOrZero(values[1]),
+                        parseOrZero(values[2]),
+                        parseOrZero(values[3]),
+                        Double.parseDouble(values[4]));
+                return true;
+            }
+
+            // Short rows carry only a price; use the last non-empty value as the close
+            for (int i = values.length - 1; i > 0; i--) {
+                if (!values[i].isEmpty()) {
+                    builder.add(timestamp, 0, 0, 0, Double.parseDouble(values[i]));
+                    return true;
+                }
+            }
+            logger.warn("Skipping row without a price: {}", line);
+        } catch (Exception e) {
+            logger.warn("Skipping invalid row: {} Error: {}", line, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Adds the line {@code data[start, end)} through the fast path, or through
+     * {@link #addRow(PriceSeries.Builder, String)} when the fast path cannot decode it.
+     */
+    private static boolean addRow(PriceSeries.Builder builder, byte[] data, int start, int end, int[] bounds) {
+        int fields = splitFields(data, start, end, bounds);
+        if (fields == 0) {
+            return false; // Blank line
+        }
+        if (fields > 0 && bounds[1] > bounds[0]) {
+            long timestamp = parseTimestamp(data, bounds[0], bounds[1]);
+            if (timestamp != FAILED) {
+                if (fields >= FIELDS) {
+                    double open = parseOrZero(data, bounds[2], bounds[3]);
+                    double high = parseOrZero(data, bounds[4], bounds[5]);
+                    double low = parseOrZero(data, bounds[6], bounds[7]);
+                    double close = parseDouble(data, bounds[8], bounds[9]);
+                    if (!Double.isNaN(open) && !Double.isNaN(high) && !Double.isNaN(low) && !Double.isNaN(close)) {
+                        builder.add(timestamp, open, high, low, close);
+                        return true;
+                    }
+                } else {
+                    // Short rows carry only a price; use the last non-empty value as the close
+                    for (int i = fields - 1; i > 0; i--) {
+                        if (bounds[2 * i + 1] > bounds[2 * i]) {
+                            double close = parseDouble(data, bounds[2 * i], bounds[2 * i + 1]);
+                            if (!Double.isNaN(close)) {
+                                builder.add(timestamp, 0, 0, 0, close);
+                                return true;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return addRow(builder, new String(data, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a canonical row, {@code dd-MM-yyyy HH:mm,open,high,low,close}, at fixed offsets.
+     *
+     * @return false, adding nothing, if the line is not in that exact form.
+     */
+    private static boolean addCanonicalRow(PriceSeries.Builder builder, byte[] data, int start, int end) {
+        if (end - start < 25 || data[start + 16] != ',') {
+            return false;
+        }
+        long timestamp = parseTimestamp(data, start, start + 16);
+        int openEnd = indexOf(data, ',', start + 17, end);
+        int highEnd = indexOf(data, ',', openEnd + 1, end);
+        int lowEnd = indexOf(data, ',', highEnd + 1, end);
+        if (timestamp == FAILED || lowEnd == end) {
+            return false;
+        }
+        double open = parseDouble(data, start + 17, openEnd);
+        double high = parseDouble(data, openEnd + 1, highEnd);
+        double low = parseDouble(data, highEnd + 1, lowEnd);
+        double close = parseDouble(data, lowEnd + 1, end);
+        if (Double.isNaN(open) || Double.isNaN(high) || Double.isNaN(low) || Double.isNaN(close)) {
+            return false;
+        }
+        builder.add(timestamp, open, high, low, close);
+        return true;
+    }
+
+    /**
+     * Records the trimmed bounds of the first {@value #FIELDS} comma-separated fields of
+     * {@code data[start, end)} as start/end pairs.
+     *
+     * @return the number of fields, 0 for a blank line, or -1 if the line contains quotes or
+     * non-ASCII bytes and needs the general parser.
+     */
+    static int splitFields(byte[] data, int start, int end, int[] bounds) {
+        int fields = 0;
+        int fieldStart = start;
+        boolean blank = true;
+        for (int i = start; i <= end; i++) {
+            byte b = i == end ? (byte) ',' : data[i];
+            if (b == ',') {
+                if (fields < FIELDS) {
+                    int s = fieldStart;
+                    int e = i;
+                    while (s < e && data[s] <= ' ') {
+                        s++;
+                    }
+                    while (e > s && data[e - 1] <= ' ') {
+                        e--;
+                    }
+                    bounds[2 * fields] = s;
+                    bounds[2 * fields + 1] = e;
+                }
+                fields++;
+                fieldStart = i + 1;
+            } else if (b == '"' || b < 0) {
+                return -1;
+            } else if (b > ' ') {
+                blank = false;
+            }
+        }
+        return blank && fields == 1 ? 0 : fields;
+    }
+
+    /**
+     * Decodes {@code dd-MM-yyyy HH:mm} or {@code yyyy-MM-dd HH:mm:ss} into epoch seconds, as
+     * {@link HistoryCsv#parseDateTime} and {@link HistoryCsv#toEpochSecond} would. Anything else,
+     * including what that formatter resolves leniently such as {@code 24:00} or 31 February, is
+     * left to it.
+     *
+     * @return the timestamp, or {@link Long#MIN_VALUE} if the field is in another layout or out of range.
+     */
+    static long parseTimestamp(byte[] data, int start, int end) {
+        int length = end - start;
+        int year;
+        int month;
+        int day;
+        int time; // Offset of HH:mm
+        boolean seconds;
+        if (length == 16 && data[start + 2] == '-' && data[start + 5] == '-' && data[start + 10] == ' ') {
+            day = digits(data, start, 2);
+            month = digits(data, start + 3, 2);
+            year = digits(data, start + 6, 4);
+            time = start + 11;
+            seconds = false;
+        } else if (length == 19 && data[start + 4] == '-' && data[start + 7] == '-' && data[start + 10] == ' ') {
+            year = digits(data, start, 4);
+            month = digits(data, start + 5, 2);
+            day = digits(data, start + 8, 2);
+            time = start + 11;
+            seconds = true;
+        } else {
+            return FAILED;
+        }
+
+        int hour = digits(data, time, 2);
+        int minute = digits(data, time + 3, 2);
+        int second = seconds ? digits(data, time + 6, 2) : 0;
+        if (data[time + 2] != ':' || (seconds && data[time + 5] != ':')
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return FAILED;
+        }
+        // The formatter reads the year as a year of the era, which starts at 1
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return FAILED;
+        }
+        return epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+    }
+
+    /**
+     * Decodes a plain decimal, optionally signed and with an exponent, when it can be converted
+     * exactly: at most 18 significant digits forming a mantissa below 2^53, scaled by at most
+     * 10^22. The result is then the correctly rounded value, identical to {@link Double#parseDouble}.
+     *
+     * @return the value, or NaN if the field needs {@link Double#parseDouble}.
+     */
+    static double parseDouble(byte[] data, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (data[i] == '-' || data[i] == '+')) {
+            negative = data[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            byte b = data[i];
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (mantissa == 0 && b == '0') {
+                    if (point) {
+                        scale--;
+                    }
+                    continue; // Leading zeros are not significant
+                }
+                if (++digits > 18) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    scale--;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+
+        if (i < end && (data[i] == 'e' || data[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (data[i] == '-' || data[i] == '+')) {
+                negativeExponent = data[i] == '-';
+                i++;
+            }
+            int exponent = 0;
+            int exponentStart = i;
+            for (; i < end && data[i] >= '0' && data[i] <= '9' && exponent < 1000; i++) {
+                exponent = exponent * 10 + (data[i] - '0');
+            }
+            if (i == exponentStart) {
+                return Double.NaN;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != end || mantissa >= 1L << 53) {
+            return Double.NaN;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+
+    private static double parseOrZero(byte[] data, int start, int end) {
+        return start == end ? 0 : parseDouble(data, start, end);
+    }
+
+    private static double parseOrZero(String value) {
+        return value.isEmpty() ? 0 : Double.parseDouble(value);
+    }
+
+    /**
+     * @return the decimal value of {@code count} ASCII digits, or -1 if any byte is not a digit.
+     */
+    private static int digits(byte[] data, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (Howard Hinnant's days_from_civil).
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * @return the offset of the first {@code b} in {@code data[from, to)}, or {@code to} if there is none.
+     */
+    private static int indexOf(byte[] data, char b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return the offset just past the first line break at or after {@code from}, or {@code to} if there is none.
+     */
+    private static int nextLineStart(byte[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+}
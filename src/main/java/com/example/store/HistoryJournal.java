@@ -0,0 +1,498 @@
+package com.example.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Append-only writer of one metal's history CSV. The channel stays open, and concurrent
+ * appends are group-committed: the first caller to take the commit lock writes every record
+ * queued so far in one write (and one fsync), while the callers that queued behind it simply
+ * wait for that commit instead of each issuing their own.
+ * <p>
+ * {@link #recover()} runs before the file is loaded and repairs what a crash or an earlier
+ * writer left behind: a torn last line is cut off, rows dated the same day as a later row
+ * are dropped (the later one wins), and rows that merely repeat the previous day's
+ * open/high/low/close, as written when the market was closed, are dropped too. The verified
+ * region of a {@link CanonicalCsv} file is already in that form; only the rows after it are checked.
+ * <p>
+ * {@link #replace} swaps in a whole new file, such as a compacted one, atomically.
+ */
+public final class HistoryJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryJournal.class);
+
+    /**
+     * When appended records are forced to the storage device.
+     */
+    public enum FsyncPolicy {
+        /** Every group commit is forced before its callers return. */
+        COMMIT,
+        /** Commits are forced by {@link #sync()}, called periodically. */
+        INTERVAL,
+        /** Left to the operating system. */
+        NONE;
+
+        /**
+         * @return the policy named {@code code} (case-insensitive), or null if unknown.
+         */
+        public static FsyncPolicy fromCode(String code) {
+            for (FsyncPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(code)) {
+                    return policy;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Opens the channel records are appended to.
+     */
+    @FunctionalInterface
+    interface ChannelOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private static final long NOT_A_ROW = Long.MIN_VALUE;
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final ChannelOpener opener;
+    private final ConcurrentLinkedQueue<PendingAppend> pending = new ConcurrentLinkedQueue<>();
+    private final Object commitLock = new Object();
+    private FileChannel channel; // Guarded by commitLock
+    private boolean dirty; // Written but not forced; guarded by commitLock
+
+    public HistoryJournal(Path path, FsyncPolicy fsyncPolicy) {
+        this(path, fsyncPolicy, file -> FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * Lets tests substitute a channel that fails part way through a write.
+     */
+    HistoryJournal(Path path, FsyncPolicy fsyncPolicy, ChannelOpener opener) {
+        this.path = path.toAbsolutePath().normalize();
+        this.fsyncPolicy = fsyncPolicy;
+        this.opener = opener;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Appends one CSV line and returns once it is written, and forced when the policy is
+     * {@link FsyncPolicy#COMMIT}.
+     *
+     * @param line the record without a line terminator.
+     * @throws IOException if the commit containing the line failed; nothing of it was kept.
+     */
+    public void append(String line) throws IOException {
+        PendingAppend append = new PendingAppend((line + "\n").getBytes(StandardCharsets.UTF_8));
+        pending.add(append);
+        synchronized (commitLock) {
+            if (!append.done) {
+                commit();
+            }
+        }
+        if (append.failure != null) {
+            throw new IOException("Could not append to " + path + ": " + append.failure.getMessage(), append.failure);
+        }
+    }
+
+    /**
+     * Writes every queued record in one batch. Called with the commit lock held.
+     */
+    private void commit() {
+        List<PendingAppend> batch = new ArrayList<>();
+        int bytes = 0;
+        for (PendingAppend append; (append = pending.poll()) != null; ) {
+            batch.add(append);
+            bytes += append.record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        for (PendingAppend append : batch) {
+            buffer.put(append.record);
+        }
+        buffer.flip();
+
+        IOException failure = null;
+        long start = -1;
+        try {
+            FileChannel channel = channel();
+            start = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsyncPolicy == FsyncPolicy.COMMIT) {
+                channel.force(false);
+            } else if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            failure = e;
+            rollBack(start);
+        }
+        for (PendingAppend append : batch) {
+            append.failure = failure;
+            append.done = true;
+        }
+        if (batch.size() > 1) {
+            logger.debug("Group-committed {} records to {}", batch.size(), path);
+        }
+    }
+
+    /**
+     * Cuts off whatever part of a failed batch reached the file, so no torn line is left behind.
+     */
+    private void rollBack(long start) {
+        if (start < 0 || channel == null) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+        } catch (IOException e) {
+            logger.warn("Could not roll back a failed append to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Forces committed records to the storage device if any were written since the last call.
+     * Does nothing unless the policy is {@link FsyncPolicy#INTERVAL}.
+     */
+    public void sync() {
+        synchronized (commitLock) {
+            if (!dirty || channel == null) {
+                return;
+            }
+            try {
+                channel.force(false);
+                dirty = false;
+            } catch (IOException e) {
+                logger.warn("Could not sync {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Repairs the file before it is loaded; see the class comment. The file is rewritten, through
+     * a temporary file and an atomic rename, only if something had to be removed.
+     *
+     * @return the number of lines removed.
+     */
+    public int recover() throws IOException {
+        synchronized (commitLock) {
+            if (Files.notExists(path)) {
+                return 0;
+            }
+            closeChannel();
+
+            byte[] content = Files.readAllBytes(path);
+            // A canonical region is sorted and deduplicated already; only its last row takes part,
+            // as the day before any rows appended since
+            CanonicalCsv.Region region = CanonicalCsv.detect(content, content.length);
+            int from = region == null ? 0 : lastLineStart(content, region.getStart(), region.getEnd());
+            Rows rows = Rows.parse(content, from);
+            int repaired = 0;
+
+            // Every record is written with its terminator, so an unterminated last line is a partial
+            // one even when it still parses, as a close cut short after a digit would
+            boolean terminated = content.length == 0 || content[content.length - 1] == '\n';
+            if (!terminated && rows.size > 0) {
+                logger.warn("Removed a torn last line from {}: {}", path, rows.line(rows.size - 1));
+                rows.size--;
+                repaired++;
+            }
+
+            boolean[] kept = rows.deduplicate();
+            int removed = 0;
+            for (int i = 0; i < rows.size; i++) {
+                if (!kept[i]) {
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                logger.warn("Removed {} duplicate day rows from {}", removed, path);
+            }
+            if (repaired + removed == 0) {
+                return 0;
+            }
+            replace(out -> {
+                out.write(content, 0, from);
+                for (int i = 0; i < rows.size; i++) {
+                    if (kept[i]) {
+                        out.write(content, rows.starts[i], rows.ends[i] - rows.starts[i]);
+                        out.write('\n');
+                    }
+                }
+            });
+            return repaired + removed;
+        }
+    }
+
+    /**
+     * Writes the content of a replacement file.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Work to run while appends are held off; see {@link #exclusively(Action)}.
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs {@code action} with the commit lock held, so that nothing is appended meanwhile:
+     * a caller can read the file, derive new content from it and {@link #replace} it without
+     * losing an append made in between. Appends wait and then go to the end of the new file.
+     */
+    public <T> T exclusively(Action<T> action) throws IOException {
+        synchronized (commitLock) {
+            return action.run();
+        }
+    }
+
+    /**
+     * Replaces the whole file through a temporary file, forced to disk, and an atomic rename,
+     * so that readers see either the old or the new file and never a partial one.
+     */
+    public void replace(Content content) throws IOException {
+        synchronized (commitLock) {
+            closeChannel();
+            Path temporary = path.resolveSibling(path.getFileName() + ".rewrite");
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16);
+                content.writeTo(stream);
+                stream.flush();
+                out.force(true);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (commitLock) {
+            sync();
+            closeChannel();
+        }
+    }
+
+    /**
+     * @return the offset of the last line in {@code content[start, end)}, or {@code end} if it is empty.
+     */
+    private static int lastLineStart(byte[] content, int start, int end) {
+        for (int i = end - 2; i >= start; i--) {
+            if (content[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return start < end ? start : end;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close {}: {}", path, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = opener.open(path);
+        }
+        return channel;
+    }
+
+    /**
+     * The lines of the file with the day and prices of each complete data row, decoded from
+     * the bytes in place. Lines that are not rows, such as the header, blank or torn lines,
+     * have the day {@link #NOT_A_ROW}.
+     */
+    private static final class Rows {
+
+        private final byte[] content;
+        private final int[] starts;
+        private final int[] ends; // Line terminators excluded
+        private final long[] days; // Epoch day
+        private final double[] prices; // Open, high, low and close of each line
+        private int size;
+
+        private Rows(byte[] content, int capacity) {
+            this.content = content;
+            starts = new int[capacity];
+            ends = new int[capacity];
+            days = new long[capacity];
+            prices = new double[4 * capacity];
+        }
+
+        static Rows parse(byte[] content, int from) {
+            int capacity = 0;
+            for (int i = from; i < content.length; i++) {
+                if (content[i] == '\n') {
+                    capacity++;
+                }
+            }
+            Rows rows = new Rows(content, capacity + 1);
+            int[] bounds = new int[10];
+            int lineStart = from;
+            for (int i = from; i <= content.length; i++) {
+                if (i == content.length ? lineStart < i : content[i] == '\n') {
+                    int lineEnd = i > lineStart && content[i - 1] == '\r' ? i - 1 : i;
+                    rows.starts[rows.size] = lineStart;
+                    rows.ends[rows.size] = lineEnd;
+                    rows.days[rows.size] = rows.parseRow(lineStart, lineEnd, bounds, 4 * rows.size);
+                    rows.size++;
+                    lineStart = i + 1;
+                }
+            }
+            return rows;
+        }
+
+        String line(int index) {
+            return new String(content, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Keeps the last row of each day, and drops a row repeating the previous kept row's prices.
+         * Lines that are not rows are kept as they are.
+         *
+         * @return whether each line is kept.
+         */
+        boolean[] deduplicate() {
+            boolean[] kept = new boolean[size];
+            Arrays.fill(kept, true);
+
+            // A sorted file only needs to look at the next row; otherwise remember the last row of each day
+            Map<Long, Integer> lastOfDay = null;
+            long previousDay = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (days[i] != NOT_A_ROW) {
+                    if (days[i] < previousDay) {
+                        lastOfDay = new HashMap<>();
+                        break;
+                    }
+                    previousDay = days[i];
+                }
+            }
+            int previousRow = -1;
+            for (int i = 0; i < size; i++) {
+                if (days[i] == NOT_A_ROW) {
+                    continue;
+                }
+                if (lastOfDay != null) {
+                    lastOfDay.put(days[i], i);
+                } else if (previousRow >= 0 && days[previousRow] == days[i]) {
+                    kept[previousRow] = false;
+                }
+                previousRow = i;
+            }
+
+            int previous = -1;
+            for (int i = 0; i < size; i++) {
+                if (days[i] == NOT_A_ROW || !kept[i]) {
+                    continue;
+                }
+                if (lastOfDay != null && lastOfDay.get(days[i]) != i) {
+                    kept[i] = false;
+                } else if (previous >= 0 && days[i] > days[previous] && samePrices(i, previous)) {
+                    kept[i] = false;
+                } else {
+                    previous = i;
+                }
+            }
+            return kept;
+        }
+
+        private boolean samePrices(int a, int b) {
+            for (int k = 0; k < 4; k++) {
+                if (Double.compare(prices[4 * a + k], prices[4 * b + k]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Decodes a row with five fields straight from the bytes, falling back to the general
+         * CSV and date parsing for quoted fields or unusual layouts.
+         *
+         * @return the epoch day of the row, or {@link #NOT_A_ROW}.
+         */
+        private long parseRow(int start, int end, int[] bounds, int offset) {
+            int fields = HistoryCsvParser.splitFields(content, start, end, bounds);
+            if (fields >= 0 && fields < 5) {
+                return NOT_A_ROW;
+            }
+            if (fields >= 5) {
+                long timestamp = HistoryCsvParser.parseTimestamp(content, bounds[0], bounds[1]);
+                boolean valid = timestamp != Long.MIN_VALUE;
+                for (int k = 0; k < 4 && valid; k++) {
+                    prices[offset + k] = HistoryCsvParser.parseDouble(content, bounds[2 * k + 2], bounds[2 * k + 3]);
+                    valid = !Double.isNaN(prices[offset + k]);
+                }
+                if (valid) {
+                    return Math.floorDiv(timestamp, 86400);
+                }
+            }
+
+            String[] values = HistoryCsv.splitLine(new String(content, start, end - start, StandardCharsets.UTF_8));
+            if (values.length < 5) {
+                return NOT_A_ROW;
+            }
+            try {
+                long day = HistoryCsv.parseDateTime(values[0]).toLocalDate().toEpochDay();
+                for (int k = 0; k < 4; k++) {
+                    prices[offset + k] = Double.parseDouble(values[k + 1]);
+                }
+                return day;
+            } catch (RuntimeException e) {
+                return NOT_A_ROW;
+            }
+        }
+    }
+
+    private static final class PendingAppend {
+
+        private final byte[] record;
+        private boolean done; // Guarded by commitLock
+        private IOException failure; // Written before done under commitLock
+
+        PendingAppend(byte[] record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.store;
+
+/**
+ * Merges a batch of uploaded rows into a metal's history, one row per day, last writer wins:
+ * of the batch rows of a day the one with the latest time of day is kept, ties going to the
+ * row uploaded last, and it replaces every existing row of its day. The batch is sorted by
+ * timestamp, not upload order, so a row uploaded after another of the same day but dated
+ * earlier in it does not win. Both inputs are sorted, so the merge is a single linear pass.
+ * <p>
+ * Like {@link HistoryJournal#recover()}, a row repeating the previous day's open/high/low/close
+ * is dropped, so the merged file is already in the form a restart would leave it in. That
+ * includes an existing row that comes to repeat a day the batch added or replaced.
+ */
+public final class HistoryMerge {
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final PriceSeries.Builder rows;
+    private final int received;
+    private final int superseded;
+    private final int added;
+    private final int replaced;
+    private final int unchanged;
+    private final int repeated;
+
+    private HistoryMerge(PriceSeries.Builder rows, int received, int superseded, int added, int replaced,
+                         int unchanged, int repeated) {
+        this.rows = rows;
+        this.received = received;
+        this.superseded = superseded;
+        this.added = added;
+        this.replaced = replaced;
+        this.unchanged = unchanged;
+        this.repeated = repeated;
+    }
+
+    /**
+     * @param base  the current history.
+     * @param batch the uploaded rows, sorted by timestamp with rows sharing one in upload order.
+     * @return the merged rows and what happened to the batch.
+     */
+    public static HistoryMerge of(PriceSeries base, PriceSeries batch) {
+        Output out = new Output(base.size() + batch.size());
+        int superseded = 0;
+        int added = 0;
+        int replaced = 0;
+        int unchanged = 0;
+        int repeated = 0;
+
+        int i = 0;
+        int j = 0;
+        while (j < batch.size()) {
+            long day = dayOf(batch.timestamps()[j]);
+            // The last batch row of the day wins over earlier ones
+            int last = j;
+            while (last + 1 < batch.size() && dayOf(batch.timestamps()[last + 1]) == day) {
+                last++;
+            }
+            superseded += last - j;
+
+            while (i < base.size() && dayOf(base.timestamps()[i]) < day) {
+                if (!out.add(base, i++)) {
+                    repeated++;
+                }
+            }
+            int existing = 0;
+            boolean same = false;
+            while (i < base.size() && dayOf(base.timestamps()[i]) == day) {
+                same = sameRow(base, i, batch, last);
+                existing++;
+                i++;
+            }
+            boolean kept = out.add(batch, last);
+            if (existing == 0) {
+                if (kept) {
+                    added++;
+                } else {
+                    repeated++;
+                }
+            } else if (existing == 1 && same) {
+                unchanged++;
+            } else {
+                replaced++;
+            }
+            j = last + 1;
+        }
+        while (i < base.size()) {
+            if (!out.add(base, i++)) {
+                repeated++;
+            }
+        }
+        return new HistoryMerge(out.rows, batch.size(), superseded, added, replaced, unchanged, repeated);
+    }
+
+    /**
+     * @return the merged history, sorted by timestamp.
+     */
+    public PriceSeries.Builder getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the number of valid rows in the batch.
+     */
+    public int getReceived() {
+        return received;
+    }
+
+    /**
+     * @return the number of batch rows overridden by a later batch row of the same day.
+     */
+    public int getSuperseded() {
+        return superseded;
+    }
+
+    /**
+     * @return the number of days that were not in the history before.
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    /**
+     * @return the number of days whose row was replaced by different values.
+     */
+    public int getReplaced() {
+        return replaced;
+    }
+
+    /**
+     * @return the number of days whose existing row already matched the batch.
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return the number of days dropped for repeating the previous day's prices: new days of
+     * the batch, and existing days that repeat a day the batch added or replaced.
+     */
+    public int getRepeated() {
+        return repeated;
+    }
+
+    /**
+     * @return whether the merged history differs from the base.
+     */
+    public boolean isChanged() {
+        return added + replaced > 0;
+    }
+
+    private static boolean sameRow(PriceSeries a, int i, PriceSeries b, int j) {
+        return a.timestamps()[i] == b.timestamps()[j]
+                && a.open()[i] == b.open()[j]
+                && a.high()[i] == b.high()[j]
+                && a.low()[i] == b.low()[j]
+                && a.close()[i] == b.close()[j];
+    }
+
+    private static long dayOf(long timestamp) {
+        return Math.floorDiv(timestamp, SECONDS_PER_DAY);
+    }
+
+    /**
+     * Collects the merged rows, dropping a row that repeats the previous kept day's prices.
+     */
+    private static final class Output {
+
+        private final PriceSeries.Builder rows;
+        private PriceSeries previous;
+        private int previousIndex;
+
+        Output(int capacity) {
+            rows = new PriceSeries.Builder(capacity);
+        }
+
+        boolean add(PriceSeries from, int index) {
+            if (previous != null && dayOf(from.timestamps()[index]) > dayOf(previous.timestamps()[previousIndex])
+                    && from.open()[index] == previous.open()[previousIndex]
+                    && from.high()[index] == previous.high()[previousIndex]
+                    && from.low()[index] == previous.low()[previousIndex]
+                    && from.close()[index] == previous.close()[previousIndex]) {
+                return false;
+            }
+            rows.add(from.timestamps()[index], from.open()[index], from.high()[index], from.low()[index], from.close()[index]);
+            previous = from;
+            previousIndex = index;
+            return true;
+        }
+    }
+}
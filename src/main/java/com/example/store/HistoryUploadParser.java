@@ -0,0 +1,182 @@
+package com.example.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses an uploaded batch of history rows, CSV or NDJSON, while it is still being received:
+ * the stream is cut into newline-aligned chunks, and each chunk is parsed on the common
+ * fork-join pool as soon as it is read. The chunks' rows are concatenated in upload order and
+ * sorted stably, so later rows of the same timestamp still come later.
+ * <p>
+ * CSV rows use the layout of the history file, with or without its header. NDJSON rows are
+ * objects with a {@code timestamp} or {@code date}, optional {@code open}, {@code high} and
+ * {@code low}, and a {@code close} or {@code price}; the output of {@code /history/stream}
+ * can be uploaded as it is. Malformed rows are logged and skipped.
+ */
+public final class HistoryUploadParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryUploadParser.class);
+
+    /**
+     * Encoding of an upload.
+     */
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * @return the format named {@code code} (case-insensitive), or null if unknown.
+         */
+        public static Format fromCode(String code) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(code)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int chunkBytes;
+
+    /**
+     * @param chunkBytes approximate number of bytes parsed per task.
+     */
+    public HistoryUploadParser(ObjectMapper objectMapper, int chunkBytes) {
+        this.objectMapper = objectMapper;
+        this.chunkBytes = Math.max(4096, chunkBytes);
+    }
+
+    /**
+     * Reads the stream to its end and parses every row.
+     *
+     * @return the valid rows, sorted by timestamp.
+     * @throws IOException if the stream could not be read.
+     */
+    public PriceSeries parse(InputStream in, Format format) throws IOException {
+        List<ForkJoinTask<PriceSeries.Builder>> tasks = new ArrayList<>();
+        byte[] carry = new byte[0];
+        boolean first = true;
+        try {
+            while (true) {
+                byte[] chunk = Arrays.copyOf(carry, carry.length + chunkBytes);
+                int length = carry.length + in.readNBytes(chunk, carry.length, chunkBytes);
+                boolean last = length < chunk.length;
+                int end = last ? length : lastLineEnd(chunk, length);
+                if (end == 0 && !last) {
+                    // A line longer than the chunk; keep reading until it ends
+                    carry = Arrays.copyOf(chunk, length);
+                    continue;
+                }
+                carry = Arrays.copyOfRange(chunk, end, length);
+
+                boolean skipHeader = first && format == Format.CSV && startsWithHeader(chunk, end);
+                tasks.add(ForkJoinPool.commonPool().submit(() -> parseChunk(chunk, end, format, skipHeader)));
+                first = false;
+                if (last) {
+                    break;
+                }
+            }
+
+            PriceSeries.Builder rows = new PriceSeries.Builder(Math.max(16, tasks.size() * (chunkBytes / 48)));
+            for (ForkJoinTask<PriceSeries.Builder> task : tasks) {
+                rows.addAll(task.join());
+            }
+            logger.info("Parsed {} uploaded {} rows in {} chunks", rows.size(), format, tasks.size());
+            return rows.build(0);
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+    }
+
+    private PriceSeries.Builder parseChunk(byte[] data, int end, Format format, boolean skipHeader) {
+        PriceSeries.Builder builder = new PriceSeries.Builder(end / 48);
+        if (format == Format.CSV) {
+            HistoryCsvParser.parse(data, 0, end, skipHeader, builder);
+            return builder;
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i == end || data[i] == '\n') {
+                if (i > lineStart) {
+                    addJsonRow(builder, data, lineStart, i - lineStart);
+                }
+                lineStart = i + 1;
+            }
+        }
+        return builder;
+    }
+
+    private void addJsonRow(PriceSeries.Builder builder, byte[] data, int offset, int length) {
+        try {
+            JsonNode row = objectMapper.readTree(data, offset, length);
+            if (row == null || row.isMissingNode()) {
+                return; // Blank line
+            }
+            JsonNode date = row.has("timestamp") ? row.get("timestamp") : row.get("date");
+            JsonNode close = row.has("close") ? row.get("close") : row.get("price");
+            if (date == null || !date.isTextual() || close == null || !close.isNumber()) {
+                logger.warn("Skipping row without a date and price: {}", row);
+                return;
+            }
+            builder.add(HistoryCsv.toEpochSecond(parseDate(date.asText())),
+                    row.path("open").asDouble(), row.path("high").asDouble(), row.path("low").asDouble(),
+                    close.asDouble());
+        } catch (Exception e) {
+            logger.warn("Skipping invalid row: {} Error: {}",
+                    new String(data, offset, length, StandardCharsets.UTF_8), e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts the ISO form written by {@code /history/stream} as well as the formats of the file.
+     */
+    private static LocalDateTime parseDate(String value) {
+        if (value.length() > 10 && value.charAt(10) == 'T') {
+            return LocalDateTime.parse(value, DateTimeFormatter.ISO_DATE_TIME);
+        }
+        return HistoryCsv.parseDateTime(value);
+    }
+
+    /**
+     * @return whether the first line is a header, i.e. its first field does not start with a digit.
+     */
+    private static boolean startsWithHeader(byte[] data, int end) {
+        for (int i = 0; i < end; i++) {
+            byte b = data[i];
+            if (b == '"' || b == ' ' || b == '\t' || b == (byte) 0xEF || b == (byte) 0xBB || b == (byte) 0xBF) {
+                continue; // Quotes, blanks and a byte order mark
+            }
+            return b < '0' || b > '9';
+        }
+        return false;
+    }
+
+    /**
+     * @return the offset just past the last line break in {@code data[0, length)}, or 0 if there is none.
+     */
+    private static int lastLineEnd(byte[] data, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
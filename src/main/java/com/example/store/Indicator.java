@@ -0,0 +1,300 @@
+package com.example.store;
+
+import java.util.Arrays;
+
+/**
+ * Streaming calculator for one (indicator, window) pair over the close prices of a
+ * {@link PriceSeries}. The first pass is a single scan; after that each appended row costs O(1).
+ * <p>
+ * Calculation methods are synchronized and meant to be driven by the store's listener thread;
+ * readers only call {@link #values()}, which returns the last published immutable snapshot.
+ */
+public abstract class Indicator {
+
+    private final IndicatorType type;
+    protected final int window;
+
+    private double[][] columns;
+    private int size;
+    private long version = -1;
+    private volatile IndicatorValues published;
+
+    protected Indicator(IndicatorType type, int window) {
+        this.type = type;
+        this.window = window;
+        this.columns = new double[type.columnCount()][0];
+        this.published = new IndicatorValues(type, window, columns, 0, -1);
+    }
+
+    /**
+     * Creates a calculator for the given indicator.
+     *
+     * @param window the look-back period; for MACD, the signal period.
+     */
+    public static Indicator create(IndicatorType type, int window) {
+        return switch (type) {
+            case SMA -> new Sma(window);
+            case EMA -> new Ema(window);
+            case RSI -> new Rsi(window);
+            case BOLLINGER -> new Bollinger(window);
+            case MACD -> new Macd(window);
+        };
+    }
+
+    public IndicatorType getType() {
+        return type;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the latest published values; never null.
+     */
+    public IndicatorValues values() {
+        return published;
+    }
+
+    /**
+     * Brings the values up to date with the given series. When the series is the direct
+     * append-only successor of the last one seen, only the new rows are processed; anything
+     * else triggers a full recomputation. A series older than the last one seen is ignored, so
+     * a caller holding a stale snapshot cannot roll the values back.
+     *
+     * @param appended whether the series was produced by appending rows to its predecessor.
+     */
+    public synchronized void update(PriceSeries series, boolean appended) {
+        if (series.getVersion() <= version) {
+            return;
+        }
+        if (!appended || series.getVersion() != version + 1 || series.size() < size) {
+            reset();
+            size = 0;
+            columns = new double[columns.length][series.size()];
+        }
+
+        if (columns[0].length < series.size()) {
+            // Older snapshots never read past their size, so growing by copy keeps them valid
+            int capacity = Math.max(series.size(), size + (size >> 1) + 16);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], capacity);
+            }
+        }
+
+        double[] row = new double[columns.length];
+        for (int i = size; i < series.size(); i++) {
+            Arrays.fill(row, Double.NaN);
+            compute(series, i, row);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c][i] = row[c];
+            }
+        }
+        size = series.size();
+        version = series.getVersion();
+        published = new IndicatorValues(type, window, columns.clone(), size, version);
+    }
+
+    /**
+     * Clears the running state before a full recomputation.
+     */
+    protected abstract void reset();
+
+    /**
+     * Consumes row {@code i} and writes this row's values into {@code out}, leaving
+     * {@link Double#NaN} during the warm-up period.
+     */
+    protected abstract void compute(PriceSeries series, int i, double[] out);
+
+    /**
+     * Exponential moving average seeded with the simple average of its first {@code period} inputs.
+     */
+    static final class EmaState {
+
+        private final int period;
+        private final double alpha;
+        private int count;
+        private double sum;
+        private double value = Double.NaN;
+
+        EmaState(int period) {
+            this.period = period;
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        double next(double input) {
+            count++;
+            if (count < period) {
+                sum += input;
+            } else if (count == period) {
+                sum += input;
+                value = sum / period;
+            } else {
+                value += alpha * (input - value);
+            }
+            return value;
+        }
+
+        void reset() {
+            count = 0;
+            sum = 0;
+            value = Double.NaN;
+        }
+    }
+
+    private static final class Sma extends Indicator {
+
+        private double sum;
+
+        Sma(int window) {
+            super(IndicatorType.SMA, window);
+        }
+
+        @Override
+        protected void reset() {
+            sum = 0;
+        }
+
+        @Override
+        protected void compute(PriceSeries series, int i, double[] out) {
+            sum += series.closeAt(i);
+            if (i >= window) {
+                sum -= series.closeAt(i - window);
+            }
+            if (i >= window - 1) {
+                out[0] = sum / window;
+            }
+        }
+    }
+
+    private static final class Ema extends Indicator {
+
+        private final EmaState ema;
+
+        Ema(int window) {
+            super(IndicatorType.EMA, window);
+            this.ema = new EmaState(window);
+        }
+
+        @Override
+        protected void reset() {
+            ema.reset();
+        }
+
+        @Override
+        protected void compute(PriceSeries series, int i, double[] out) {
+            out[0] = ema.next(series.closeAt(i));
+        }
+    }
+
+    /**
+     * Relative strength index with Wilder's smoothing.
+     */
+    private static final class Rsi extends Indicator {
+
+        private double averageGain;
+        private double averageLoss;
+
+        Rsi(int window) {
+            super(IndicatorType.RSI, window);
+        }
+
+        @Override
+        protected void reset() {
+            averageGain = 0;
+            averageLoss = 0;
+        }
+
+        @Override
+        protected void compute(PriceSeries series, int i, double[] out) {
+            if (i == 0) {
+                return;
+            }
+            double change = series.closeAt(i) - series.closeAt(i - 1);
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+
+            if (i <= window) {
+                averageGain += gain / window;
+                averageLoss += loss / window;
+                if (i < window) {
+                    return;
+                }
+            } else {
+                averageGain = (averageGain * (window - 1) + gain) / window;
+                averageLoss = (averageLoss * (window - 1) + loss) / window;
+            }
+            out[0] = averageLoss == 0 ? 100 : 100 - 100 / (1 + averageGain / averageLoss);
+        }
+    }
+
+    /**
+     * Bollinger bands at two standard deviations around the simple moving average.
+     */
+    private static final class Bollinger extends Indicator {
+
+        private double sum;
+        private double sumOfSquares;
+
+        Bollinger(int window) {
+            super(IndicatorType.BOLLINGER, window);
+        }
+
+        @Override
+        protected void reset() {
+            sum = 0;
+            sumOfSquares = 0;
+        }
+
+        @Override
+        protected void compute(PriceSeries series, int i, double[] out) {
+            double close = series.closeAt(i);
+            sum += close;
+            sumOfSquares += close * close;
+            if (i >= window) {
+                double dropped = series.closeAt(i - window);
+                sum -= dropped;
+                sumOfSquares -= dropped * dropped;
+            }
+            if (i >= window - 1) {
+                double mean = sum / window;
+                double deviation = Math.sqrt(Math.max(0, sumOfSquares / window - mean * mean));
+                out[0] = mean;
+                out[1] = mean + 2 * deviation;
+                out[2] = mean - 2 * deviation;
+            }
+        }
+    }
+
+    private static final class Macd extends Indicator {
+
+        private final EmaState fast = new EmaState(12);
+        private final EmaState slow = new EmaState(26);
+        private final EmaState signal;
+
+        Macd(int window) {
+            super(IndicatorType.MACD, window);
+            this.signal = new EmaState(window);
+        }
+
+        @Override
+        protected void reset() {
+            fast.reset();
+            slow.reset();
+            signal.reset();
+        }
+
+        @Override
+        protected void compute(PriceSeries series, int i, double[] out) {
+            double close = series.closeAt(i);
+            double macd = fast.next(close) - slow.next(close);
+            if (Double.isNaN(macd)) {
+                return;
+            }
+            double signalValue = signal.next(macd);
+            out[0] = macd;
+            out[1] = signalValue;
+            out[2] = macd - signalValue;
+        }
+    }
+}
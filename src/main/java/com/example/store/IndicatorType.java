@@ -0,0 +1,67 @@
+package com.example.store;
+
+/**
+ * Technical indicators computed over the close-price series.
+ */
+public enum IndicatorType {
+
+    SMA("sma", 20, true, "sma"),
+    EMA("ema", 20, true, "ema"),
+    RSI("rsi", 14, false, "rsi"),
+    BOLLINGER("bollinger", 20, true, "middle", "upper", "lower"),
+    // For MACD the window is the signal period; the fast and slow periods are the usual 12 and 26
+    MACD("macd", 9, true, "macd", "signal", "histogram");
+
+    private final String code;
+    private final int defaultWindow;
+    private final boolean priceDenominated;
+    private final String[] columns;
+
+    IndicatorType(String code, int defaultWindow, boolean priceDenominated, String... columns) {
+        this.code = code;
+        this.defaultWindow = defaultWindow;
+        this.priceDenominated = priceDenominated;
+        this.columns = columns;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getDefaultWindow() {
+        return defaultWindow;
+    }
+
+    /**
+     * @return whether the values are in price units and scale with a currency or unit conversion;
+     *         false for RSI, which is a 0-100 oscillator.
+     */
+    public boolean isPriceDenominated() {
+        return priceDenominated;
+    }
+
+    /**
+     * @return the names of the values this indicator produces for each row.
+     */
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    int columnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Resolves a request code such as {@code sma} (case-insensitive).
+     *
+     * @return the matching type, or null if the code is unknown.
+     */
+    public static IndicatorType fromCode(String code) {
+        for (IndicatorType type : values()) {
+            if (type.code.equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
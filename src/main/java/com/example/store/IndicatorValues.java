@@ -0,0 +1,52 @@
+package com.example.store;
+
+/**
+ * Immutable snapshot of an indicator's values, aligned row-for-row with the {@link PriceSeries}
+ * it was computed from. Rows inside the indicator's warm-up period hold {@link Double#NaN}.
+ */
+public final class IndicatorValues {
+
+    private final IndicatorType type;
+    private final int window;
+    private final double[][] columns;
+    private final int size;
+    private final long version;
+
+    IndicatorValues(IndicatorType type, int window, double[][] columns, int size, long version) {
+        this.type = type;
+        this.window = window;
+        this.columns = columns;
+        this.size = size;
+        this.version = version;
+    }
+
+    public IndicatorType getType() {
+        return type;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the version of the price series these values were computed from.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param column index into {@link IndicatorType#getColumns()}.
+     * @param index  row index in the price series.
+     */
+    public double valueAt(int column, int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return columns[column][index];
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Today's live price ticks of one metal in a fixed-size ring, plus the day's running
+ * {@link DailyBar}. Every tick is also written to a {@link TickJournal}, from which the day is
+ * restored after a restart.
+ * <p>
+ * Writes are serialized, while reads take no lock: a reader copies the slots it wants, then
+ * re-reads the write position and drops any slot the writer may have overwritten meanwhile,
+ * including the one it may be overwriting now, so a full ring reads as its capacity less one.
+ * Once the ring is full the oldest ticks of the day are overwritten; the bar still covers them.
+ * <p>
+ * A tick at least {@code sampleIntervalMillis} after the previous sample is flagged as a
+ * sample; the samples are what {@code /historical} serves.
+ */
+public final class IntradayTickBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntradayTickBuffer.class);
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private final Metal metal;
+    private final long[] times; // Fetch time, epoch millis
+    private final double[] prices;
+    private final boolean[] sampled;
+    private final int mask;
+    private final long sampleIntervalMillis;
+    private final TickJournal journal; // null when ticks are not persisted
+
+    private volatile long written; // Sequence number of the next tick; every slot below it is published
+    private volatile long dayStart; // Sequence number of the current day's first tick
+    private volatile DailyBar bar; // null before the day's first tick
+    private volatile String currency;
+    private volatile long version; // Bumped whenever the samples change
+    private volatile long lastModified = System.currentTimeMillis();
+    private long lastSampleAt; // Guarded by this
+
+    /**
+     * @param capacity rounded up to a power of two.
+     * @param journal  where ticks are persisted, or null to keep them in memory only.
+     */
+    public IntradayTickBuffer(Metal metal, int capacity, long sampleIntervalMillis, TickJournal journal) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.metal = metal;
+        this.times = new long[size];
+        this.prices = new double[size];
+        this.sampled = new boolean[size];
+        this.mask = size - 1;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.journal = journal;
+    }
+
+    /**
+     * Restores today's ticks from the journal. Ticks of earlier days are dropped from the file.
+     */
+    public synchronized void restore() {
+        if (journal == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now(NEW_YORK);
+        int[] stale = {0};
+        try {
+            int count = journal.replay((fetchedAt, price) -> {
+                if (dayOf(fetchedAt).equals(today)) {
+                    record(fetchedAt, price);
+                } else {
+                    stale[0]++;
+                }
+            });
+            if (stale[0] > 0) {
+                // Rewrite the file with today's ticks only
+                journal.clear();
+                Ticks ticks = ticks();
+                for (int i = 0; i < ticks.size(); i++) {
+                    journal.append(ticks.timeAt(i), ticks.priceAt(i));
+                }
+            }
+            logger.info("Restored {} of {} intraday {} ticks from {}", count - stale[0], count,
+                    metal.getDisplayName(), journal.getPath());
+        } catch (IOException e) {
+            logger.warn("Could not restore intraday {} ticks from {}: {}", metal.getDisplayName(),
+                    journal.getPath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Records a tick, starting a new day first if it falls on a later day than the current bar.
+     *
+     * @return whether the samples changed.
+     */
+    public synchronized boolean add(long fetchedAt, double price, String priceCurrency) {
+        currency = priceCurrency;
+        DailyBar current = bar;
+        boolean newDay = current != null && !dayOf(fetchedAt).equals(current.getDay());
+        if (newDay) {
+            clear();
+        }
+        boolean sample = record(fetchedAt, price);
+        if (journal != null) {
+            try {
+                journal.append(fetchedAt, price);
+            } catch (IOException e) {
+                logger.warn("Could not journal the intraday {} tick: {}", metal.getDisplayName(), e.getMessage());
+            }
+        }
+        return newDay || sample;
+    }
+
+    /**
+     * Forgets the current day's ticks and bar.
+     */
+    public synchronized void clear() {
+        dayStart = written;
+        bar = null;
+        lastSampleAt = 0;
+        markModified();
+        if (journal != null) {
+            try {
+                journal.clear();
+            } catch (IOException e) {
+                logger.warn("Could not clear the intraday {} journal: {}", metal.getDisplayName(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean record(long fetchedAt, double price) {
+        boolean sample = fetchedAt - lastSampleAt >= sampleIntervalMillis;
+        long sequence = written;
+        int slot = (int) sequence & mask;
+        times[slot] = fetchedAt;
+        prices[slot] = price;
+        sampled[slot] = sample;
+
+        DailyBar current = bar;
+        bar = current == null ? DailyBar.first(dayOf(fetchedAt), price) : current.withTick(price);
+        written = sequence + 1; // Publishes the slot
+        if (sample) {
+            lastSampleAt = fetchedAt;
+            markModified();
+        }
+        return sample;
+    }
+
+    private void markModified() {
+        lastModified = System.currentTimeMillis();
+        version++;
+    }
+
+    /**
+     * @return every tick of the day still in the ring, oldest first.
+     */
+    public Ticks ticks() {
+        return copy(false);
+    }
+
+    /**
+     * @return the day's samples still in the ring, oldest first.
+     */
+    public Ticks samples() {
+        return copy(true);
+    }
+
+    private Ticks copy(boolean samplesOnly) {
+        long end = written;
+        long start = Math.max(dayStart, end - times.length);
+        int length = (int) (end - start);
+        long[] sequences = new long[length];
+        long[] copiedTimes = new long[length];
+        double[] copiedPrices = new double[length];
+        int count = 0;
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            if (samplesOnly && !sampled[slot]) {
+                continue;
+            }
+            sequences[count] = sequence;
+            copiedTimes[count] = times[slot];
+            copiedPrices[count] = prices[slot];
+            count++;
+        }
+
+        // The copies above must be read before the write position below
+        VarHandle.acquireFence();
+        // The writer fills the slot of sequence `written` before publishing it, so that slot's
+        // older tick may already be half overwritten; it and every slot below it are dropped
+        long oldestIntact = written + 1 - times.length;
+        int from = 0;
+        while (from < count && sequences[from] < oldestIntact) {
+            from++;
+        }
+        return new Ticks(copyOfRange(copiedTimes, from, count), copyOfRange(copiedPrices, from, count));
+    }
+
+    private static long[] copyOfRange(long[] values, int from, int to) {
+        return from == 0 && to == values.length ? values : Arrays.copyOfRange(values, from, to);
+    }
+
+    private static double[] copyOfRange(double[] values, int from, int to) {
+        return from == 0 && to == values.length ? values : Arrays.copyOfRange(values, from, to);
+    }
+
+    /**
+     * @return the running OHLC of the current day, or null before its first tick.
+     */
+    public DailyBar getBar() {
+        return bar;
+    }
+
+    /**
+     * @return the currency of the latest tick.
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return a counter that changes whenever the samples change; suitable as a cache key.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the time (epoch millis) the samples last changed.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("Could not close {}: {}", journal.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the New York date of an epoch-millis time.
+     */
+    public static LocalDate dayOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(NEW_YORK).toLocalDate();
+    }
+
+    /**
+     * A copy of ticks: fetch times (epoch millis) and prices.
+     */
+    public static final class Ticks {
+
+        private final long[] times;
+        private final double[] prices;
+
+        Ticks(long[] times, double[] prices) {
+            this.times = times;
+            this.prices = prices;
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        public long timeAt(int index) {
+            return times[index];
+        }
+
+        public double priceAt(int index) {
+            return prices[index];
+        }
+    }
+}
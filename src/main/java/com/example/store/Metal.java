@@ -0,0 +1,74 @@
+package com.example.store;
+
+import java.util.Locale;
+
+/**
+ * Precious metals served by the application, identified by their ISO 4217 codes.
+ * Each metal has its own history file, {@link PriceStore} and live price.
+ */
+public enum Metal {
+
+    XAU("gold"),
+    XAG("silver"),
+    XPT("platinum"),
+    XPD("palladium");
+
+    private final String displayName;
+
+    Metal(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return the symbol used in request parameters and upstream URLs, e.g. {@code XAU}.
+     */
+    public String getCode() {
+        return name();
+    }
+
+    /**
+     * @return the lower-case English name, e.g. {@code gold}, as used in file names.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Resolves a request symbol such as {@code XAU} or {@code xag}, or a name such as {@code silver}.
+     *
+     * @return the matching metal, or null if the symbol is unknown.
+     */
+    public static Metal fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        String normalized = code.trim().toUpperCase(Locale.ROOT);
+        for (Metal metal : values()) {
+            if (metal.name().equals(normalized) || metal.displayName.equalsIgnoreCase(normalized)) {
+                return metal;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the file of this metal from a configured path. A {@code {metal}} placeholder is
+     * replaced by the metal's name. A path without one names the gold file, as configured
+     * before other metals were supported; the other metals then use the same name with
+     * {@code gold} replaced by their own, e.g. {@code historical_silver_spot_prices.csv}.
+     */
+    public String resolvePath(String configuredPath) {
+        if (configuredPath.contains("{metal}")) {
+            return configuredPath.replace("{metal}", displayName);
+        }
+        if (this == XAU) {
+            return configuredPath;
+        }
+        int slash = Math.max(configuredPath.lastIndexOf('/'), configuredPath.lastIndexOf('\\'));
+        String directory = configuredPath.substring(0, slash + 1);
+        String fileName = configuredPath.substring(slash + 1);
+        return directory + (fileName.contains("gold")
+                ? fileName.replace("gold", displayName)
+                : displayName + "_" + fileName);
+    }
+}
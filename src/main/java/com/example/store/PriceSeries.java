@@ -0,0 +1,371 @@
+package com.example.store;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Immutable, column-oriented view of the daily price history of one metal, sorted by timestamp.
+ * <p>
+ * Timestamps are stored as epoch seconds (see {@link HistoryCsv#toEpochSecond(LocalDateTime)})
+ * and prices as primitive OHLC columns. Consecutive snapshots may share the same backing arrays:
+ * a snapshot never reads past its own {@code size}, and the store only writes beyond the size of
+ * every published snapshot.
+ */
+public final class PriceSeries {
+
+    private static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0], new double[0],
+            new double[0], new double[0], 0, 0L, 0L);
+
+    private final long[] timestamps;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final int size;
+    private final long version;
+    private final long lastModified;
+
+    PriceSeries(long[] timestamps, double[] open, double[] high, double[] low, double[] close,
+                int size, long version, long lastModified) {
+        this.timestamps = timestamps;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.size = size;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Monotonic counter bumped every time the store publishes a new snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Wall-clock time (epoch millis) at which this snapshot was published.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    public LocalDateTime dateTimeAt(int index) {
+        return HistoryCsv.toDateTime(timestampAt(index));
+    }
+
+    public double openAt(int index) {
+        return open[checkIndex(index)];
+    }
+
+    public double highAt(int index) {
+        return high[checkIndex(index)];
+    }
+
+    public double lowAt(int index) {
+        return low[checkIndex(index)];
+    }
+
+    public double closeAt(int index) {
+        return close[checkIndex(index)];
+    }
+
+    /**
+     * Binary search for the first row whose timestamp is at or after the given one.
+     *
+     * @param timestamp epoch seconds, as produced by {@link HistoryCsv#toEpochSecond(LocalDateTime)}.
+     * @return the index of that row, or {@link #size()} if there is none.
+     */
+    public int lowerBound(long timestamp) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Binary search for the first row whose timestamp is after the given one.
+     *
+     * @param timestamp epoch seconds, as produced by {@link HistoryCsv#toEpochSecond(LocalDateTime)}.
+     * @return the index of that row, or {@link #size()} if there is none.
+     */
+    public int upperBound(long timestamp) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] <= timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Copies the close column into a new array.
+     */
+    public double[] closeValues() {
+        return Arrays.copyOf(close, size);
+    }
+
+    /**
+     * Copies rows {@code [from, to)} of the close column into a new array.
+     */
+    public double[] closeValues(int from, int to) {
+        return Arrays.copyOfRange(close, from, Math.min(to, size));
+    }
+
+    /**
+     * Returns a copy of this snapshot with every price multiplied by {@code factor}, e.g. to
+     * convert it to another currency. Timestamps are shared; version and modification time
+     * are kept, so the copy validates like the original.
+     */
+    public PriceSeries scaled(double factor) {
+        return new PriceSeries(timestamps, scale(open, factor), scale(high, factor), scale(low, factor),
+                scale(close, factor), size, version, lastModified);
+    }
+
+    private double[] scale(double[] column, double factor) {
+        double[] scaled = new double[size];
+        for (int i = 0; i < size; i++) {
+            scaled[i] = column[i] * factor;
+        }
+        return scaled;
+    }
+
+    /**
+     * Copies the timestamp column into a new array.
+     */
+    public long[] timestampValues() {
+        return Arrays.copyOf(timestamps, size);
+    }
+
+    int capacity() {
+        return timestamps.length;
+    }
+
+    long[] timestamps() {
+        return timestamps;
+    }
+
+    double[] open() {
+        return open;
+    }
+
+    double[] high() {
+        return high;
+    }
+
+    double[] low() {
+        return low;
+    }
+
+    double[] close() {
+        return close;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    /**
+     * Accumulates rows into growable primitive columns and produces a sorted {@link PriceSeries}.
+     */
+    public static final class Builder {
+
+        private long[] timestamps;
+        private double[] open;
+        private double[] high;
+        private double[] low;
+        private double[] close;
+        private int size;
+        private boolean sorted = true;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(16, initialCapacity);
+            timestamps = new long[capacity];
+            open = new double[capacity];
+            high = new double[capacity];
+            low = new double[capacity];
+            close = new double[capacity];
+        }
+
+        /**
+         * Adds a row. Missing open/high/low values (zero or negative) fall back to the close price.
+         */
+        public Builder add(long timestamp, double o, double h, double l, double c) {
+            if (size == timestamps.length) {
+                grow(size + 1);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            open[size] = o > 0 ? o : c;
+            high[size] = h > 0 ? h : c;
+            low[size] = l > 0 ? l : c;
+            close[size] = c;
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends every row of another builder, keeping their order.
+         */
+        public Builder addAll(Builder other) {
+            if (other.size == 0) {
+                return this;
+            }
+            if (size + other.size > timestamps.length) {
+                grow(size + other.size);
+            }
+            if (!other.sorted || (size > 0 && other.timestamps[0] < timestamps[size - 1])) {
+                sorted = false;
+            }
+            System.arraycopy(other.timestamps, 0, timestamps, size, other.size);
+            System.arraycopy(other.open, 0, open, size, other.size);
+            System.arraycopy(other.high, 0, high, size, other.size);
+            System.arraycopy(other.low, 0, low, size, other.size);
+            System.arraycopy(other.close, 0, close, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PriceSeries build(long version) {
+            if (!sorted) {
+                sortByTimestamp();
+            }
+            return new PriceSeries(timestamps, open, high, low, close, size, version, System.currentTimeMillis());
+        }
+
+        private void grow(int minCapacity) {
+            int capacity = Math.max(minCapacity, timestamps.length + (timestamps.length >> 1));
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+        }
+
+        private void sortByTimestamp() {
+            int[] order = sortedOrder();
+
+            long[] t = new long[timestamps.length];
+            double[] o = new double[timestamps.length];
+            double[] h = new double[timestamps.length];
+            double[] l = new double[timestamps.length];
+            double[] c = new double[timestamps.length];
+            for (int i = 0; i < size; i++) {
+                int src = order[i];
+                t[i] = timestamps[src];
+                o[i] = open[src];
+                h[i] = high[src];
+                l[i] = low[src];
+                c[i] = close[src];
+            }
+            timestamps = t;
+            open = o;
+            high = h;
+            low = l;
+            close = c;
+            sorted = true;
+        }
+
+        /**
+         * @return the row indices in timestamp order, rows sharing a timestamp in the order they
+         * were added, so rows of the same timestamp keep their file order.
+         */
+        private int[] sortedOrder() {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, timestamps[i]);
+                max = Math.max(max, timestamps[i]);
+            }
+            int indexBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, size - 1));
+            long span = max - min; // Negative if it overflowed
+            int[] order = new int[size];
+
+            if (span >= 0 && span < 1L << (63 - indexBits)) {
+                // Each row packed as its timestamp offset above its index: a primitive sort of the
+                // keys orders by timestamp and, among equal ones, by index
+                long[] keys = new long[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = (timestamps[i] - min) << indexBits | i;
+                }
+                Arrays.sort(keys);
+                long mask = (1L << indexBits) - 1;
+                for (int i = 0; i < size; i++) {
+                    order[i] = (int) (keys[i] & mask);
+                }
+                return order;
+            }
+
+            // Timestamps too far apart to pack: a bottom-up merge sort, stable as it takes ties from the left
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            int[] from = order;
+            int[] to = new int[size];
+            for (long width = 1; width < size; width <<= 1) {
+                for (int lo = 0; lo < size; lo += (int) Math.min(2 * width, size - lo)) {
+                    int mid = (int) Math.min(lo + width, size);
+                    int hi = (int) Math.min(lo + 2 * width, size);
+                    int i = lo;
+                    int j = mid;
+                    int k = lo;
+                    while (i < mid && j < hi) {
+                        to[k++] = timestamps[from[j]] < timestamps[from[i]] ? from[j++] : from[i++];
+                    }
+                    while (i < mid) {
+                        to[k++] = from[i++];
+                    }
+                    while (j < hi) {
+                        to[k++] = from[j++];
+                    }
+                }
+                int[] swap = from;
+                from = to;
+                to = swap;
+            }
+            return from;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.store;
+
+/**
+ * Receives every snapshot the {@link PriceStore} publishes, so derived indexes can be kept
+ * up to date incrementally. Callbacks run on the writing thread while the store's write lock
+ * is held, one at a time and in publish order, just before the snapshot becomes visible to
+ * {@link PriceStore#snapshot()}.
+ */
+public interface PriceSeriesListener {
+
+    /**
+     * Called after rows {@code [fromIndex, series.size())} were appended to the previous snapshot.
+     */
+    void onAppend(PriceSeries series, int fromIndex);
+
+    /**
+     * Called after the series was replaced or reordered, and once on registration.
+     */
+    void onReplace(PriceSeries series);
+}
@@ -0,0 +1,151 @@
+package com.example.store;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared, load-once, in-memory store of the daily price history of one {@link Metal}.
+ * <p>
+ * Readers call {@link #snapshot()} and work on the returned immutable {@link PriceSeries}
+ * without taking any lock. Writers are serialized and publish a new snapshot with a single
+ * atomic reference swap. Listeners see a snapshot before readers do, so anything derived
+ * from it is up to date by the time its version becomes visible. The file itself is ingested
+ * by {@link CsvTailFollower}. One store per metal is created by {@link PriceStoreRegistry}.
+ */
+public class PriceStore {
+
+    private final Metal metal;
+    private final Path csvPath;
+    private final AtomicReference<PriceSeries> current = new AtomicReference<>(PriceSeries.empty());
+    private final List<PriceSeriesListener> listeners = new CopyOnWriteArrayList<>();
+
+    public PriceStore(Metal metal, Path csvPath) {
+        this.metal = metal;
+        this.csvPath = csvPath;
+    }
+
+    /**
+     * @return the metal whose prices this store holds.
+     */
+    public Metal getMetal() {
+        return metal;
+    }
+
+    /**
+     * @return the path of the CSV file backing this store.
+     */
+    public Path getCsvPath() {
+        return csvPath;
+    }
+
+    /**
+     * @return the latest published snapshot; never null.
+     */
+    public PriceSeries snapshot() {
+        return current.get();
+    }
+
+    /**
+     * @return the version of the latest snapshot, bumped on every change; suitable as a cache key.
+     */
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * Registers a listener for future snapshots and immediately hands it the current one.
+     */
+    public synchronized void addListener(PriceSeriesListener listener) {
+        listeners.add(listener);
+        listener.onReplace(current.get());
+    }
+
+    /**
+     * Replaces the whole series with the given rows.
+     *
+     * @return the published snapshot.
+     */
+    public synchronized PriceSeries replace(PriceSeries.Builder rows) {
+        PriceSeries next = rows.build(current.get().getVersion() + 1);
+        for (PriceSeriesListener listener : listeners) {
+            listener.onReplace(next);
+        }
+        current.set(next);
+        return next;
+    }
+
+    /**
+     * Appends a single row and publishes the new snapshot.
+     * Missing open/high/low values (zero) fall back to the close price.
+     *
+     * @return the published snapshot.
+     */
+    public PriceSeries append(LocalDateTime dateTime, double open, double high, double low, double close) {
+        return appendAll(new PriceSeries.Builder(1).add(HistoryCsv.toEpochSecond(dateTime), open, high, low, close));
+    }
+
+    /**
+     * Appends a batch of rows and publishes a single new snapshot.
+     *
+     * @return the published snapshot.
+     */
+    public synchronized PriceSeries appendAll(PriceSeries.Builder rows) {
+        PriceSeries base = current.get();
+        PriceSeries batch = rows.build(base.getVersion());
+        if (batch.isEmpty()) {
+            return base;
+        }
+
+        int size = base.size();
+        int count = batch.size();
+        PriceSeries next;
+        boolean reordered = size > 0 && batch.timestampAt(0) < base.timestampAt(size - 1);
+        if (reordered) {
+            // Out-of-order rows: rebuild rather than disturb arrays shared with published snapshots
+            PriceSeries.Builder builder = new PriceSeries.Builder(size + count);
+            copyRows(base, builder);
+            copyRows(batch, builder);
+            next = builder.build(base.getVersion() + 1);
+        } else {
+            long[] t = base.timestamps();
+            double[] o = base.open();
+            double[] h = base.high();
+            double[] l = base.low();
+            double[] c = base.close();
+            if (size + count > base.capacity()) {
+                int capacity = Math.max(Math.max(16, size + count), size + (size >> 1));
+                t = Arrays.copyOf(t, capacity);
+                o = Arrays.copyOf(o, capacity);
+                h = Arrays.copyOf(h, capacity);
+                l = Arrays.copyOf(l, capacity);
+                c = Arrays.copyOf(c, capacity);
+            }
+            System.arraycopy(batch.timestamps(), 0, t, size, count);
+            System.arraycopy(batch.open(), 0, o, size, count);
+            System.arraycopy(batch.high(), 0, h, size, count);
+            System.arraycopy(batch.low(), 0, l, size, count);
+            System.arraycopy(batch.close(), 0, c, size, count);
+            next = new PriceSeries(t, o, h, l, c, size + count, base.getVersion() + 1, System.currentTimeMillis());
+        }
+
+        for (PriceSeriesListener listener : listeners) {
+            if (reordered) {
+                listener.onReplace(next);
+            } else {
+                listener.onAppend(next, size);
+            }
+        }
+        current.set(next);
+        return next;
+    }
+
+    private static void copyRows(PriceSeries from, PriceSeries.Builder to) {
+        for (int i = 0; i < from.size(); i++) {
+            to.add(from.timestamps()[i], from.open()[i], from.high()[i], from.low()[i], from.close()[i]);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.store;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partitions the price history by {@link Metal}: one {@link PriceStore}, CSV file, binary mirror,
+ * {@link HistoryJournal} and {@link CsvTailFollower} per enabled metal. Lookups are a single {@link EnumMap} access, so
+ * serving another metal costs nothing on the read path.
+ */
+@Service
+public class PriceStoreRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceStoreRegistry.class);
+
+    private final Set<Metal> metals;
+    private final Map<Metal, PriceStore> stores = new EnumMap<>(Metal.class);
+    private final Map<Metal, CsvTailFollower> followers = new EnumMap<>(Metal.class);
+    private final Map<Metal, HistoryJournal> journals = new EnumMap<>(Metal.class);
+
+    public PriceStoreRegistry(@Value("${metals.symbols:XAU,XAG,XPT,XPD}") List<String> symbols,
+                              @Value("${csv.file.path:./data/historical_{metal}_spot_prices.csv}") String csvFilePath,
+                              @Value("${binary.file.path:./data/historical_{metal}_spot_prices.bin}") String binaryFilePath,
+                              @Value("${history.journal.fsync:commit}") String fsync) {
+        HistoryJournal.FsyncPolicy fsyncPolicy = HistoryJournal.FsyncPolicy.fromCode(fsync);
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("history.journal.fsync must be commit, interval or none: " + fsync);
+        }
+        for (String symbol : symbols) {
+            Metal metal = Metal.fromCode(symbol);
+            if (metal == null) {
+                throw new IllegalArgumentException("Unknown metal in metals.symbols: " + symbol);
+            }
+            PriceStore store = new PriceStore(metal, Paths.get(metal.resolvePath(csvFilePath)));
+            stores.put(metal, store);
+            journals.put(metal, new HistoryJournal(store.getCsvPath(), fsyncPolicy));
+            followers.put(metal, new CsvTailFollower(store, Paths.get(metal.resolvePath(binaryFilePath))));
+        }
+        if (stores.isEmpty()) {
+            throw new IllegalArgumentException("metals.symbols must name at least one metal");
+        }
+        this.metals = Collections.unmodifiableSet(stores.keySet());
+    }
+
+    /**
+     * @return the enabled metals, in declaration order.
+     */
+    public Set<Metal> getMetals() {
+        return metals;
+    }
+
+    /**
+     * Resolves a request symbol to an enabled metal.
+     *
+     * @return the metal, or null if the symbol is unknown or the metal is not enabled.
+     */
+    public Metal resolve(String symbol) {
+        Metal metal = Metal.fromCode(symbol);
+        return metal != null && stores.containsKey(metal) ? metal : null;
+    }
+
+    /**
+     * @return the store of an enabled metal.
+     * @throws IllegalArgumentException if the metal is not enabled.
+     */
+    public PriceStore store(Metal metal) {
+        PriceStore store = stores.get(metal);
+        if (store == null) {
+            throw new IllegalArgumentException("Metal not enabled: " + metal);
+        }
+        return store;
+    }
+
+    /**
+     * @return the latest snapshot of an enabled metal's history.
+     */
+    public PriceSeries snapshot(Metal metal) {
+        return store(metal).snapshot();
+    }
+
+    /**
+     * @return the follower ingesting an enabled metal's CSV file.
+     */
+    public CsvTailFollower follower(Metal metal) {
+        CsvTailFollower follower = followers.get(metal);
+        if (follower == null) {
+            throw new IllegalArgumentException("Metal not enabled: " + metal);
+        }
+        return follower;
+    }
+
+    /**
+     * @return the writer appending to an enabled metal's CSV file.
+     */
+    public HistoryJournal journal(Metal metal) {
+        HistoryJournal journal = journals.get(metal);
+        if (journal == null) {
+            throw new IllegalArgumentException("Metal not enabled: " + metal);
+        }
+        return journal;
+    }
+
+    /**
+     * @return the path of an enabled metal's binary mirror.
+     */
+    public Path getBinaryPath(Metal metal) {
+        return follower(metal).getBinaryPath();
+    }
+
+    /**
+     * Registers the listener with the metal's store; see {@link PriceStore#addListener}.
+     */
+    public void addListener(Metal metal, PriceSeriesListener listener) {
+        store(metal).addListener(listener);
+    }
+
+    /**
+     * Repairs every metal's CSV file (see {@link HistoryJournal#recover()}), then loads the
+     * history and starts following the files.
+     */
+    public void start() {
+        journals.forEach((metal, journal) -> {
+            try {
+                journal.recover();
+            } catch (IOException e) {
+                logger.error("Could not recover the {} history {}: {}", metal.getDisplayName(), journal.getPath(), e.getMessage());
+            }
+        });
+        for (CsvTailFollower follower : followers.values()) {
+            follower.start();
+        }
+    }
+
+    /**
+     * Forces appended rows to disk when {@code history.journal.fsync} is {@code interval}.
+     */
+    @Scheduled(fixedDelayString = "${history.journal.fsync-interval-ms:1000}")
+    public void syncJournals() {
+        for (HistoryJournal journal : journals.values()) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * Safety net for file systems where the watch service misses events.
+     */
+    @Scheduled(fixedDelayString = "${csv.follow.poll-interval-ms:60000}")
+    public void pollPeriodically() {
+        for (CsvTailFollower follower : followers.values()) {
+            follower.pollPeriodically();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (CsvTailFollower follower : followers.values()) {
+            follower.stop();
+        }
+        for (HistoryJournal journal : journals.values()) {
+            journal.close();
+        }
+    }
+}
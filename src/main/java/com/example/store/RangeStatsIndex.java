@@ -0,0 +1,163 @@
+package com.example.store;
+
+import java.util.Arrays;
+
+/**
+ * Immutable index answering range statistics over a {@link PriceSeries} without scanning it.
+ * <p>
+ * Highest high and lowest low come from sparse tables of row indices (O(1) per query after an
+ * O(log n) update per appended row). Mean and standard deviation of the close come from prefix
+ * sums of the close and of its square, both shifted by the first close to limit rounding error.
+ * Like {@link PriceSeries}, consecutive snapshots share arrays and only write past each
+ * other's size.
+ */
+public final class RangeStatsIndex {
+
+    private final PriceSeries series;
+    private final int size;
+    private final int[][] maxIndex;
+    private final int[][] minIndex;
+    private final double reference;
+    private final double[] prefixSum;
+    private final double[] prefixSquares;
+
+    private RangeStatsIndex(PriceSeries series, int size, int[][] maxIndex, int[][] minIndex, double reference,
+                            double[] prefixSum, double[] prefixSquares) {
+        this.series = series;
+        this.size = size;
+        this.maxIndex = maxIndex;
+        this.minIndex = minIndex;
+        this.reference = reference;
+        this.prefixSum = prefixSum;
+        this.prefixSquares = prefixSquares;
+    }
+
+    /**
+     * Builds the index for a whole series in O(n log n).
+     */
+    public static RangeStatsIndex of(PriceSeries series) {
+        RangeStatsIndex empty = new RangeStatsIndex(PriceSeries.empty(), 0, new int[0][], new int[0][], 0,
+                new double[1], new double[1]);
+        return empty.withRows(series);
+    }
+
+    /**
+     * @return the series this index covers.
+     */
+    public PriceSeries getSeries() {
+        return series;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Extends the index with the rows of {@code next} beyond {@link #size()}. The rows before
+     * that must be unchanged. Only call this on the latest snapshot of an index.
+     */
+    public RangeStatsIndex withRows(PriceSeries next) {
+        int count = next.size();
+        int[][] max = maxIndex;
+        int[][] min = minIndex;
+        double[] sums = prefixSum;
+        double[] squares = prefixSquares;
+        // An index that started empty takes its shift from the first row it gets
+        double shift = size == 0 && count > 0 ? next.closeAt(0) : reference;
+
+        // Copy the level tables so growing a level never swaps arrays under an older snapshot
+        int levels = count == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(count);
+        max = Arrays.copyOf(max, Math.max(levels, max.length));
+        min = Arrays.copyOf(min, Math.max(levels, min.length));
+        if (sums.length < count + 1) {
+            int capacity = Math.max(count + 1, sums.length + (sums.length >> 1) + 16);
+            sums = Arrays.copyOf(sums, capacity);
+            squares = Arrays.copyOf(squares, capacity);
+        }
+
+        for (int i = size; i < count; i++) {
+            double shifted = next.closeAt(i) - shift;
+            sums[i + 1] = sums[i] + shifted;
+            squares[i + 1] = squares[i] + shifted * shifted;
+
+            for (int k = 0; (1 << k) <= i + 1; k++) {
+                int j = i - (1 << k) + 1; // level k covers [j, j + 2^k)
+                ensureCapacity(max, min, k, j + 1);
+                if (k == 0) {
+                    max[0][j] = i;
+                    min[0][j] = i;
+                } else {
+                    int half = j + (1 << (k - 1));
+                    max[k][j] = higher(next, max[k - 1][j], max[k - 1][half]);
+                    min[k][j] = lower(next, min[k - 1][j], min[k - 1][half]);
+                }
+            }
+        }
+        return new RangeStatsIndex(next, count, max, min, shift, sums, squares);
+    }
+
+    /**
+     * @return the index of the row with the highest high in {@code [from, to]}.
+     */
+    public int highestHigh(int from, int to) {
+        int k = level(from, to);
+        return higher(series, maxIndex[k][from], maxIndex[k][to - (1 << k) + 1]);
+    }
+
+    /**
+     * @return the index of the row with the lowest low in {@code [from, to]}.
+     */
+    public int lowestLow(int from, int to) {
+        int k = level(from, to);
+        return lower(series, minIndex[k][from], minIndex[k][to - (1 << k) + 1]);
+    }
+
+    /**
+     * @return the mean close over {@code [from, to]}.
+     */
+    public double meanClose(int from, int to) {
+        checkRange(from, to);
+        int n = to - from + 1;
+        return reference + (prefixSum[to + 1] - prefixSum[from]) / n;
+    }
+
+    /**
+     * @return the population standard deviation of the close over {@code [from, to]}.
+     */
+    public double stdDevClose(int from, int to) {
+        checkRange(from, to);
+        int n = to - from + 1;
+        double sum = prefixSum[to + 1] - prefixSum[from];
+        double squares = prefixSquares[to + 1] - prefixSquares[from];
+        double mean = sum / n;
+        return Math.sqrt(Math.max(0, squares / n - mean * mean));
+    }
+
+    private int level(int from, int to) {
+        checkRange(from, to);
+        return 31 - Integer.numberOfLeadingZeros(to - from + 1);
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to >= size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + "] out of bounds for size " + size);
+        }
+    }
+
+    private static void ensureCapacity(int[][] max, int[][] min, int level, int required) {
+        int[] current = max[level];
+        if (current == null || current.length < required) {
+            int capacity = Math.max(required, current == null ? 16 : current.length + (current.length >> 1));
+            max[level] = current == null ? new int[capacity] : Arrays.copyOf(current, capacity);
+            min[level] = min[level] == null ? new int[capacity] : Arrays.copyOf(min[level], capacity);
+        }
+    }
+
+    private static int higher(PriceSeries series, int a, int b) {
+        return series.highAt(a) >= series.highAt(b) ? a : b;
+    }
+
+    private static int lower(PriceSeries series, int a, int b) {
+        return series.lowAt(a) <= series.lowAt(b) ? a : b;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only file of live price ticks: fixed 16-byte records of fetch time (epoch millis)
+ * and price. The channel stays open between appends. A record torn by a crash is detected
+ * by the file length not being a multiple of the record size and cut off on replay.
+ */
+public final class TickJournal implements Closeable {
+
+    static final int RECORD_BYTES = 16;
+
+    /**
+     * Receives the records of {@link #replay}.
+     */
+    @FunctionalInterface
+    public interface TickConsumer {
+
+        void accept(long fetchedAt, double price);
+    }
+
+    private final Path path;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel channel;
+
+    public TickJournal(Path path) {
+        this.path = path.toAbsolutePath().normalize();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Hands every complete record to the consumer, oldest first, after truncating a torn last record.
+     *
+     * @return the number of records replayed.
+     */
+    public synchronized int replay(TickConsumer consumer) throws IOException {
+        FileChannel channel = channel();
+        long complete = channel.size() - channel.size() % RECORD_BYTES;
+        if (complete < channel.size()) {
+            channel.truncate(complete);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(complete, 64 * RECORD_BYTES));
+        long position = 0;
+        int count = 0;
+        while (position < complete) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), complete - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_BYTES) {
+                consumer.accept(buffer.getLong(), buffer.getDouble());
+                count++;
+            }
+            position += buffer.limit();
+        }
+        channel.position(complete);
+        return count;
+    }
+
+    public synchronized void append(long fetchedAt, double price) throws IOException {
+        record.clear();
+        record.putLong(fetchedAt).putDouble(price).flip();
+        FileChannel channel = channel();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * Discards every record, e.g. when a new day starts.
+     */
+    public synchronized void clear() throws IOException {
+        channel().truncate(0).position(0);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(path.getParent());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        return channel;
+    }
+}
@@ -0,0 +1 @@
+package com.example.store;
\ No newline at end of file
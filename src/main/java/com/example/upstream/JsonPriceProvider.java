@@ -0,0 +1,116 @@
+package com.example.upstream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * {@link PriceProvider} for JSON APIs, reading the price, timestamp and currency at
+ * configurable JSON pointers (e.g. {@code /price}, {@code /data/0/updated}).
+ * <p>
+ * Timestamps may be ISO-8601 strings, with or without an offset (read as UTC without one),
+ * or epoch numbers in seconds or milliseconds. Without a timestamp the fetch time is used.
+ * <p>
+ * The URL may contain {@value PriceProvider#SYMBOL_PLACEHOLDER}, which is replaced by the metal
+ * symbol. A URL without it quotes gold only, as configured before other metals were supported.
+ */
+public class JsonPriceProvider implements PriceProvider {
+
+    private static final String GOLD = "XAU";
+
+    private final String name;
+    private final String url;
+    private final String pricePointer;
+    private final String timestampPointer;
+    private final String currencyPointer;
+    private final ObjectMapper objectMapper;
+
+    public JsonPriceProvider(String name, String url, String pricePointer, String timestampPointer,
+                             String currencyPointer, ObjectMapper objectMapper) {
+        this.name = name;
+        this.url = url;
+        this.pricePointer = pricePointer;
+        this.timestampPointer = timestampPointer;
+        this.currencyPointer = currencyPointer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parser for api.gold-api.com ({@code https://api.gold-api.com/price/{symbol}}):
+     * {@code {"price": 1925.5, "updatedAt": "2025-01-19T12:30:00Z", ...}}.
+     */
+    public static JsonPriceProvider goldApi(String name, String url, ObjectMapper objectMapper) {
+        return new JsonPriceProvider(name, url, "/price", "/updatedAt", "/currency", objectMapper);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getUrl(String symbol) {
+        if (url.contains(SYMBOL_PLACEHOLDER)) {
+            return url.replace(SYMBOL_PLACEHOLDER, symbol);
+        }
+        return GOLD.equals(symbol) ? url : null;
+    }
+
+    @Override
+    public PriceQuote parse(String body) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(name + ": response is not JSON", e);
+        }
+
+        JsonNode price = root.at(pricePointer);
+        if (!price.isNumber() && !(price.isTextual() && !price.asText().isBlank())) {
+            throw new IllegalArgumentException(name + ": no price at " + pricePointer);
+        }
+        double value;
+        try {
+            value = price.isNumber() ? price.doubleValue() : Double.parseDouble(price.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + ": invalid price '" + price.asText() + "'", e);
+        }
+
+        JsonNode currency = currencyPointer == null ? null : root.at(currencyPointer);
+        return new PriceQuote(name, value,
+                currency == null || !currency.isTextual() ? "USD" : currency.asText(),
+                timestampPointer == null ? now() : parseTimestamp(root.at(timestampPointer)));
+    }
+
+    private LocalDateTime parseTimestamp(JsonNode node) {
+        if (node.isNumber()) {
+            long epoch = node.longValue();
+            Instant instant = epoch < 100_000_000_000L ? Instant.ofEpochSecond(epoch) : Instant.ofEpochMilli(epoch);
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        }
+        if (!node.isTextual()) {
+            return now();
+        }
+        String text = node.asText().trim();
+        try {
+            return OffsetDateTime.parse(text).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException e2) {
+                throw new IllegalArgumentException(name + ": invalid timestamp '" + text + "'", e2);
+            }
+        }
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
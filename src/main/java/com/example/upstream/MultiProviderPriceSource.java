@@ -0,0 +1,227 @@
+package com.example.upstream;
+
+import com.example.config.UpstreamProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches the live price of a metal from several {@link PriceProvider}s at once.
+ * <p>
+ * With the {@code first} strategy the best-ranked providers are raced and the first valid
+ * quote wins; the others are only tried if all of those fail. With {@code median} every
+ * provider is asked and the median of the valid quotes received before the deadline is used,
+ * which filters out a single provider reporting a bad price. A quote in another currency than
+ * {@code upstream.currency} is never used, and counts as a failure of its provider. Providers
+ * are ranked by their {@link ProviderStats}, so slow or failing ones drift to the back.
+ */
+@Component
+public class MultiProviderPriceSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiProviderPriceSource.class);
+
+    public enum Strategy {
+        FIRST, MEDIAN
+    }
+
+    private final UpstreamClient upstreamClient;
+    private final List<PriceProvider> providers;
+    private final Map<String, ProviderStats> stats = new LinkedHashMap<>();
+    private final Strategy strategy;
+    private final long deadlineMillis;
+    private final int raceWidth;
+    private final String currency;
+    private final ExecutorService executor;
+
+    public MultiProviderPriceSource(UpstreamClient upstreamClient, ObjectMapper objectMapper,
+                                    UpstreamProperties properties, ObjectProvider<PriceProvider> providerBeans,
+                                    @Value("${gold.api.url:https://api.gold-api.com/price/{symbol}}") String defaultUrl,
+                                    @Value("${upstream.strategy:first}") String strategy,
+                                    @Value("${upstream.deadline-ms:4000}") long deadlineMillis,
+                                    @Value("${upstream.race-width:2}") int raceWidth,
+                                    @Value("${upstream.currency:USD}") String currency) {
+        this.upstreamClient = upstreamClient;
+        this.strategy = Strategy.valueOf(strategy.trim().toUpperCase(Locale.ROOT));
+        this.deadlineMillis = deadlineMillis;
+        this.raceWidth = Math.max(1, raceWidth);
+        this.currency = currency.trim();
+
+        List<PriceProvider> all = new ArrayList<>();
+        for (UpstreamProperties.Provider provider : properties.getProviders()) {
+            all.add(new JsonPriceProvider(provider.getName(), provider.getUrl(), provider.getPricePointer(),
+                    provider.getTimestampPointer(), provider.getCurrencyPointer(), objectMapper));
+        }
+        providerBeans.orderedStream().forEach(all::add);
+        if (all.isEmpty()) {
+            all.add(JsonPriceProvider.goldApi("gold-api", defaultUrl, objectMapper));
+        }
+        this.providers = List.copyOf(all);
+        for (PriceProvider provider : providers) {
+            if (stats.putIfAbsent(provider.getName(), new ProviderStats(provider.getName())) != null) {
+                throw new IllegalStateException("Duplicate price provider name: " + provider.getName());
+            }
+        }
+        logger.info("Price providers: {} (strategy {})",
+                providers.stream().map(PriceProvider::getName).collect(Collectors.joining(", ")), this.strategy);
+
+        // Unbounded pool: concurrency is bounded by symbols x providers in flight, plus slow losers of a race
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "price-provider-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param symbol the metal's ISO 4217 code, e.g. {@code XAU}.
+     * @return the live price according to the configured strategy.
+     * @throws UpstreamUnavailableException if no provider quotes the symbol or none returned a valid quote in time.
+     */
+    public PriceQuote fetch(String symbol) {
+        List<PriceProvider> ranked = rank();
+        ranked.removeIf(provider -> provider.getUrl(symbol) == null);
+        if (ranked.isEmpty()) {
+            throw new UpstreamUnavailableException("No price provider quotes " + symbol);
+        }
+
+        PriceQuote quote;
+        if (strategy == Strategy.MEDIAN) {
+            quote = median(ranked, symbol);
+        } else {
+            int width = Math.min(raceWidth, ranked.size());
+            quote = first(ranked.subList(0, width), symbol);
+            if (quote == null && width < ranked.size()) {
+                quote = first(ranked.subList(width, ranked.size()), symbol);
+            }
+        }
+        if (quote == null) {
+            throw new UpstreamUnavailableException("No price provider returned a valid " + symbol + " price");
+        }
+        return quote;
+    }
+
+    /**
+     * @return the statistics of every provider, best-ranked first.
+     */
+    public List<ProviderStats> getStats() {
+        return rank().stream().map(provider -> stats.get(provider.getName())).collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<PriceProvider> rank() {
+        List<PriceProvider> ranked = new ArrayList<>(providers);
+        ranked.sort(Comparator.comparingDouble(provider -> stats.get(provider.getName()).score()));
+        return ranked;
+    }
+
+    private PriceQuote first(List<PriceProvider> raced, String symbol) {
+        CompletionService<PriceQuote> completion = new ExecutorCompletionService<>(executor);
+        for (PriceProvider provider : raced) {
+            completion.submit(() -> fetchFrom(provider, symbol));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        for (int pending = raced.size(); pending > 0; pending--) {
+            PriceQuote quote = next(completion, deadline);
+            if (quote != null) {
+                return quote; // Slower providers finish in the background and still update their stats
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private PriceQuote median(List<PriceProvider> asked, String symbol) {
+        CompletionService<PriceQuote> completion = new ExecutorCompletionService<>(executor);
+        for (PriceProvider provider : asked) {
+            completion.submit(() -> fetchFrom(provider, symbol));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        List<PriceQuote> quotes = new ArrayList<>();
+        for (int pending = asked.size(); pending > 0 && System.nanoTime() < deadline; pending--) {
+            PriceQuote quote = next(completion, deadline);
+            if (quote != null) {
+                quotes.add(quote);
+            }
+        }
+        if (quotes.isEmpty()) {
+            return null;
+        }
+
+        quotes.sort(Comparator.comparingDouble(PriceQuote::getPrice));
+        int mid = quotes.size() / 2;
+        double price = quotes.size() % 2 == 1
+                ? quotes.get(mid).getPrice()
+                : (quotes.get(mid - 1).getPrice() + quotes.get(mid).getPrice()) / 2;
+        LocalDateTime updatedAt = quotes.stream().map(PriceQuote::getUpdatedAt).max(Comparator.naturalOrder()).get();
+        String names = quotes.stream().map(PriceQuote::getProvider).collect(Collectors.joining(","));
+        return new PriceQuote("median(" + names + ")", price, quotes.get(mid).getCurrency(), updatedAt);
+    }
+
+    /**
+     * Waits until the deadline for the next finished fetch.
+     *
+     * @return its quote, or null if it failed or nothing finished in time.
+     */
+    private static PriceQuote next(CompletionService<PriceQuote> completion, long deadline) {
+        try {
+            Future<PriceQuote> done = completion.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return done == null ? null : done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private PriceQuote fetchFrom(PriceProvider provider, String symbol) {
+        ProviderStats providerStats = stats.get(provider.getName());
+        long start = System.nanoTime();
+        try {
+            PriceQuote quote = provider.parse(upstreamClient.get(provider.getUrl(symbol), String.class));
+            if (!quote.isValid()) {
+                throw new IllegalArgumentException(provider.getName() + ": invalid quote " + quote);
+            }
+            if (!currency.equalsIgnoreCase(quote.getCurrency())) {
+                throw new IllegalArgumentException(provider.getName() + ": quotes " + quote.getCurrency()
+                        + ", expected " + currency);
+            }
+            providerStats.recordSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return quote;
+        } catch (RuntimeException e) {
+            providerStats.recordFailure(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            logger.warn("Price provider {} failed for {}: {}", provider.getName(), symbol, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.upstream;
+
+/**
+ * A source of the live price. Register additional sources as Spring beans implementing this
+ * interface, or configure JSON sources under {@code upstream.providers}.
+ */
+public interface PriceProvider {
+
+    /**
+     * Placeholder in provider URLs for the requested metal symbol, e.g. {@code XAU}.
+     */
+    String SYMBOL_PLACEHOLDER = "{symbol}";
+
+    /**
+     * @return a short, unique name used in logs and statistics.
+     */
+    String getName();
+
+    /**
+     * @param symbol the metal's ISO 4217 code, e.g. {@code XAU} or {@code XAG}.
+     * @return the URL to GET for the symbol, or null if this provider does not quote it.
+     */
+    String getUrl(String symbol);
+
+    /**
+     * Extracts the quote from a response body.
+     *
+     * @throws IllegalArgumentException if the body does not contain a price.
+     */
+    PriceQuote parse(String body);
+}
@@ -0,0 +1,57 @@
+package com.example.upstream;
+
+import java.time.LocalDateTime;
+
+/**
+ * A price as reported by one {@link PriceProvider}.
+ */
+public final class PriceQuote {
+
+    private final String provider;
+    private final double price;
+    private final String currency;
+    private final LocalDateTime updatedAt;
+
+    public PriceQuote(String provider, double price, String currency, LocalDateTime updatedAt) {
+        this.provider = provider;
+        this.price = price;
+        this.currency = currency;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return the provider's update time, in UTC.
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * @return whether the quote carries a usable price.
+     */
+    public boolean isValid() {
+        return price > 0 && Double.isFinite(price) && updatedAt != null;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceQuote{" +
+                "provider='" + provider + '\'' +
+                ", price=" + price +
+                ", currency='" + currency + '\'' +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.upstream;
+
+/**
+ * Running latency and error rate of one provider, as exponentially weighted moving averages.
+ */
+public class ProviderStats {
+
+    // Weight of the newest observation
+    private static final double ALPHA = 0.2;
+
+    // Latency assumed for a provider that has not answered yet, so new providers get tried
+    private static final double INITIAL_LATENCY_MILLIS = 500;
+
+    private final String provider;
+    private double latencyMillis = INITIAL_LATENCY_MILLIS;
+    private double errorRate;
+    private long successes;
+    private long failures;
+
+    public ProviderStats(String provider) {
+        this.provider = provider;
+    }
+
+    public synchronized void recordSuccess(long latencyMillis) {
+        this.latencyMillis += ALPHA * (latencyMillis - this.latencyMillis);
+        errorRate += ALPHA * (0 - errorRate);
+        successes++;
+    }
+
+    public synchronized void recordFailure(long latencyMillis) {
+        // A failure costs at least its own latency, so slow failures rank lower than fast ones
+        this.latencyMillis += ALPHA * (Math.max(latencyMillis, this.latencyMillis) - this.latencyMillis);
+        errorRate += ALPHA * (1 - errorRate);
+        failures++;
+    }
+
+    /**
+     * Lower is better: the expected latency, inflated by how often the provider fails.
+     */
+    public synchronized double score() {
+        return latencyMillis * (1 + 4 * errorRate);
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public synchronized long getSuccesses() {
+        return successes;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.upstream;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls the upstream price API with bounded latency.
+ * <p>
+ * Each attempt is limited by the connect and read timeouts of the {@link RestTemplate}
+ * (see {@code AppConfig}). Failed attempts caused by I/O errors, 5xx or 429 responses are
+ * retried with exponential backoff and full jitter. Every failed attempt counts towards the
+ * host's {@link CircuitBreaker}; while it is open no call is made and callers keep serving their
+ * last good value. With a hedge delay configured, a second identical request is started
+ * when the first has not answered within that delay, and the first answer wins.
+ */
+@Component
+public class UpstreamClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamClient.class);
+
+    private final RestTemplate restTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final long hedgeDelayMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ExecutorService hedgeExecutor;
+
+    public UpstreamClient(RestTemplate restTemplate,
+                          @Value("${upstream.retry.max-attempts:3}") int maxAttempts,
+                          @Value("${upstream.retry.backoff-ms:200}") long backoffMillis,
+                          @Value("${upstream.retry.max-backoff-ms:2000}") long maxBackoffMillis,
+                          @Value("${upstream.hedge-delay-ms:0}") long hedgeDelayMillis,
+                          @Value("${upstream.hedge-threads:32}") int hedgeThreads,
+                          @Value("${upstream.circuit.failure-threshold:5}") int failureThreshold,
+                          @Value("${upstream.circuit.open-ms:30000}") long openMillis) {
+        this.restTemplate = restTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+
+        // Each call in flight may hold two threads, its primary and its hedge. The pool grows to
+        // hedgeThreads before anything queues, so a hedge does not wait behind the calls it races,
+        // and idle threads time out as in a cached pool
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = hedgeDelayMillis <= 0 ? null : new ThreadPoolExecutor(
+                Math.max(2, hedgeThreads), Math.max(2, hedgeThreads), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upstream-hedge-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (executor != null) {
+            executor.allowCoreThreadTimeOut(true);
+        }
+        this.hedgeExecutor = executor;
+    }
+
+    /**
+     * GETs the URL and converts the response body.
+     *
+     * @throws UpstreamUnavailableException if the circuit is open or every attempt failed.
+     */
+    public <T> T get(String url, Class<T> responseType) {
+        CircuitBreaker circuitBreaker = circuitBreaker(url);
+        RestClientException lastFailure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new UpstreamUnavailableException("Circuit open for " + url, lastFailure);
+            }
+
+            try {
+                T body = hedgeExecutor == null ? fetch(url, responseType) : hedgedGet(url, responseType);
+                circuitBreaker.recordSuccess();
+                return body;
+            } catch (RestClientException e) {
+                circuitBreaker.recordFailure();
+                lastFailure = e;
+                if (!isRetryable(e) || attempt == maxAttempts) {
+                    break;
+                }
+                logger.warn("Upstream attempt {}/{} for {} failed: {}", attempt, maxAttempts, url, e.getMessage());
+                sleep(backoff(attempt));
+            }
+        }
+        throw new UpstreamUnavailableException("Upstream call to " + url + " failed", lastFailure);
+    }
+
+    /**
+     * @return the state of the circuit breaker guarding the URL's host.
+     */
+    public CircuitBreaker.State getCircuitState(String url) {
+        return circuitBreaker(url).getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * One circuit per host and port, so one failing provider does not cut off the others.
+     */
+    private CircuitBreaker circuitBreaker(String url) {
+        URI uri = URI.create(url);
+        String key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        return circuitBreakers.computeIfAbsent(key, k -> new CircuitBreaker(failureThreshold, openMillis));
+    }
+
+    /**
+     * One plain attempt. The JDK request factory enforces the read timeout by cancelling the
+     * exchange, which can surface as a bare {@link CancellationException}; it is reported as
+     * the I/O failure it is.
+     */
+    private <T> T fetch(String url, Class<T> responseType) {
+        try {
+            return restTemplate.getForObject(url, responseType);
+        } catch (CancellationException e) {
+            throw new ResourceAccessException("Read timed out calling " + url);
+        }
+    }
+
+    private <T> T hedgedGet(String url, Class<T> responseType) {
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(() -> fetch(url, responseType), hedgeExecutor);
+        try {
+            return primary.get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            CompletableFuture<T> hedge = CompletableFuture.supplyAsync(() -> fetch(url, responseType), hedgeExecutor);
+            return await(firstSuccess(primary, hedge));
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while calling " + url);
+        }
+    }
+
+    /**
+     * Completes with the first of the two results that succeeds, or with the last failure if both fail.
+     */
+    private static <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : List.of(first, second)) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RestClientException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RestClientException restClientException
+                ? restClientException
+                : new RestClientException("Upstream call failed", cause);
+    }
+
+    private static boolean isRetryable(RestClientException e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            return statusException.getStatusCode().is5xxServerError()
+                    || statusException.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    /**
+     * Exponential backoff with full jitter: a random delay up to base * 2^(attempt - 1), capped.
+     */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
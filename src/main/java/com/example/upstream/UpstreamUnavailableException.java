@@ -0,0 +1,16 @@
+package com.example.upstream;
+
+/**
+ * Thrown when the upstream price API could not be reached: every attempt failed, or the
+ * circuit breaker is open.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
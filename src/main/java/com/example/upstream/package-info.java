@@ -0,0 +1 @@
+package com.example.upstream;
\ No newline at end of file
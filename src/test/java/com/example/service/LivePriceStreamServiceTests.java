@@ -0,0 +1,143 @@
+package com.example.service;
+
+import com.example.config.AppConfig;
+import com.example.config.UpstreamProperties;
+import com.example.dto.LiveGoldPriceDTO;
+import com.example.store.Metal;
+import com.example.store.PriceStoreRegistry;
+import com.example.upstream.MultiProviderPriceSource;
+import com.example.upstream.PriceProvider;
+import com.example.upstream.UpstreamClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the fan-out of {@link LivePriceStreamService} with a subscriber that stops reading.
+ */
+class LivePriceStreamServiceTests {
+
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+
+    private Path directory;
+    private PriceStoreRegistry priceStoreRegistry;
+    private MultiProviderPriceSource priceSource;
+    private LivePriceHub livePriceHub;
+
+    @BeforeEach
+    void createHub() throws IOException {
+        directory = Files.createTempDirectory("live-stream");
+        priceStoreRegistry = new PriceStoreRegistry(List.of(Metal.XAU.getCode()),
+                directory.resolve("historical_{metal}_spot_prices.csv").toString(),
+                directory.resolve("historical_{metal}_spot_prices.bin").toString(), "none");
+        // Never asked for a price: the test publishes its own
+        UpstreamClient client = new UpstreamClient(new AppConfig().restTemplate(500, 3000), 1, 10, 50, 0, 32, 5, 60000);
+        priceSource = new MultiProviderPriceSource(client, new ObjectMapper(), new UpstreamProperties(),
+                new StaticListableBeanFactory().getBeanProvider(PriceProvider.class), "http://127.0.0.1:9/price",
+                "first", 4000, 1, "USD");
+        livePriceHub = new LivePriceHub(priceSource, priceStoreRegistry);
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        livePriceHub.shutdown();
+        priceSource.shutdown();
+        priceStoreRegistry.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * A client that stopped reading: every write blocks until the connection is torn down.
+     */
+    private static final class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Broken pipe");
+        }
+    }
+
+    /**
+     * A client that reads everything, keeping the ids of the price events.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<Long> ids = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (DataWithMediaType data : builder.build()) {
+                Matcher id = EVENT_ID.matcher(data.getData().toString());
+                if (id.find()) {
+                    ids.add(Long.parseLong(id.group(1)));
+                }
+            }
+        }
+    }
+
+    private static LiveGoldPriceDTO price(long id) {
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 1, 20, 15, 0);
+        return new LiveGoldPriceDTO(2900 + id, updatedAt,
+                updatedAt.atZone(ZoneId.of("UTC")).withZoneSameInstant(ZoneId.of("America/New_York")));
+    }
+
+    @Test
+    void stalledSubscriberDoesNotHoldUpTheOthers() throws InterruptedException {
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter reading = new RecordingEmitter();
+        Deque<SseEmitter> emitters = new ArrayDeque<>(List.of(stalled, reading));
+        // A single dispatcher thread, which the stalled client takes first
+        LivePriceStreamService service = new LivePriceStreamService(livePriceHub,
+                new ObjectMapper().findAndRegisterModules(), 60_000, 5000, 100, 1, 100, timeout -> emitters.remove());
+        try {
+            service.subscribe(Metal.XAU, null);
+            service.subscribe(Metal.XAU, null);
+            for (long id = 1; id <= 20; id++) {
+                service.publish(Metal.XAU, price(id), id);
+                Long received = null;
+                for (int wait = 0; wait < 100 && received == null; wait++) {
+                    service.evictStalledSubscribers();
+                    received = reading.ids.poll(50, TimeUnit.MILLISECONDS);
+                }
+                assertEquals(Long.valueOf(id), received);
+            }
+            assertEquals(1, service.getSubscriberCount());
+        } finally {
+            stalled.closed.countDown();
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the {@link BinaryPriceFile.SourceMark} that decides whether a binary mirror still
+ * matches its CSV, and the reload that relies on it.
+ */
+class BinaryPriceFileTests {
+
+    // Long enough that the middle is well away from the first and last 512 bytes
+    private static final String CSV = csv(60);
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("binary-price-file");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static String csv(int days) {
+        StringBuilder csv = new StringBuilder(String.join(",", HistoryCsv.HEADER)).append('\n');
+        for (int day = 0; day < days; day++) {
+            double open = 1100 + day + 0.5;
+            csv.append(HistoryCsv.formatDate(1735776000L + day * 86400L)).append(',')
+                    .append(open).append(',').append(open + 10).append(',').append(open - 10).append(',')
+                    .append(open + 5).append('\n');
+        }
+        return csv.toString();
+    }
+
+    @Test
+    void extendingAMarkEqualsMarkingTheWholePrefix() {
+        byte[] data = CSV.getBytes(StandardCharsets.US_ASCII);
+        for (int split = 0; split <= data.length; split += 7) {
+            byte[] tail = new byte[data.length - split];
+            System.arraycopy(data, split, tail, 0, tail.length);
+            BinaryPriceFile.SourceMark extended = BinaryPriceFile.SourceMark.of(data, split).extend(tail, tail.length);
+            assertEquals(BinaryPriceFile.SourceMark.of(data, data.length).getChecksum(), extended.getChecksum(),
+                    "split at " + split);
+            assertEquals(data.length, extended.getOffset());
+        }
+    }
+
+    @Test
+    void sameLengthEditInTheMiddleDoesNotMatch() throws IOException {
+        Path csv = directory.resolve("history.csv");
+        Files.writeString(csv, CSV);
+        BinaryPriceFile.SourceMark mark;
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            mark = BinaryPriceFile.SourceMark.read(channel, channel.size());
+            assertTrue(mark.matches(channel));
+        }
+
+        Files.writeString(csv, CSV.replace("1130.5,1140.5", "1130.5,1999.5"));
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            assertFalse(mark.matches(channel));
+        }
+    }
+
+    @Test
+    void reloadParsesTheCsvWhenEditedBehindTheMirror() throws IOException {
+        Path csv = directory.resolve("history.csv");
+        Files.writeString(csv, CSV);
+        PriceStore store = new PriceStore(Metal.XAU, csv);
+        CsvTailFollower follower = new CsvTailFollower(store, directory.resolve("history.bin"));
+        follower.reload();
+        assertTrue(Files.exists(directory.resolve("history.bin")));
+
+        // Same length, same head and same last line: only a full checksum notices
+        Files.writeString(csv, CSV.replace("1130.5,1140.5", "1130.5,1999.5"));
+        PriceStore restarted = new PriceStore(Metal.XAU, csv);
+        new CsvTailFollower(restarted, directory.resolve("history.bin")).reload();
+        assertEquals(1999.5, restarted.snapshot().highAt(30));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises {@link CandleTier#withRows} as the store appends rows, against candles aggregated
+ * from scratch.
+ */
+class CandleTierTests {
+
+    private static final long DECEMBER_20_2023 = 1703030400L; // A Wednesday
+    private static final long DAY = 86400;
+
+    /**
+     * Three years of rows, with weekends and the odd weekday missing and a few days listed twice.
+     */
+    private static PriceSeries rows() {
+        Random random = new Random(5);
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        double close = 2000;
+        for (int day = 0; day < 3 * 366; day++) {
+            int weekday = (day + 2) % 7; // 0 is Monday
+            if (weekday >= 5 || random.nextInt(10) == 0) {
+                continue;
+            }
+            for (int repeat = random.nextInt(8) == 0 ? 2 : 1; repeat > 0; repeat--) {
+                double open = close;
+                close = Math.max(1, close + random.nextGaussian() * 20);
+                builder.add(DECEMBER_20_2023 + day * DAY, open, Math.max(open, close) + random.nextInt(10),
+                        Math.min(open, close) - random.nextInt(10), close);
+            }
+        }
+        return builder.build(0);
+    }
+
+    /**
+     * Groups the rows by bucket, without any of the tier's bookkeeping.
+     */
+    private static double[][] aggregate(CandleInterval interval, PriceSeries series) {
+        List<double[]> candles = new ArrayList<>();
+        double[] candle = null;
+        for (int i = 0; i < series.size(); i++) {
+            long start = interval.bucketStart(series.timestampAt(i));
+            if (candle == null || candle[0] != start) {
+                candle = new double[]{start, series.openAt(i), series.highAt(i), series.lowAt(i), series.closeAt(i)};
+                candles.add(candle);
+            } else {
+                candle[2] = Math.max(candle[2], series.highAt(i));
+                candle[3] = Math.min(candle[3], series.lowAt(i));
+                candle[4] = series.closeAt(i);
+            }
+        }
+        return candles.toArray(new double[0][]);
+    }
+
+    private static void assertCandles(double[][] expected, CandleTier tier, String what) {
+        assertEquals(expected.length, tier.size(), what);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals((long) expected[i][0], tier.startAt(i), what + " start " + i);
+            assertEquals(expected[i][1], tier.openAt(i), what + " open " + i);
+            assertEquals(expected[i][2], tier.highAt(i), what + " high " + i);
+            assertEquals(expected[i][3], tier.lowAt(i), what + " low " + i);
+            assertEquals(expected[i][4], tier.closeAt(i), what + " close " + i);
+        }
+    }
+
+    @Test
+    void appendedRowsGiveTheCandlesOfAFullAggregation() {
+        PriceSeries all = rows();
+        int[] steps = {1, 1, 3, 2, 5, 1, 17, 40, 1, 1, 64, 9, 130, 2, 300};
+        for (CandleInterval interval : CandleInterval.values()) {
+            PriceSeries.Builder store = new PriceSeries.Builder(16);
+            CandleTier tier = CandleTier.of(interval, store.build(0));
+            List<CandleTier> snapshots = new ArrayList<>();
+            List<double[][]> expected = new ArrayList<>();
+
+            int size = 0;
+            for (int step = 0; size < all.size(); step++) {
+                int fromIndex = size;
+                size = Math.min(all.size(), size + steps[step % steps.length]);
+                for (int i = fromIndex; i < size; i++) {
+                    store.add(all.timestampAt(i), all.openAt(i), all.highAt(i), all.lowAt(i), all.closeAt(i));
+                }
+                PriceSeries series = store.build(step + 1);
+                tier = tier.withRows(series, fromIndex);
+                assertNotNull(tier);
+
+                double[][] candles = aggregate(interval, series);
+                assertCandles(candles, tier, interval + " after " + size + " rows");
+                assertCandles(candles, CandleTier.of(interval, series), interval + " rebuilt at " + size + " rows");
+                snapshots.add(tier);
+                expected.add(candles);
+            }
+
+            // Sealing and growing later candles must not have touched what older snapshots show
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertCandles(expected.get(i), snapshots.get(i), interval + " snapshot " + i);
+            }
+        }
+    }
+
+    @Test
+    void rowBeforeTheFormingCandleAsksForARebuild() {
+        PriceSeries.Builder store = new PriceSeries.Builder();
+        store.add(DECEMBER_20_2023 + 40 * DAY, 2000, 2010, 1990, 2005);
+        CandleTier tier = CandleTier.of(CandleInterval.MONTH, store.build(1));
+
+        // A replaced history that now starts a month earlier
+        PriceSeries.Builder replaced = new PriceSeries.Builder();
+        replaced.add(DECEMBER_20_2023, 1900, 1910, 1890, 1905);
+        replaced.add(DECEMBER_20_2023 + 40 * DAY, 2000, 2010, 1990, 2005);
+        assertNull(tier.withRows(replaced.build(2), 0));
+        assertEquals(1, tier.size());
+        assertEquals(2005, tier.closeAt(0));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the compaction of {@link CsvTailFollower} across restarts, with the file edited by
+ * hand in between.
+ */
+class CsvTailFollowerTests {
+
+    private static final long JANUARY_1 = 1735689600L; // 2025-01-01T00:00Z
+    private static final int DAYS = 40;
+
+    private Path directory;
+    private Path csv;
+    private Path binary;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("csv-tail-follower");
+        csv = directory.resolve("history.csv");
+        binary = directory.resolve("history.bin");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * One row per day with a close unique to the day, after an overridden row of the same time on day 5.
+     */
+    private static String csv() {
+        StringBuilder csv = new StringBuilder(String.join(",", HistoryCsv.HEADER)).append('\n');
+        for (int day = 0; day < DAYS; day++) {
+            if (day == 5) {
+                csv.append(HistoryCsv.formatDate(JANUARY_1 + day * 86400L)).append(",1,1,1,1\n");
+            }
+            double close = close(day);
+            csv.append(HistoryCsv.formatDate(JANUARY_1 + day * 86400L)).append(',')
+                    .append(close - 5).append(',').append(close + 10).append(',').append(close - 10).append(',')
+                    .append(close).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static double close(int day) {
+        return 1200 + 3 * day + 0.75;
+    }
+
+    /**
+     * Loads the file as a restart would, with a fresh store, follower and journal.
+     */
+    private PriceSeries restartAndCompact() throws IOException {
+        PriceStore store = new PriceStore(Metal.XAU, csv);
+        CsvTailFollower follower = new CsvTailFollower(store, binary);
+        try (HistoryJournal journal = new HistoryJournal(csv, HistoryJournal.FsyncPolicy.NONE)) {
+            follower.reload();
+            follower.compact(journal);
+        }
+        return store.snapshot();
+    }
+
+    private static int indexOfDay(PriceSeries series, int day) {
+        return series.lowerBound(JANUARY_1 + day * 86400L);
+    }
+
+    private void assertCanonical() throws IOException {
+        byte[] data = Files.readAllBytes(csv);
+        CanonicalCsv.Region region = CanonicalCsv.detect(data, data.length);
+        assertNotNull(region);
+        assertEquals(data.length, region.getEnd());
+        assertEquals(DAYS, region.getRows());
+    }
+
+    @Test
+    void handEditOfACompactedFileSurvivesRestartAndCompaction() throws IOException {
+        Files.writeString(csv, csv());
+        PriceSeries compacted = restartAndCompact();
+        assertEquals(DAYS, compacted.size());
+        assertCanonical();
+
+        // Same length, so only the checksums tell the mirror and the header claims are stale
+        String edited = Files.readString(csv).replace("," + close(20) + "\n", "," + (close(20) + 700) + "\n");
+        Files.writeString(csv, edited);
+        PriceSeries restarted = restartAndCompact();
+        assertEquals(close(20) + 700, restarted.closeAt(indexOfDay(restarted, 20)));
+        assertCanonical();
+        assertTrue(Files.readString(csv).contains("," + (close(20) + 700) + "\n"));
+
+        PriceSeries again = restartAndCompact();
+        assertEquals(close(20) + 700, again.closeAt(indexOfDay(again, 20)));
+    }
+
+    @Test
+    void compactionRewritesWhatTheFileHoldsNotWhatTheStoreHolds() throws IOException {
+        String content = csv();
+        Files.writeString(csv, content);
+
+        // A mirror that claims to match the file but holds other prices for day 20
+        PriceSeries.Builder wrong = new PriceSeries.Builder();
+        for (int day = 0; day < DAYS; day++) {
+            double close = day == 20 ? 9999 : close(day);
+            wrong.add(JANUARY_1 + day * 86400L, close - 5, close + 10, close - 10, close);
+        }
+        byte[] data = content.getBytes(StandardCharsets.US_ASCII);
+        BinaryPriceFile.write(binary, wrong.build(0), BinaryPriceFile.SourceMark.of(data, data.length));
+
+        PriceStore store = new PriceStore(Metal.XAU, csv);
+        CsvTailFollower follower = new CsvTailFollower(store, binary);
+        try (HistoryJournal journal = new HistoryJournal(csv, HistoryJournal.FsyncPolicy.NONE)) {
+            follower.reload();
+            assertEquals(9999, store.snapshot().closeAt(20));
+
+            HistoryMerge merge = follower.compact(journal);
+            assertNotNull(merge);
+            assertEquals(1, merge.getSuperseded());
+        }
+        PriceSeries series = store.snapshot();
+        assertEquals(DAYS, series.size());
+        assertEquals(close(20), series.closeAt(indexOfDay(series, 20)));
+        assertFalse(Files.readString(csv).contains("9999"));
+        assertCanonical();
+    }
+}
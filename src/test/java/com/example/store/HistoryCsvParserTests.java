@@ -0,0 +1,203 @@
+package com.example.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link HistoryCsvParser}, fast path and fallback alike, reads every row exactly as
+ * {@link LocalDateTime#parse} and {@link Double#parseDouble} do, whichever way the input is cut
+ * into chunks.
+ */
+class HistoryCsvParserTests {
+
+    private static final String[] DATES = {
+            "%3$02d-%2$02d-%1$04d %4$02d:%5$02d",
+            "%1$04d-%2$02d-%3$02d %4$02d:%5$02d:%6$02d",
+            "%1$04d-%2$02d-%3$02d %4$02d:%5$02d:%6$02d+02:00",
+            "%1$04d-%2$02d-%3$02d %4$02d:%5$02d:%6$02d-05:30",
+            "%1$04d-%2$02d-%3$02d %4$02d:%5$02d:%6$02dZ",
+            " %3$02d-%2$02d-%1$04d %4$02d:%5$02d ",
+            "\"%3$02d-%2$02d-%1$04d %4$02d:%5$02d\"",
+    };
+
+    // Rejected, or resolved leniently, by the formatter
+    private static final String[] ODD_DATES = {
+            "2025-01-02", "2025-01-02T10:00", "2025-01-02T10:00:05", "31-02-2025 10:00", "02-01-2025 24:00",
+            "32-01-2025 10:00", "2025-13-01 00:00:00", "0000-01-01 00:00:00", "02-01-25 10:00", "yesterday", "",
+    };
+
+    private static final String[] ODD_PRICES = {
+            "", " ", "+5", "-0", ".5", "5.", "2.6e3", "26E2", "1e-3", "1e400", "2600.123456789012345678",
+            "9007199254740993", "NaN", "Infinity", "0x1p3", "5d", "x1", "1e", "\"2600.5\"", "\"2,600.50\"",
+    };
+
+    /**
+     * A file of {@code rows} lines of every kind, more than two parallel chunks long.
+     */
+    private static byte[] fixture(int rows) {
+        Random random = new Random(20250101);
+        StringBuilder csv = new StringBuilder("\uFEFF").append(String.join(",", HistoryCsv.HEADER)).append("\r\n");
+        for (int row = 0; row < rows; row++) {
+            int kind = random.nextInt(100);
+            if (kind < 2) {
+                csv.append(kind == 0 ? "" : " \t");
+            } else if (kind < 4) {
+                csv.append(random.nextBoolean() ? "not,a,row" : "01-01-20");
+            } else {
+                csv.append(kind < 6 ? ODD_DATES[random.nextInt(ODD_DATES.length)] : date(random));
+                int fields = kind < 10 ? 1 + random.nextInt(3) : kind < 12 ? 5 : 4;
+                for (int k = 0; k < fields; k++) {
+                    csv.append(',').append(kind < 16 ? ODD_PRICES[random.nextInt(ODD_PRICES.length)] : price(random));
+                }
+            }
+            csv.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String date(Random random) {
+        LocalDateTime dateTime = LocalDateTime.of(1990, 1, 1, 0, 0).plusMinutes(random.nextInt(20_000_000));
+        return String.format(Locale.ROOT, DATES[random.nextInt(DATES.length)], dateTime.getYear(), dateTime.getMonthValue(),
+                dateTime.getDayOfMonth(), dateTime.getHour(), dateTime.getMinute(), random.nextInt(60));
+    }
+
+    private static String price(Random random) {
+        double value = 200 + random.nextDouble() * 3000;
+        return switch (random.nextInt(5)) {
+            case 0 -> Double.toString(value);
+            case 1 -> String.format(Locale.ROOT, "%.2f", value);
+            case 2 -> Long.toString(Math.round(value));
+            case 3 -> String.format(Locale.ROOT, "%.6e", value);
+            default -> " " + String.format(Locale.ROOT, "%.4f", value) + " ";
+        };
+    }
+
+    /**
+     * Reads the file line by line with the JDK parsers only.
+     */
+    private static PriceSeries reference(byte[] data) {
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        String[] lines = new String(data, StandardCharsets.UTF_8).split("\n", -1);
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].endsWith("\r") ? lines[i].substring(0, lines[i].length() - 1) : lines[i];
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = HistoryCsv.splitLine(line);
+            try {
+                long timestamp = LocalDateTime.parse(values[0].trim(), HistoryCsv.FLEXIBLE_FORMATTER)
+                        .toEpochSecond(ZoneOffset.UTC);
+                if (values.length >= 5) {
+                    builder.add(timestamp, orZero(values[1]), orZero(values[2]), orZero(values[3]),
+                            Double.parseDouble(values[4]));
+                    continue;
+                }
+                for (int k = values.length - 1; k > 0; k--) {
+                    if (!values[k].isEmpty()) {
+                        builder.add(timestamp, 0, 0, 0, Double.parseDouble(values[k]));
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Skipped, as the parser does
+            }
+        }
+        return builder.build(0);
+    }
+
+    private static double orZero(String value) {
+        return value.isEmpty() ? 0 : Double.parseDouble(value);
+    }
+
+    private static void assertSameRows(PriceSeries expected, PriceSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        assertArrayEquals(expected.timestampValues(), actual.timestampValues());
+        // Compared bit for bit, so -0.0 and NaN must match too
+        assertArrayEquals(Arrays.copyOf(expected.open(), expected.size()), Arrays.copyOf(actual.open(), actual.size()));
+        assertArrayEquals(Arrays.copyOf(expected.high(), expected.size()), Arrays.copyOf(actual.high(), actual.size()));
+        assertArrayEquals(Arrays.copyOf(expected.low(), expected.size()), Arrays.copyOf(actual.low(), actual.size()));
+        assertArrayEquals(expected.closeValues(), actual.closeValues());
+    }
+
+    @Test
+    void parsesEveryRowAsTheJdkDoes() {
+        byte[] data = fixture(2000);
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        int added = HistoryCsvParser.parse(data, 0, data.length, true, builder);
+        PriceSeries expected = reference(data);
+        assertEquals(expected.size(), added);
+        assertSameRows(expected, builder.build(0));
+        // Enough of the fixture must parse for the comparison to mean something
+        assertTrue(expected.size() > 1500);
+    }
+
+    @Test
+    void chunkBoundariesInsideLinesDoNotChangeTheRows() {
+        byte[] data = fixture(70_000);
+        assertTrue(data.length > 2 * HistoryCsvParser.PARALLEL_CHUNK_BYTES);
+        PriceSeries expected = reference(data);
+
+        PriceSeries.Builder parallel = new PriceSeries.Builder();
+        HistoryCsvParser.parseParallel(data, 0, data.length, true, parallel);
+        assertSameRows(expected, parallel.build(0));
+
+        // Two ranges split at the line break after the middle, as parseParallel aligns a chunk
+        int middle = data.length / 2;
+        while (data[middle - 1] != '\n') {
+            middle++;
+        }
+        PriceSeries.Builder halves = new PriceSeries.Builder();
+        HistoryCsvParser.parse(data, 0, middle, true, halves);
+        HistoryCsvParser.parse(data, middle, data.length, false, halves);
+        assertSameRows(expected, halves.build(0));
+    }
+
+    @Test
+    void uploadReadInOddSizedPiecesMatchesTheSortedFile() throws IOException {
+        byte[] data = fixture(20_000);
+        PriceSeries reference = reference(data);
+        // The upload is sorted stably by timestamp
+        int[] order = IntStream.range(0, reference.size()).boxed()
+                .sorted(Comparator.comparingLong(reference::timestampAt)).mapToInt(Integer::intValue).toArray();
+        PriceSeries.Builder sorted = new PriceSeries.Builder(order.length);
+        for (int i : order) {
+            sorted.add(reference.timestampAt(i), reference.openAt(i), reference.highAt(i), reference.lowAt(i),
+                    reference.closeAt(i));
+        }
+
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 997));
+            }
+        };
+        PriceSeries uploaded = new HistoryUploadParser(new ObjectMapper(), 4096).parse(in, HistoryUploadParser.Format.CSV);
+        assertSameRows(sorted.build(0), uploaded);
+    }
+
+    @Test
+    void fastPathDecodesOnlyWhatTheFormatterReadsTheSameWay() {
+        for (String date : ODD_DATES) {
+            byte[] bytes = date.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Long.MIN_VALUE, HistoryCsvParser.parseTimestamp(bytes, 0, bytes.length), date);
+        }
+        byte[] bytes = "2025-01-02 10:00:05".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(HistoryCsv.toEpochSecond(LocalDateTime.of(2025, 1, 2, 10, 0, 5)),
+                HistoryCsvParser.parseTimestamp(bytes, 0, bytes.length));
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the crash recovery, group commit and file replacement of {@link HistoryJournal}
+ * on a file in a temporary directory.
+ */
+class HistoryJournalTests {
+
+    private static final String HEADER = String.join(",", HistoryCsv.HEADER) + "\n";
+
+    private Path directory;
+    private Path csv;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("history-journal");
+        csv = directory.resolve("history.csv");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static String row(String date, double open, double high, double low, double close) {
+        return date + "," + open + "," + high + "," + low + "," + close + "\n";
+    }
+
+    private int recover(String content) throws IOException {
+        Files.writeString(csv, content);
+        try (HistoryJournal journal = new HistoryJournal(csv, HistoryJournal.FsyncPolicy.NONE)) {
+            return journal.recover();
+        }
+    }
+
+    @Test
+    void tornLastLineIsCutOffEvenWhenItParses() throws IOException {
+        String rows = HEADER + row("01-01-2025 00:00", 2600, 2610, 2590, 2605)
+                + row("02-01-2025 00:00", 2605, 2620, 2600, 2615);
+
+        // The close of "2628.5" cut short after a digit still reads as a complete row
+        assertEquals(1, recover(rows + "03-01-2025 00:00,2615,2630,2610,28"));
+        assertEquals(rows, Files.readString(csv));
+
+        assertEquals(1, recover(rows + "03-01-20"));
+        assertEquals(rows, Files.readString(csv));
+    }
+
+    @Test
+    void intactFileIsLeftAlone() throws IOException {
+        String content = HEADER + row("01-01-2025 00:00", 2600, 2610, 2590, 2605)
+                + row("02-01-2025 00:00", 2605, 2620, 2600, 2615);
+        assertEquals(0, recover(content));
+        assertEquals(content, Files.readString(csv));
+        assertEquals(0, recover(HEADER));
+        assertEquals(HEADER, Files.readString(csv));
+    }
+
+    @Test
+    void laterRowOfTheSameDayWins() throws IOException {
+        String first = row("01-01-2025 00:00", 2600, 2610, 2590, 2605);
+        String morning = row("02-01-2025 09:00", 2605, 2620, 2600, 2615);
+        String evening = row("02-01-2025 17:00", 2605, 2625, 2600, 2621);
+        String third = row("03-01-2025 00:00", 2621, 2630, 2615, 2625);
+
+        assertEquals(1, recover(HEADER + first + morning + evening + third));
+        assertEquals(HEADER + first + evening + third, Files.readString(csv));
+
+        // Out of order: the row written last for a day wins, wherever the day sorts
+        assertEquals(1, recover(HEADER + first + evening + third + morning));
+        assertEquals(HEADER + first + third + morning, Files.readString(csv));
+    }
+
+    @Test
+    void rowRepeatingThePreviousDayIsDropped() throws IOException {
+        String friday = row("03-01-2025 00:00", 2640, 2650, 2630, 2645);
+        String saturday = row("04-01-2025 00:00", 2640, 2650, 2630, 2645);
+        String sunday = row("05-01-2025 00:00", 2640, 2650, 2630, 2645);
+        String monday = row("06-01-2025 00:00", 2645, 2660, 2640, 2655);
+
+        assertEquals(2, recover(HEADER + friday + saturday + sunday + monday));
+        assertEquals(HEADER + friday + monday, Files.readString(csv));
+
+        // Only open, high, low and close count; a different close is a new day of trading
+        String moved = row("04-01-2025 00:00", 2640, 2650, 2630, 2646);
+        assertEquals(0, recover(HEADER + friday + moved));
+    }
+
+    @Test
+    void canonicalRegionIsTrustedAndOnlyTheRowsAfterItAreChecked() throws IOException {
+        // The canonical writer is handed a repeated day, which recovery would otherwise drop
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        builder.add(1735689600L, 2600, 2610, 2590, 2605);
+        builder.add(1735776000L, 2600, 2610, 2590, 2605);
+        builder.add(1735862400L, 2615, 2630, 2610, 2625);
+        ByteArrayOutputStream canonical = new ByteArrayOutputStream();
+        CanonicalCsv.write(builder.build(1), canonical);
+        String head = canonical.toString(StandardCharsets.US_ASCII);
+
+        // Appended since: a repeat of the last canonical row, then the same day twice
+        String repeat = row("04-01-2025 00:00", 2615, 2630, 2610, 2625);
+        String morning = row("05-01-2025 09:00", 2625, 2640, 2620, 2630);
+        String evening = row("05-01-2025 17:00", 2625, 2645, 2620, 2641);
+
+        assertEquals(2, recover(head + repeat + morning + evening));
+        assertEquals(head + evening, Files.readString(csv));
+        byte[] data = Files.readAllBytes(csv);
+        CanonicalCsv.Region region = CanonicalCsv.detect(data, data.length);
+        assertNotNull(region);
+        assertEquals(3, region.getRows());
+    }
+
+    @Test
+    void failedGroupCommitLeavesNothingBehind() throws Exception {
+        Files.writeString(csv, HEADER);
+        List<FaultyChannel> channels = new ArrayList<>();
+        HistoryJournal journal = new HistoryJournal(csv, HistoryJournal.FsyncPolicy.COMMIT, file -> {
+            FaultyChannel channel = new FaultyChannel(FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+            channels.add(channel);
+            return channel;
+        });
+        String first = "01-01-2025 00:00,2600,2610,2590,2605";
+
+        // The first commit holds the lock inside its write while two more appends queue behind it
+        List<Throwable> failures = new ArrayList<>();
+        Thread leader = new Thread(() -> append(journal, first, failures));
+        leader.start();
+        assertTrue(FaultyChannel.entered.await(5, TimeUnit.SECONDS));
+        Thread second = new Thread(() -> append(journal, "02-01-2025 00:00,2605,2620,2600,2615", failures));
+        Thread third = new Thread(() -> append(journal, "03-01-2025 00:00,2615,2630,2610,2625", failures));
+        second.start();
+        third.start();
+        Thread.sleep(200);
+        FaultyChannel.failing = true;
+        FaultyChannel.gate.countDown();
+        for (Thread thread : List.of(leader, second, third)) {
+            thread.join(5000);
+        }
+
+        synchronized (failures) {
+            assertEquals(2, failures.size());
+            for (Throwable failure : failures) {
+                assertTrue(failure instanceof IOException);
+            }
+        }
+        assertEquals(HEADER + first + "\n", Files.readString(csv));
+
+        FaultyChannel.failing = false;
+        journal.append("04-01-2025 00:00,2625,2640,2620,2635");
+        journal.close();
+        assertEquals(HEADER + first + "\n" + "04-01-2025 00:00,2625,2640,2620,2635\n", Files.readString(csv));
+        assertEquals(1, channels.size());
+    }
+
+    private static void append(HistoryJournal journal, String line, List<Throwable> failures) {
+        try {
+            journal.append(line);
+        } catch (Throwable e) {
+            synchronized (failures) {
+                failures.add(e);
+            }
+        }
+    }
+
+    @Test
+    void replaceSwapsInTheWholeFileAndLaterAppendsFollowIt() throws IOException {
+        Files.writeString(csv, HEADER);
+        try (HistoryJournal journal = new HistoryJournal(csv, HistoryJournal.FsyncPolicy.INTERVAL)) {
+            journal.append("01-01-2025 00:00,2600,2610,2590,2605");
+            String replacement = HEADER + row("02-01-2025 00:00", 2605, 2620, 2600, 2615);
+            journal.replace(out -> out.write(replacement.getBytes(StandardCharsets.US_ASCII)));
+            assertEquals(replacement, Files.readString(csv));
+
+            journal.append("03-01-2025 00:00,2615,2630,2610,2625");
+            journal.sync();
+            assertEquals(replacement + "03-01-2025 00:00,2615,2630,2610,2625\n", Files.readString(csv));
+
+            // A replacement that fails part way leaves the old file and no temporary behind
+            String before = Files.readString(csv);
+            assertThrows(IOException.class, () -> journal.replace(out -> {
+                out.write("partial".getBytes(StandardCharsets.US_ASCII));
+                throw new IOException("disk full");
+            }));
+            assertEquals(before, Files.readString(csv));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(csv), files.toList());
+        }
+    }
+
+    /**
+     * Delegates to a real channel. The first write waits for {@link #gate}; once
+     * {@link #failing} is set, writes keep half of their bytes and then fail.
+     */
+    private static final class FaultyChannel extends FileChannel {
+
+        static final CountDownLatch entered = new CountDownLatch(1);
+        static final CountDownLatch gate = new CountDownLatch(1);
+        static volatile boolean failing;
+
+        private final FileChannel delegate;
+        private boolean first = true;
+
+        FaultyChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (first) {
+                first = false;
+                entered.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                return delegate.write(src);
+            }
+            if (failing) {
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                src.position(half.limit());
+                delegate.write(half);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
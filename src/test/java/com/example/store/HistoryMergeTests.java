@@ -0,0 +1,123 @@
+package com.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the one-row-per-day, last-writer-wins merge of {@link HistoryMerge} and the counts
+ * it reports for an upload.
+ */
+class HistoryMergeTests {
+
+    private static final long DAY = 86400;
+    private static final long JANUARY_1 = 1735689600L; // 2025-01-01T00:00Z
+
+    private static long at(int day, int hour) {
+        return JANUARY_1 + day * DAY + hour * 3600L;
+    }
+
+    /**
+     * Adds a row whose four prices are all {@code price}.
+     */
+    private static PriceSeries.Builder add(PriceSeries.Builder builder, long timestamp, double price) {
+        return builder.add(timestamp, price, price, price, price);
+    }
+
+    private static void assertRows(PriceSeries series, long[] timestamps, double[] closes) {
+        assertArrayEquals(timestamps, series.timestampValues());
+        assertArrayEquals(closes, series.closeValues());
+    }
+
+    @Test
+    void latestRowOfADayWinsWithinTheBatch() {
+        PriceSeries base = add(new PriceSeries.Builder(), at(0, 0), 2600).build(1);
+        PriceSeries.Builder batch = new PriceSeries.Builder();
+        add(batch, at(1, 9), 2610);
+        add(batch, at(1, 17), 2620);
+        // Same timestamp twice: the batch keeps them in upload order and the second wins
+        add(batch, at(2, 0), 2630);
+        add(batch, at(2, 0), 2640);
+
+        HistoryMerge merge = HistoryMerge.of(base, batch.build(0));
+        assertRows(merge.getRows().build(2), new long[]{at(0, 0), at(1, 17), at(2, 0)},
+                new double[]{2600, 2620, 2640});
+        assertEquals(4, merge.getReceived());
+        assertEquals(2, merge.getSuperseded());
+        assertEquals(2, merge.getAdded());
+    }
+
+    @Test
+    void batchRowReplacesEveryExistingRowOfItsDay() {
+        PriceSeries.Builder base = new PriceSeries.Builder();
+        add(base, at(0, 0), 2600);
+        add(base, at(1, 9), 2610);
+        add(base, at(1, 12), 2615);
+        add(base, at(1, 17), 2620);
+        add(base, at(2, 0), 2630);
+        PriceSeries batch = add(new PriceSeries.Builder(), at(1, 12), 2615).build(0);
+
+        // Matching one of the day's rows is not enough to leave the day unchanged
+        HistoryMerge merge = HistoryMerge.of(base.build(1), batch);
+        assertRows(merge.getRows().build(2), new long[]{at(0, 0), at(1, 12), at(2, 0)},
+                new double[]{2600, 2615, 2630});
+        assertEquals(1, merge.getReplaced());
+        assertEquals(0, merge.getUnchanged());
+        assertTrue(merge.isChanged());
+    }
+
+    @Test
+    void countsEveryOutcome() {
+        PriceSeries.Builder base = new PriceSeries.Builder();
+        add(base, at(0, 0), 2600);
+        add(base, at(1, 0), 2610);
+        add(base, at(2, 0), 2620);
+        PriceSeries.Builder batch = new PriceSeries.Builder();
+        add(batch, at(1, 0), 2610); // Unchanged
+        add(batch, at(2, 0), 2625); // Replaced
+        add(batch, at(3, 0), 2630); // Added
+        add(batch, at(4, 0), 2630); // Repeats the day before: dropped
+
+        HistoryMerge merge = HistoryMerge.of(base.build(1), batch.build(0));
+        assertRows(merge.getRows().build(2), new long[]{at(0, 0), at(1, 0), at(2, 0), at(3, 0)},
+                new double[]{2600, 2610, 2625, 2630});
+        assertEquals(4, merge.getReceived());
+        assertEquals(0, merge.getSuperseded());
+        assertEquals(1, merge.getAdded());
+        assertEquals(1, merge.getReplaced());
+        assertEquals(1, merge.getUnchanged());
+        assertEquals(1, merge.getRepeated());
+        assertTrue(merge.isChanged());
+    }
+
+    @Test
+    void batchMatchingTheHistoryChangesNothing() {
+        PriceSeries.Builder base = new PriceSeries.Builder();
+        add(base, at(0, 0), 2600);
+        add(base, at(1, 0), 2610);
+        PriceSeries batch = add(new PriceSeries.Builder(), at(1, 0), 2610).build(0);
+
+        HistoryMerge merge = HistoryMerge.of(base.build(1), batch);
+        assertEquals(1, merge.getUnchanged());
+        assertFalse(merge.isChanged());
+    }
+
+    @Test
+    void existingDayRepeatingAReplacedDayIsDroppedAndCounted() {
+        PriceSeries.Builder base = new PriceSeries.Builder();
+        add(base, at(0, 0), 2600);
+        add(base, at(1, 0), 2610);
+        add(base, at(2, 0), 2620);
+        add(base, at(3, 0), 2630);
+        add(base, at(4, 0), 2640);
+        PriceSeries.Builder batch = new PriceSeries.Builder();
+        add(batch, at(1, 0), 2620); // Day 2 now repeats it
+        add(batch, at(3, 0), 2640); // As does day 4, after the last batch row
+
+        HistoryMerge merge = HistoryMerge.of(base.build(1), batch.build(0));
+        assertRows(merge.getRows().build(2), new long[]{at(0, 0), at(1, 0), at(3, 0)},
+                new double[]{2600, 2620, 2640});
+        assertEquals(2, merge.getReplaced());
+        assertEquals(2, merge.getRepeated());
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link Indicator} against known values and straightforward reference computations, and
+ * that advancing it row by row gives what a full recomputation gives.
+ */
+class IndicatorTests {
+
+    private static final long JANUARY_1 = 1735689600L; // 2025-01-01T00:00Z
+
+    private static PriceSeries series(double[] closes, int size, long version) {
+        PriceSeries.Builder builder = new PriceSeries.Builder(size);
+        for (int i = 0; i < size; i++) {
+            builder.add(JANUARY_1 + i * 86400L, closes[i], closes[i], closes[i], closes[i]);
+        }
+        return builder.build(version);
+    }
+
+    private static double[] randomWalk(int size, long seed) {
+        Random random = new Random(seed);
+        double[] closes = new double[size];
+        closes[0] = 2000;
+        for (int i = 1; i < size; i++) {
+            closes[i] = Math.max(1, closes[i - 1] + random.nextGaussian() * 15);
+        }
+        return closes;
+    }
+
+    private static double[] column(Indicator indicator, int column) {
+        IndicatorValues values = indicator.values();
+        double[] out = new double[values.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = values.valueAt(column, i);
+        }
+        return out;
+    }
+
+    private static void assertClose(double[] expected, double[] actual, double tolerance, String what) {
+        assertEquals(expected.length, actual.length, what);
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertTrue(Double.isNaN(actual[i]), what + " should be NaN at " + i);
+            } else {
+                assertEquals(expected[i], actual[i], tolerance, what + " at " + i);
+            }
+        }
+    }
+
+    private static double[] nan(int size) {
+        double[] values = new double[size];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    private static double[] sma(double[] closes, int window) {
+        double[] out = nan(closes.length);
+        for (int i = window - 1; i < closes.length; i++) {
+            double sum = 0;
+            for (int k = i - window + 1; k <= i; k++) {
+                sum += closes[k];
+            }
+            out[i] = sum / window;
+        }
+        return out;
+    }
+
+    /**
+     * EMA seeded with the average of the first {@code period} defined inputs; NaN inputs are skipped.
+     */
+    private static double[] ema(double[] inputs, int period) {
+        double[] out = nan(inputs.length);
+        int first = 0;
+        while (first < inputs.length && Double.isNaN(inputs[first])) {
+            first++;
+        }
+        int seed = first + period - 1;
+        if (seed >= inputs.length) {
+            return out;
+        }
+        double sum = 0;
+        for (int k = first; k <= seed; k++) {
+            sum += inputs[k];
+        }
+        out[seed] = sum / period;
+        for (int i = seed + 1; i < inputs.length; i++) {
+            out[i] = out[i - 1] + 2.0 / (period + 1) * (inputs[i] - out[i - 1]);
+        }
+        return out;
+    }
+
+    private static double[] rsi(double[] closes, int window) {
+        double[] out = nan(closes.length);
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= window && i < closes.length; i++) {
+            double change = closes[i] - closes[i - 1];
+            gain += Math.max(change, 0);
+            loss += Math.max(-change, 0);
+        }
+        gain /= window;
+        loss /= window;
+        for (int i = window; i < closes.length; i++) {
+            if (i > window) {
+                double change = closes[i] - closes[i - 1];
+                gain = (gain * (window - 1) + Math.max(change, 0)) / window;
+                loss = (loss * (window - 1) + Math.max(-change, 0)) / window;
+            }
+            out[i] = loss == 0 ? 100 : 100 - 100 / (1 + gain / loss);
+        }
+        return out;
+    }
+
+    private static double[][] bollinger(double[] closes, int window) {
+        double[] middle = sma(closes, window);
+        double[] upper = nan(closes.length);
+        double[] lower = nan(closes.length);
+        for (int i = window - 1; i < closes.length; i++) {
+            double squares = 0;
+            for (int k = i - window + 1; k <= i; k++) {
+                squares += (closes[k] - middle[i]) * (closes[k] - middle[i]);
+            }
+            double deviation = Math.sqrt(squares / window);
+            upper[i] = middle[i] + 2 * deviation;
+            lower[i] = middle[i] - 2 * deviation;
+        }
+        return new double[][]{middle, upper, lower};
+    }
+
+    private static double[][] macd(double[] closes, int signalPeriod) {
+        double[] fast = ema(closes, 12);
+        double[] slow = ema(closes, 26);
+        double[] macd = new double[closes.length];
+        for (int i = 0; i < closes.length; i++) {
+            macd[i] = fast[i] - slow[i];
+        }
+        double[] signal = ema(macd, signalPeriod);
+        double[] histogram = new double[closes.length];
+        for (int i = 0; i < closes.length; i++) {
+            histogram[i] = macd[i] - signal[i];
+        }
+        return new double[][]{macd, signal, histogram};
+    }
+
+    private static double[][] reference(IndicatorType type, double[] closes, int window) {
+        return switch (type) {
+            case SMA -> new double[][]{sma(closes, window)};
+            case EMA -> new double[][]{ema(closes, window)};
+            case RSI -> new double[][]{rsi(closes, window)};
+            case BOLLINGER -> bollinger(closes, window);
+            case MACD -> macd(closes, window);
+        };
+    }
+
+    @Test
+    void knownValues() {
+        double[] rising = {1, 2, 3, 4, 5};
+        Indicator sma = Indicator.create(IndicatorType.SMA, 3);
+        sma.update(series(rising, 5, 1), false);
+        assertArrayEquals(new double[]{Double.NaN, Double.NaN, 2, 3, 4}, column(sma, 0));
+
+        // Seeded with the average of 1, 2 and 3, then halfway towards each new close
+        Indicator ema = Indicator.create(IndicatorType.EMA, 3);
+        ema.update(series(rising, 5, 1), false);
+        assertArrayEquals(new double[]{Double.NaN, Double.NaN, 2, 3, 4}, column(ema, 0));
+
+        // Gains of 1 and 1 give 100; then a loss of 1 brings both averages to 0.5
+        Indicator rsi = Indicator.create(IndicatorType.RSI, 2);
+        rsi.update(series(new double[]{1, 2, 3, 2}, 4, 1), false);
+        assertArrayEquals(new double[]{Double.NaN, Double.NaN, 100, 50}, column(rsi, 0));
+
+        // Mean 2, population deviation 1
+        Indicator bollinger = Indicator.create(IndicatorType.BOLLINGER, 2);
+        bollinger.update(series(new double[]{1, 3}, 2, 1), false);
+        assertEquals(2, bollinger.values().valueAt(0, 1));
+        assertEquals(4, bollinger.values().valueAt(1, 1));
+        assertEquals(0, bollinger.values().valueAt(2, 1));
+
+        // A constant price has no trend: MACD, signal and histogram settle at zero
+        double[] flat = new double[40];
+        Arrays.fill(flat, 2500);
+        Indicator macd = Indicator.create(IndicatorType.MACD, 9);
+        macd.update(series(flat, 40, 1), false);
+        assertTrue(Double.isNaN(macd.values().valueAt(0, 24)));
+        assertEquals(0, macd.values().valueAt(0, 25));
+        assertTrue(Double.isNaN(macd.values().valueAt(1, 32)));
+        assertEquals(0, macd.values().valueAt(1, 33));
+        assertEquals(0, macd.values().valueAt(2, 39));
+    }
+
+    @Test
+    void matchesReferenceComputations() {
+        double[] closes = randomWalk(400, 1);
+        for (IndicatorType type : IndicatorType.values()) {
+            for (int window : new int[]{2, type.getDefaultWindow(), 50}) {
+                Indicator indicator = Indicator.create(type, window);
+                indicator.update(series(closes, closes.length, 1), false);
+                double[][] expected = reference(type, closes, window);
+                for (int c = 0; c < expected.length; c++) {
+                    assertClose(expected[c], column(indicator, c), 1e-6, type + "/" + window + " column " + c);
+                }
+            }
+        }
+    }
+
+    @Test
+    void appendingRowsGivesWhatAFullRecomputationGives() {
+        double[] closes = randomWalk(600, 2);
+        int[] steps = {1, 1, 7, 26, 64, 1, 200};
+        for (IndicatorType type : IndicatorType.values()) {
+            Indicator incremental = Indicator.create(type, type.getDefaultWindow());
+            int size = 100;
+            long version = 1;
+            incremental.update(series(closes, size, version), false);
+            for (int step : steps) {
+                size += step;
+                incremental.update(series(closes, size, ++version), true);
+
+                Indicator full = Indicator.create(type, type.getDefaultWindow());
+                full.update(series(closes, size, version), false);
+                assertEquals(version, incremental.values().getVersion());
+                for (int c = 0; c < type.getColumns().length; c++) {
+                    assertArrayEquals(column(full, c), column(incremental, c), type + " after " + size + " rows");
+                }
+            }
+        }
+    }
+
+    @Test
+    void olderSnapshotDoesNotRollTheValuesBack() {
+        double[] closes = randomWalk(200, 3);
+        Indicator indicator = Indicator.create(IndicatorType.SMA, 20);
+        PriceSeries older = series(closes, 150, 1);
+        indicator.update(older, false);
+        indicator.update(series(closes, 200, 2), true);
+
+        // A request thread that read its snapshot before the append arrives late
+        indicator.update(older, false);
+        assertEquals(2, indicator.values().getVersion());
+        assertEquals(200, indicator.values().size());
+    }
+}
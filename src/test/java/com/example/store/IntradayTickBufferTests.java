@@ -0,0 +1,54 @@
+package com.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the lock-free reads of {@link IntradayTickBuffer} while the writer laps the ring.
+ */
+class IntradayTickBufferTests {
+
+    // Noon in New York, so a few million milliseconds of ticks stay on one day
+    private static final long NOON = LocalDateTime.of(2025, 1, 15, 12, 0)
+            .atZone(ZoneId.of("America/New_York")).toInstant().toEpochMilli();
+
+    @Test
+    void readsOfAFullRingNeverMixTwoTicks() throws Exception {
+        IntradayTickBuffer buffer = new IntradayTickBuffer(Metal.XAU, 8, 0, null);
+        int ticks = 2_000_000;
+        AtomicReference<String> torn = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            // Each tick's price is its offset from noon, so a pair can be checked on its own
+            for (int i = 0; i < ticks; i++) {
+                buffer.add(NOON + i, i, "USD");
+            }
+        });
+        writer.start();
+
+        int reads = 0;
+        while (writer.isAlive() || reads == 0) {
+            IntradayTickBuffer.Ticks copy = reads % 2 == 0 ? buffer.ticks() : buffer.samples();
+            assertTrue(copy.size() < 8);
+            for (int i = 0; i < copy.size(); i++) {
+                if (copy.priceAt(i) != copy.timeAt(i) - NOON) {
+                    torn.compareAndSet(null, "time " + (copy.timeAt(i) - NOON) + " with price " + copy.priceAt(i));
+                }
+                if (i > 0 && copy.timeAt(i) != copy.timeAt(i - 1) + 1) {
+                    torn.compareAndSet(null, "gap after " + (copy.timeAt(i - 1) - NOON));
+                }
+            }
+            reads++;
+        }
+        writer.join();
+        assertNull(torn.get());
+
+        IntradayTickBuffer.Ticks last = buffer.ticks();
+        assertEquals(7, last.size());
+        assertEquals(NOON + ticks - 1, last.timeAt(6));
+    }
+}
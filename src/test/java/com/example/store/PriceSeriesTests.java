@@ -0,0 +1,70 @@
+package com.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the sort {@link PriceSeries.Builder} applies to rows added out of order.
+ */
+class PriceSeriesTests {
+
+    /**
+     * Adds rows with the given timestamps, each with its position as the close, and checks the
+     * built series against a stable sort of the same rows.
+     */
+    private static void assertSortedStably(long[] timestamps) {
+        PriceSeries.Builder builder = new PriceSeries.Builder(4);
+        for (int i = 0; i < timestamps.length; i++) {
+            builder.add(timestamps[i], 1, 1, 1, i);
+        }
+        PriceSeries series = builder.build(1);
+
+        Integer[] expected = new Integer[timestamps.length];
+        Arrays.setAll(expected, i -> i);
+        Arrays.sort(expected, Comparator.comparingLong(i -> timestamps[i]));
+        assertEquals(timestamps.length, series.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(timestamps[expected[i]], series.timestampAt(i));
+            assertEquals((double) expected[i], series.closeAt(i), "row " + i);
+        }
+    }
+
+    @Test
+    void keepsTheOrderOfRowsSharingATimestamp() {
+        Random random = new Random(7);
+        for (int size : new int[]{2, 3, 17, 1000, 65_537}) {
+            long[] timestamps = new long[size];
+            for (int i = 0; i < size; i++) {
+                // Few distinct days, so most rows share a timestamp with others
+                timestamps[i] = 1735689600L + random.nextInt(Math.max(2, size / 8)) * 86400L;
+            }
+            assertSortedStably(timestamps);
+        }
+    }
+
+    @Test
+    void sortsTimestampsTooFarApartToPack() {
+        Random random = new Random(11);
+        long[] timestamps = new long[5000];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = switch (random.nextInt(4)) {
+                case 0 -> Long.MIN_VALUE + random.nextInt(3);
+                case 1 -> Long.MAX_VALUE - random.nextInt(3);
+                default -> random.nextInt(100);
+            };
+        }
+        assertSortedStably(timestamps);
+    }
+
+    @Test
+    void sortedInputIsLeftAsItIs() {
+        assertSortedStably(new long[]{1, 2, 2, 3});
+        assertSortedStably(new long[]{-5, -5, 0});
+        assertSortedStably(new long[0]);
+    }
+}
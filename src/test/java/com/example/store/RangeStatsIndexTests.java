@@ -0,0 +1,124 @@
+package com.example.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises {@link RangeStatsIndex} as the store appends rows, against statistics computed by
+ * scanning each range.
+ */
+class RangeStatsIndexTests {
+
+    private static final long JANUARY_1 = 1735689600L; // 2025-01-01T00:00Z
+
+    /**
+     * Gold-like prices in steps of 0.5, so that equal highs and lows are common.
+     */
+    private static PriceSeries rows(int size) {
+        Random random = new Random(8);
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        double close = 2400;
+        for (int i = 0; i < size; i++) {
+            close = Math.max(1, close + Math.round(random.nextGaussian() * 20) / 2.0);
+            builder.add(JANUARY_1 + i * 86400L, close, close + random.nextInt(3) / 2.0,
+                    close - random.nextInt(3) / 2.0, close);
+        }
+        return builder.build(0);
+    }
+
+    private static void assertRange(RangeStatsIndex index, PriceSeries series, int from, int to) {
+        String what = "[" + from + ", " + to + "] of " + index.size();
+        int highest = from;
+        int lowest = from;
+        double sum = 0;
+        for (int i = from; i <= to; i++) {
+            if (series.highAt(i) > series.highAt(highest)) {
+                highest = i;
+            }
+            if (series.lowAt(i) < series.lowAt(lowest)) {
+                lowest = i;
+            }
+            sum += series.closeAt(i);
+        }
+        double mean = sum / (to - from + 1);
+        double squares = 0;
+        for (int i = from; i <= to; i++) {
+            squares += (series.closeAt(i) - mean) * (series.closeAt(i) - mean);
+        }
+
+        // Ties go to the earliest row
+        assertEquals(highest, index.highestHigh(from, to), what + " highest high");
+        assertEquals(lowest, index.lowestLow(from, to), what + " lowest low");
+        assertEquals(mean, index.meanClose(from, to), 1e-9, what + " mean");
+        assertEquals(Math.sqrt(squares / (to - from + 1)), index.stdDevClose(from, to), 1e-6, what + " deviation");
+    }
+
+    private static void assertRanges(RangeStatsIndex index, PriceSeries series, Random random) {
+        int size = series.size();
+        assertEquals(size, index.size());
+        assertRange(index, series, 0, size - 1);
+        assertRange(index, series, size - 1, size - 1);
+        for (int k = 0; k < 40; k++) {
+            int from = random.nextInt(size);
+            int to = from + random.nextInt(size - from);
+            assertRange(index, series, from, to);
+        }
+    }
+
+    @Test
+    void appendedRowsAnswerLikeAScan() {
+        PriceSeries all = rows(1100);
+        // Ends steps on both sides of each power of two, then in larger strides
+        int[] sizes = {1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 32, 33, 64, 65, 127, 128, 129, 255, 256, 257,
+                400, 511, 512, 513, 700, 1023, 1024, 1025, 1100};
+        Random random = new Random(9);
+        PriceSeries.Builder store = new PriceSeries.Builder(16);
+        // Starts empty, as the service does
+        RangeStatsIndex index = RangeStatsIndex.of(store.build(0));
+        List<RangeStatsIndex> snapshots = new ArrayList<>();
+
+        int size = 0;
+        for (int next : sizes) {
+            for (int i = size; i < next; i++) {
+                store.add(all.timestampAt(i), all.openAt(i), all.highAt(i), all.lowAt(i), all.closeAt(i));
+            }
+            size = next;
+            PriceSeries series = store.build(size);
+            index = index.withRows(series);
+            assertRanges(index, series, random);
+            assertRanges(RangeStatsIndex.of(series), series, random);
+            snapshots.add(index);
+        }
+
+        // Later rows must not have changed what older snapshots answer
+        for (RangeStatsIndex snapshot : snapshots) {
+            assertRanges(snapshot, snapshot.getSeries(), random);
+        }
+    }
+
+    @Test
+    void constantPricesHaveNoDeviation() {
+        PriceSeries.Builder store = new PriceSeries.Builder();
+        RangeStatsIndex index = RangeStatsIndex.of(store.build(0));
+        for (int i = 0; i < 5000; i++) {
+            store.add(JANUARY_1 + i * 86400L, 2650.35, 2650.35, 2650.35, 2650.35);
+        }
+        index = index.withRows(store.build(1));
+        assertEquals(0, index.stdDevClose(0, 4999), 1e-9);
+        assertEquals(0, index.stdDevClose(4990, 4999), 1e-9);
+        assertEquals(2650.35, index.meanClose(4990, 4999), 1e-9);
+    }
+
+    @Test
+    void rangesOutsideTheIndexAreRejected() {
+        RangeStatsIndex index = RangeStatsIndex.of(rows(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.highestHigh(0, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.meanClose(-1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.stdDevClose(5, 4));
+    }
+}
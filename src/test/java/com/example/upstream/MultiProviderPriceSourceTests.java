@@ -0,0 +1,146 @@
+package com.example.upstream;
+
+import com.example.config.AppConfig;
+import com.example.config.UpstreamProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises {@link MultiProviderPriceSource} against local stub providers.
+ */
+class MultiProviderPriceSourceTests {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub("/fast", 0, 200, "{\"price\":2900.0,\"updatedAt\":\"2025-01-19T12:30:00Z\"}");
+        stub("/slow", 1500, 200, "{\"price\":2910.0,\"updatedAt\":\"2025-01-19T12:30:00Z\"}");
+        stub("/other", 0, 200, "{\"data\":{\"price\":\"2920.0\",\"ts\":1737289800}}");
+        stub("/outlier", 0, 200, "{\"price\":1.0,\"updatedAt\":\"2025-01-19T12:30:00Z\"}");
+        stub("/euro", 0, 200, "{\"price\":2700.0,\"currency\":\"EUR\",\"updatedAt\":\"2025-01-19T12:30:00Z\"}");
+        stub("/down", 0, 503, "{}");
+        stub("/price/XAG", 0, 200, "{\"price\":32.5,\"updatedAt\":\"2025-01-19T12:30:00Z\"}");
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private void stub(String path, long delayMillis, int status, String json) {
+        server.createContext(path, exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private MultiProviderPriceSource source(String strategy, int raceWidth, String... paths) {
+        UpstreamProperties properties = new UpstreamProperties();
+        for (String path : paths) {
+            UpstreamProperties.Provider provider = new UpstreamProperties.Provider();
+            provider.setName(path.contains(PriceProvider.SYMBOL_PLACEHOLDER) ? "templated" : path.substring(1));
+            provider.setUrl(baseUrl + path);
+            if (path.equals("/other")) {
+                provider.setPricePointer("/data/price");
+                provider.setTimestampPointer("/data/ts");
+            }
+            properties.getProviders().add(provider);
+        }
+        UpstreamClient client = new UpstreamClient(new AppConfig().restTemplate(500, 3000), 1, 10, 50, 0, 32, 5, 60000);
+        return new MultiProviderPriceSource(client, new ObjectMapper(), properties,
+                new StaticListableBeanFactory().getBeanProvider(PriceProvider.class),
+                baseUrl + "/fast", strategy, 4000, raceWidth, "USD");
+    }
+
+    @Test
+    void firstValidQuoteWinsTheRace() {
+        MultiProviderPriceSource source = source("first", 2, "/slow", "/fast");
+        long start = System.nanoTime();
+        PriceQuote quote = source.fetch("XAU");
+
+        assertEquals("fast", quote.getProvider());
+        assertEquals(2900.0, quote.getPrice());
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        source.shutdown();
+    }
+
+    @Test
+    void failsOverToTheNextProvider() {
+        MultiProviderPriceSource source = source("first", 1, "/down", "/other");
+        PriceQuote quote = source.fetch("XAU");
+
+        assertEquals("other", quote.getProvider());
+        assertEquals(2920.0, quote.getPrice());
+        assertEquals(2025, quote.getUpdatedAt().getYear());
+        source.shutdown();
+    }
+
+    @Test
+    void medianIgnoresAnOutlier() {
+        MultiProviderPriceSource source = source("median", 2, "/fast", "/other", "/outlier", "/down");
+        PriceQuote quote = source.fetch("XAU");
+
+        assertEquals(2900.0, quote.getPrice());
+        source.shutdown();
+    }
+
+    @Test
+    void medianLeavesOutQuotesInAnotherCurrency() {
+        MultiProviderPriceSource source = source("median", 2, "/fast", "/euro");
+        PriceQuote quote = source.fetch("XAU");
+
+        assertEquals(2900.0, quote.getPrice());
+        assertEquals("USD", quote.getCurrency());
+        ProviderStats euro = source.getStats().stream()
+                .filter(stats -> stats.getProvider().equals("euro")).findFirst().orElseThrow();
+        assertEquals(0, euro.getSuccesses());
+        assertEquals(1, euro.getFailures());
+        source.shutdown();
+    }
+
+    @Test
+    void throwsWhenNoProviderAnswers() {
+        MultiProviderPriceSource source = source("first", 2, "/down");
+
+        assertThrows(UpstreamUnavailableException.class, () -> source.fetch("XAU"));
+        source.shutdown();
+    }
+
+    @Test
+    void substitutesTheSymbolIntoTheUrl() {
+        MultiProviderPriceSource source = source("first", 2, "/price/{symbol}", "/fast");
+
+        assertEquals(32.5, source.fetch("XAG").getPrice());
+        assertEquals("templated", source.fetch("XAG").getProvider());
+        // A URL without the placeholder only quotes gold
+        assertThrows(UpstreamUnavailableException.class, () -> source.fetch("XPT"));
+        source.shutdown();
+    }
+}
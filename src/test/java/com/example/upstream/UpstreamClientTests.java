@@ -0,0 +1,141 @@
+package com.example.upstream;
+
+import com.example.config.AppConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises {@link UpstreamClient} against a local stub of the gold price API.
+ */
+class UpstreamClientTests {
+
+    private static final String BODY = "{\"price\":2900.5,\"currency\":\"USD\",\"updatedAt\":\"2025-01-19T12:30:00Z\"}";
+
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    // Number of leading requests the stub fails with a 503, and the delay before answering the
+    // first slowFirst requests
+    private volatile int failFirst;
+    private volatile long delayMillis;
+    private volatile int slowFirst = 1;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/price/XAU", exchange -> {
+            int request = requests.incrementAndGet();
+            try {
+                Thread.sleep(request <= slowFirst ? delayMillis : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            int status = request <= failFirst ? 503 : 200;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/price/XAU";
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private UpstreamClient client(int maxAttempts, long hedgeDelayMillis, int failureThreshold) {
+        return new UpstreamClient(new AppConfig().restTemplate(500, 3000),
+                maxAttempts, 10, 50, hedgeDelayMillis, 32, failureThreshold, 60000);
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() {
+        failFirst = 2;
+        String response = client(3, 0, 10).get(url, String.class);
+
+        assertEquals(BODY, response);
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void opensCircuitAfterRepeatedFailures() {
+        failFirst = Integer.MAX_VALUE;
+        UpstreamClient client = client(2, 0, 2);
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, String.class));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState(url));
+
+        // While open, no request reaches the upstream
+        int before = requests.get();
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, String.class));
+        assertEquals(before, requests.get());
+    }
+
+    @Test
+    void readTimeoutBoundsAHungUpstream() {
+        delayMillis = 5000;
+        long start = System.nanoTime();
+        UpstreamClient client = new UpstreamClient(new AppConfig().restTemplate(500, 500), 1, 10, 50, 0, 32, 10, 60000);
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, String.class));
+        assertTrue(System.nanoTime() - start < 3_000_000_000L, "The read timeout should cut the call short");
+    }
+
+    @Test
+    void hedgedRequestAnswersWhenThePrimaryIsSlow() {
+        delayMillis = 2000;
+        long start = System.nanoTime();
+
+        String response = client(1, 50, 10).get(url, String.class);
+
+        assertEquals(BODY, response);
+        assertEquals(2, requests.get());
+        assertTrue(System.nanoTime() - start < 1_500_000_000L, "The hedge should answer before the slow primary");
+    }
+
+    @Test
+    void hedgesStillRaceWhenManyCallsAreInFlight() throws Exception {
+        // Every primary is slow; more calls than the old fixed pool had threads run at once
+        int calls = 8;
+        slowFirst = calls;
+        delayMillis = 2000;
+        UpstreamClient client = client(1, 200, 10);
+        ExecutorService callers = Executors.newFixedThreadPool(calls);
+        try {
+            long start = System.nanoTime();
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                responses.add(callers.submit(() -> client.get(url, String.class)));
+            }
+            for (Future<String> response : responses) {
+                assertEquals(BODY, response.get());
+            }
+            assertTrue(System.nanoTime() - start < 1_500_000_000L, "Every hedge should answer before the slow primaries");
+            assertEquals(2 * calls, requests.get());
+        } finally {
+            callers.shutdownNow();
+            client.shutdown();
+        }
+    }
+}